@@ -0,0 +1,99 @@
+package de.danielmescheder.snooker.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.LogManager;
+
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.simulation.InTimeSimulation;
+import de.danielmescheder.snooker.simulation.SimulationPool;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.Event;
+
+/**
+ * The AllocationBenchmark measures how much memory is allocated per simulated
+ * shot when every shot gets a new {@link InTimeSimulation}, and when the
+ * simulations are taken from the {@link SimulationPool}. The setup of a
+ * simulation (construction or reset, and init without events) is measured
+ * separately from complete shots, which also allocate the events that occur.
+ *
+ * The allocated bytes are read from the thread allocation counter of the
+ * HotSpot VM.
+ *
+ * Usage: AllocationBenchmark [shots] [runs]
+ *
+ */
+public class AllocationBenchmark {
+	private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	private interface Workload {
+		void run(CueInteraction shot);
+	}
+
+	private static long allocatedBytes() {
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static void measure(String name, final Workload workload,
+			final List<CueInteraction> shots, int runs) {
+		final long[] bytes = new long[1];
+		Measurement m = new Measurement(name + ": " + shots.size() + " shots",
+				3, runs).run(new Runnable() {
+			public void run() {
+				long start = allocatedBytes();
+				for (CueInteraction shot : shots) {
+					workload.run(shot);
+				}
+				bytes[0] = allocatedBytes() - start;
+			}
+		});
+		System.out.printf("%s, %.1f kB/shot%n", m, bytes[0] / 1024.0
+				/ shots.size());
+	}
+
+	public static void main(String[] args) {
+		LogManager.getLogManager().reset();
+
+		int shotCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		final GameState state = Workloads.breakState();
+		List<CueInteraction> shots = Workloads.randomShots(state, shotCount,
+				42);
+
+		measure("new, setup", new Workload() {
+			public void run(CueInteraction shot) {
+				InTimeSimulation sim = new InTimeSimulation(state.getBalls(),
+						state.getTable());
+				sim.init(Collections.<Event> emptySet());
+			}
+		}, shots, runs);
+		measure("pooled, setup", new Workload() {
+			public void run(CueInteraction shot) {
+				InTimeSimulation sim = SimulationPool.acquire(state.getBalls(),
+						state.getTable());
+				sim.init(Collections.<Event> emptySet());
+				SimulationPool.release(sim);
+			}
+		}, shots, runs);
+		measure("new, shot", new Workload() {
+			public void run(CueInteraction shot) {
+				InTimeSimulation sim = new InTimeSimulation(state.getBalls(),
+						state.getTable());
+				sim.init(Collections.singleton(shot));
+				sim.finish();
+			}
+		}, shots, runs);
+		measure("pooled, shot", new Workload() {
+			public void run(CueInteraction shot) {
+				InTimeSimulation sim = SimulationPool.acquire(state.getBalls(),
+						state.getTable());
+				sim.init(Collections.singleton(shot));
+				sim.finish();
+				SimulationPool.release(sim);
+			}
+		}, shots, runs);
+	}
+}
@@ -0,0 +1,149 @@
+package de.danielmescheder.snooker.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.LogManager;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.simulation.EventQueue;
+import de.danielmescheder.snooker.simulation.HeapEventQueue;
+import de.danielmescheder.snooker.simulation.InTimeSimulation;
+import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.TreeEventQueue;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.Event;
+
+/**
+ * The EventQueueBenchmark compares the {@link HeapEventQueue} with the
+ * {@link TreeEventQueue}. It measures complete simulations of random break
+ * shots as well as the queue on its own, driven by a hold model in which the
+ * earliest event is taken, all events of its ball are cancelled and new ones
+ * are scheduled, like the simulation does.
+ * 
+ * Usage: EventQueueBenchmark [shots] [runs]
+ * 
+ */
+public class EventQueueBenchmark {
+	private interface QueueFactory {
+		EventQueue create();
+	}
+
+	private static class HoldEvent extends Event {
+		private final int ball;
+
+		public HoldEvent(float time, int ball) {
+			super(time, Collections.<BilliardBall> emptySet());
+			this.ball = ball;
+		}
+
+		@Override
+		public void handle(Map<BilliardBall, BilliardBall> target) {
+		}
+	}
+
+	private static final int BALLS = 22;
+	private static final int EVENTS_PER_BALL = 4;
+
+	/**
+	 * Simulates all shots with one simulation that uses the given queue
+	 * 
+	 * @return the number of shots that could not be simulated
+	 */
+	private static int simulate(GameState state, List<CueInteraction> shots,
+			EventQueue queue) {
+		Simulation sim = new InTimeSimulation(state.getBalls(), state
+				.getTable());
+		sim.setEventQueue(queue);
+		int failures = 0;
+		for (CueInteraction shot : shots) {
+			try {
+				sim.init(Collections.singleton(shot));
+				sim.finish();
+			} catch (RuntimeException e) {
+				failures++;
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Runs the hold model on the given queue
+	 */
+	private static void hold(EventQueue queue, int operations, long seed) {
+		Random r = new Random(seed);
+		HoldEvent[][] scheduled = new HoldEvent[BALLS][EVENTS_PER_BALL];
+		queue.clear();
+		for (int b = 0; b < BALLS; b++) {
+			for (int i = 0; i < EVENTS_PER_BALL; i++) {
+				scheduled[b][i] = new HoldEvent(r.nextFloat(), b);
+				queue.insert(scheduled[b][i]);
+			}
+		}
+		for (int op = 0; op < operations; op++) {
+			HoldEvent e = (HoldEvent) queue.minElement();
+			HoldEvent[] events = scheduled[e.ball];
+			for (int i = 0; i < EVENTS_PER_BALL; i++) {
+				queue.remove(events[i]);
+				events[i] = new HoldEvent(e.getTime() + r.nextFloat(), e.ball);
+				queue.insert(events[i]);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		LogManager.getLogManager().reset();
+
+		int shotCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		final GameState state = Workloads.breakState();
+		final List<CueInteraction> shots = Workloads.randomShots(state,
+				shotCount, 42);
+
+		QueueFactory[] factories = new QueueFactory[] { new QueueFactory() {
+			public EventQueue create() {
+				return new HeapEventQueue();
+			}
+
+			@Override
+			public String toString() {
+				return "heap";
+			}
+		}, new QueueFactory() {
+			public EventQueue create() {
+				return new TreeEventQueue();
+			}
+
+			@Override
+			public String toString() {
+				return "avl";
+			}
+		} };
+
+		for (final QueueFactory factory : factories) {
+			final int[] failures = new int[1];
+			Measurement m = new Measurement(factory + ": " + shotCount
+					+ " break shots", 3, runs).run(new Runnable() {
+				public void run() {
+					failures[0] = simulate(state, shots, factory.create());
+				}
+			});
+			System.out.println(m + (failures[0] > 0 ? ", " + failures[0]
+					+ " failed" : ""));
+		}
+
+		for (final QueueFactory factory : factories) {
+			final EventQueue queue = factory.create();
+			System.out.println(new Measurement(factory
+					+ ": hold model, 100000 operations", 5, runs)
+					.run(new Runnable() {
+						public void run() {
+							hold(queue, 100000, 42);
+						}
+					}));
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package de.danielmescheder.snooker.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.LogManager;
+
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.simulation.EventHandler;
+import de.danielmescheder.snooker.simulation.InTimeSimulation;
+import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.Event;
+
+/**
+ * The GridBenchmark measures how the resolution of the tile grid affects the
+ * simulation. Random shots are simulated at the break, with all 22 balls on
+ * the table, and in the endgame, with only the cue ball and the black, for a
+ * number of fixed grid sizes and for the size chosen by
+ * {@link Simulation#setAutoGridSize()}. Besides the time per shot, the number
+ * of handled events per second is reported; tile transitions are events as
+ * well, so finer grids handle more events for the same shot.
+ * 
+ * Usage: GridBenchmark [shots] [runs]
+ * 
+ */
+public class GridBenchmark {
+	private static final int[][] GRIDS = { { 1, 1 }, { 2, 3 }, { 3, 4 },
+			{ 4, 7 }, { 5, 9 }, { 6, 11 }, { 8, 15 }, { 12, 23 } };
+
+	private static class CountingHandler implements EventHandler {
+		private long count;
+
+		@Override
+		public void handle(Event e) {
+			count++;
+		}
+	}
+
+	/**
+	 * Simulates all shots with the given simulation
+	 */
+	private static void simulate(Simulation sim, List<CueInteraction> shots) {
+		for (CueInteraction shot : shots) {
+			try {
+				sim.init(Collections.singleton(shot));
+				sim.finish();
+			} catch (RuntimeException e) {
+				// failed shots are part of the workload
+			}
+		}
+	}
+
+	private static void measure(String workload, final Simulation sim,
+			final List<CueInteraction> shots, int runs) {
+		final CountingHandler counter = new CountingHandler();
+		sim.removeHandlers();
+		sim.addEventHandler(counter);
+		Measurement m = new Measurement(workload + ", " + sim.getHTiles()
+				+ "x" + sim.getVTiles() + ": " + shots.size() + " shots", 3,
+				runs).run(new Runnable() {
+			public void run() {
+				counter.count = 0;
+				simulate(sim, shots);
+			}
+		});
+		System.out.printf("%s, %d events, %.0f events/s%n", m, counter.count,
+				counter.count / (m.getMean() / 1E3));
+	}
+
+	public static void main(String[] args) {
+		LogManager.getLogManager().reset();
+
+		int shotCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		GameState[] states = { Workloads.breakState(),
+				Workloads.endgameState() };
+		String[] names = { "break", "endgame" };
+
+		for (int s = 0; s < states.length; s++) {
+			GameState state = states[s];
+			List<CueInteraction> shots = Workloads.randomShots(state,
+					shotCount, 42);
+			Simulation sim = new InTimeSimulation(state.getBalls(), state
+					.getTable());
+			for (int[] grid : GRIDS) {
+				sim.setGridSize(grid[0], grid[1]);
+				measure(names[s], sim, shots, runs);
+			}
+			sim.setAutoGridSize();
+			measure(names[s] + " (auto)", sim, shots, runs);
+		}
+	}
+}
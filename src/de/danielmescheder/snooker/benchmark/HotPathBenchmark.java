@@ -0,0 +1,310 @@
+package de.danielmescheder.snooker.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.LogManager;
+
+import de.danielmescheder.snooker.adt.def.Comparator;
+import de.danielmescheder.snooker.adt.def.Position;
+import de.danielmescheder.snooker.adt.impl.AVLTree;
+import de.danielmescheder.snooker.adt.impl.KeyElementPair;
+import de.danielmescheder.snooker.control.ai.PlanningSamplingAI;
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Cushion;
+import de.danielmescheder.snooker.domain.Ball.BallState;
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.gameflow.phases.AimingPhase;
+import de.danielmescheder.snooker.math.BairstowSolver;
+import de.danielmescheder.snooker.math.IntervalRootFinder;
+import de.danielmescheder.snooker.simulation.InTimeSimulation;
+import de.danielmescheder.snooker.simulation.PrescheduledSimulation;
+import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.physics.Physics;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
+
+/**
+ * The HotPathBenchmark times the code that dominates the running time of the
+ * simulation and the AI, from single physics computations up to a complete
+ * aiming decision of the {@link PlanningSamplingAI}. It is meant to be run
+ * before and after a change to find performance regressions, and on new
+ * hardware to see how fast the AI will play.
+ *
+ * Every benchmark prints the time per run and, where a run consists of many
+ * operations, the time per operation.
+ *
+ * Usage: HotPathBenchmark [runs] [benchmark names...]
+ *
+ */
+public class HotPathBenchmark {
+	private static final String[] NAMES = { "physics", "bairstow", "avl",
+			"finish", "preschedule", "ai" };
+
+	private final int runs;
+	private final GameState breakState, midFrameState, endgameState;
+
+	public HotPathBenchmark(int runs) {
+		this.runs = runs;
+		breakState = Workloads.breakState();
+		midFrameState = Workloads.midFrameState();
+		endgameState = Workloads.endgameState();
+	}
+
+	private void report(Measurement m, int operations) {
+		if (operations > 1) {
+			System.out.printf("%s, %.0f ns/op%n", m, m.getMean() * 1E6
+					/ operations);
+		} else {
+			System.out.println(m);
+		}
+	}
+
+	/**
+	 * Times the collision and crossing times of the balls a short while after
+	 * the break-off, when the cue ball and the first reds are moving
+	 */
+	public void physics() {
+		Simulation sim = new InTimeSimulation(breakState.getBalls(),
+				breakState.getTable());
+		sim.init(Collections.singleton(Workloads.breakOff(breakState)));
+		sim.advanceTime(.6f);
+
+		final List<BilliardBall> balls = new ArrayList<BilliardBall>();
+		final List<BilliardBall> moving = new ArrayList<BilliardBall>();
+		for (BilliardBall b : breakState.getBalls()) {
+			BilliardBall copy = (BilliardBall) b.clone();
+			sim.getBall(copy);
+			balls.add(copy);
+			if (copy.getState() != BallState.RESTING) {
+				moving.add(copy);
+			}
+		}
+		final List<Cushion> cushions = breakState.getTable().getCushions();
+		final PhysicsContext ctx = new PhysicsContext();
+		final float[] sink = new float[1];
+
+		report(new Measurement("Physics.collisionTime(ball, ball)", 10, runs)
+				.run(new Runnable() {
+					public void run() {
+						for (BilliardBall a : moving) {
+							for (BilliardBall b : balls) {
+								if (a != b) {
+									sink[0] += Physics.collisionTime(ctx, a, b);
+								}
+							}
+						}
+					}
+				}), moving.size() * (balls.size() - 1));
+		report(new Measurement("Physics.collisionTime(ball, cushion)", 10,
+				runs).run(new Runnable() {
+			public void run() {
+				for (BilliardBall a : moving) {
+					for (Cushion c : cushions) {
+						sink[0] += Physics.collisionTime(ctx, a, c);
+					}
+				}
+			}
+		}), moving.size() * cushions.size());
+		report(new Measurement("Physics.lineCrossingTime", 10, runs)
+				.run(new Runnable() {
+					public void run() {
+						for (BilliardBall a : moving) {
+							for (int direction = -1; direction <= 1; direction += 2) {
+								sink[0] += Physics.lineCrossingTime(ctx, a,
+										1f, false, direction);
+								sink[0] += Physics.lineCrossingTime(ctx, a,
+										2f, true, direction);
+							}
+						}
+					}
+				}), moving.size() * 4);
+	}
+
+	/**
+	 * Times the solvers on random quartic polynomials, the root finder on the
+	 * interval of one second
+	 */
+	public void bairstow() {
+		final double[][] polynomials = new double[1000][];
+		Random r = new Random(42);
+		for (int i = 0; i < polynomials.length; i++) {
+			polynomials[i] = new double[5];
+			for (int j = 0; j < 4; j++) {
+				polynomials[i][j] = r.nextDouble() * 2 - 1;
+			}
+			polynomials[i][4] = 1;
+		}
+		final BairstowSolver solver = new BairstowSolver(null);
+
+		report(new Measurement("BairstowSolver.solve, quartic", 10, runs)
+				.run(new Runnable() {
+					public void run() {
+						for (double[] p : polynomials) {
+							solver.setCoefficients(p.clone());
+							solver.solve();
+						}
+					}
+				}), polynomials.length);
+
+		final IntervalRootFinder finder = new IntervalRootFinder();
+		report(new Measurement("IntervalRootFinder.smallestRoot, quartic", 10,
+				runs).run(new Runnable() {
+			public void run() {
+				for (double[] p : polynomials) {
+					finder.smallestRoot(p, 1);
+				}
+			}
+		}), polynomials.length);
+	}
+
+	/**
+	 * Times insertions into the tree followed by removals in random order
+	 */
+	public void avl() {
+		final int size = 1000;
+		final Float[] keys = new Float[size];
+		final int[] order = new int[size];
+		Random r = new Random(42);
+		for (int i = 0; i < size; i++) {
+			keys[i] = r.nextFloat();
+			order[i] = i;
+		}
+		for (int i = size - 1; i > 0; i--) {
+			int j = r.nextInt(i + 1);
+			int t = order[i];
+			order[i] = order[j];
+			order[j] = t;
+		}
+		final Comparator<Float> comparator = new Comparator<Float>() {
+			public boolean isComparable(Float a) {
+				return true;
+			}
+
+			public boolean isEqual(Float a, Float b) {
+				return a.floatValue() == b.floatValue();
+			}
+
+			public boolean isGreater(Float a, Float b) {
+				return a > b;
+			}
+
+			public boolean isGreaterOrEqual(Float a, Float b) {
+				return a >= b;
+			}
+
+			public boolean isLess(Float a, Float b) {
+				return a < b;
+			}
+
+			public boolean isLessOrEqual(Float a, Float b) {
+				return a <= b;
+			}
+		};
+
+		report(new Measurement("AVLTree insert and remove", 10, runs)
+				.run(new Runnable() {
+					@SuppressWarnings( { "unchecked", "rawtypes" })
+					public void run() {
+						AVLTree<Float, Integer> tree = new AVLTree<Float, Integer>(
+								comparator);
+						Position<KeyElementPair<Float, Integer>>[] positions = new Position[size];
+						for (int i = 0; i < size; i++) {
+							positions[i] = tree.insertItem(keys[i], i);
+						}
+						for (int i : order) {
+							tree.remove(positions[i]);
+						}
+					}
+				}), 2 * size);
+	}
+
+	/**
+	 * Times complete shots at the break, in the middle of a frame and in the
+	 * endgame
+	 */
+	public void finish() {
+		finish("break-off", breakState, Collections.singletonList(Workloads
+				.breakOff(breakState)));
+		finish("mid-frame", midFrameState, Workloads.randomShots(
+				midFrameState, 20, 42));
+		finish("endgame", endgameState, Workloads.randomShots(endgameState,
+				20, 42));
+	}
+
+	private void finish(String name, GameState state,
+			final List<CueInteraction> shots) {
+		final Simulation sim = new InTimeSimulation(state.getBalls(), state
+				.getTable());
+		report(new Measurement("InTimeSimulation.finish, " + name, 3, runs)
+				.run(new Runnable() {
+					public void run() {
+						for (CueInteraction shot : shots) {
+							sim.init(Collections.singleton(shot));
+							sim.finish();
+						}
+					}
+				}), shots.size());
+	}
+
+	/**
+	 * Times the initialization of a pre-scheduled simulation of the break-off,
+	 * which computes all events of the shot
+	 */
+	public void preschedule() {
+		final PrescheduledSimulation sim = new PrescheduledSimulation(
+				breakState.getBalls(), breakState.getTable());
+		final CueInteraction shot = Workloads.breakOff(breakState);
+		report(new Measurement("PrescheduledSimulation.init, break-off", 3,
+				runs).run(new Runnable() {
+			public void run() {
+				sim.init(Collections.singleton(shot));
+			}
+		}), 1);
+	}
+
+	/**
+	 * Times a complete aiming decision of the {@link PlanningSamplingAI} in the
+	 * middle of a frame, without presentation
+	 */
+	public void ai() {
+		report(new Measurement("PlanningSamplingAI aiming, mid-frame", 1, runs)
+				.run(new Runnable() {
+					public void run() {
+						GameState state = (GameState) midFrameState.clone();
+						new PlanningSamplingAI(null, state)
+								.handlePhase(new AimingPhase(state));
+					}
+				}), 1);
+	}
+
+	public static void main(String[] args) {
+		LogManager.getLogManager().reset();
+
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		List<String> names = args.length > 1 ? Arrays.asList(args).subList(1,
+				args.length) : Arrays.asList(NAMES);
+
+		HotPathBenchmark benchmark = new HotPathBenchmark(runs);
+		for (String name : names) {
+			if (name.equals("physics")) {
+				benchmark.physics();
+			} else if (name.equals("bairstow")) {
+				benchmark.bairstow();
+			} else if (name.equals("avl")) {
+				benchmark.avl();
+			} else if (name.equals("finish")) {
+				benchmark.finish();
+			} else if (name.equals("preschedule")) {
+				benchmark.preschedule();
+			} else if (name.equals("ai")) {
+				benchmark.ai();
+			} else {
+				System.err.println("Unknown benchmark " + name + ", expected one of "
+						+ Arrays.toString(NAMES));
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package de.danielmescheder.snooker.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.LogManager;
+
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.simulation.InTimeSimulation;
+import de.danielmescheder.snooker.simulation.PrescheduledSimulation;
+import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+
+/**
+ * The InvalidationBenchmark compares eager and lazy invalidation of outdated
+ * events (see {@link Simulation#setLazyInvalidation(boolean)}) by simulating
+ * random break shots with both simulation types.
+ *
+ * Usage: InvalidationBenchmark [shots] [runs]
+ *
+ */
+public class InvalidationBenchmark {
+
+	/**
+	 * Simulates all shots with the given simulation
+	 *
+	 * @return the number of shots that could not be simulated
+	 */
+	private static int simulate(Simulation sim, List<CueInteraction> shots) {
+		int failures = 0;
+		for (CueInteraction shot : shots) {
+			try {
+				sim.init(Collections.singleton(shot));
+				sim.finish();
+			} catch (RuntimeException e) {
+				failures++;
+			}
+		}
+		return failures;
+	}
+
+	public static void main(String[] args) {
+		LogManager.getLogManager().reset();
+
+		int shotCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		GameState state = Workloads.breakState();
+		final List<CueInteraction> shots = Workloads.randomShots(state,
+				shotCount, 42);
+
+		Simulation[] sims = new Simulation[] {
+				new InTimeSimulation(state.getBalls(), state.getTable()),
+				new PrescheduledSimulation(state.getBalls(), state.getTable()) };
+
+		for (final Simulation sim : sims) {
+			for (boolean lazy : new boolean[] { false, true }) {
+				sim.setLazyInvalidation(lazy);
+				final int[] failures = new int[1];
+				Measurement m = new Measurement(sim.getClass().getSimpleName()
+						+ ", " + (lazy ? "lazy" : "eager") + ": " + shotCount
+						+ " break shots", 3, runs).run(new Runnable() {
+					public void run() {
+						failures[0] = simulate(sim, shots);
+					}
+				});
+				System.out.println(m + (failures[0] > 0 ? ", " + failures[0]
+						+ " failed" : ""));
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package de.danielmescheder.snooker.benchmark;
+
+/**
+ * A Measurement repeatedly times a piece of code after a number of warm-up
+ * runs, so that the just-in-time compiler has settled. It reports the mean,
+ * the minimum and the standard deviation of the time per run.
+ * 
+ */
+public class Measurement {
+	private final String name;
+	private final int warmups;
+	private final int runs;
+	private long[] times;
+
+	/**
+	 * Constructs a new measurement
+	 * 
+	 * @param name
+	 *            the name that is printed in the report
+	 * @param warmups
+	 *            the number of runs that are not measured
+	 * @param runs
+	 *            the number of measured runs
+	 */
+	public Measurement(String name, int warmups, int runs) {
+		this.name = name;
+		this.warmups = warmups;
+		this.runs = runs;
+	}
+
+	/**
+	 * Times the given code
+	 * 
+	 * @param body
+	 *            the code to be measured
+	 * @return this measurement
+	 */
+	public Measurement run(Runnable body) {
+		for (int i = 0; i < warmups; i++) {
+			body.run();
+		}
+		times = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+			body.run();
+			times[i] = System.nanoTime() - start;
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the mean time per run
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public double getMean() {
+		double sum = 0;
+		for (long t : times) {
+			sum += t;
+		}
+		return sum / times.length / 1E6;
+	}
+
+	/**
+	 * Gets the shortest time of all runs
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public double getMin() {
+		long min = Long.MAX_VALUE;
+		for (long t : times) {
+			min = Math.min(min, t);
+		}
+		return min / 1E6;
+	}
+
+	/**
+	 * Gets the standard deviation of the time per run
+	 * 
+	 * @return the deviation in milliseconds
+	 */
+	public double getDeviation() {
+		double mean = getMean();
+		double sum = 0;
+		for (long t : times) {
+			sum += (t / 1E6 - mean) * (t / 1E6 - mean);
+		}
+		return Math.sqrt(sum / times.length);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-40s %10.3f ms/run (min %.3f, sd %.3f, %d runs)",
+				name, getMean(), getMin(), getDeviation(), runs);
+	}
+}
@@ -0,0 +1,151 @@
+package de.danielmescheder.snooker.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.jme.math.FastMath;
+import com.jme.math.Vector3f;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Cue;
+import de.danielmescheder.snooker.domain.Player;
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.gameflow.phases.FrameInitPhase;
+import de.danielmescheder.snooker.gameflow.phases.GameInitPhase;
+import de.danielmescheder.snooker.logic.GameLogicHandler;
+import de.danielmescheder.snooker.simulation.InTimeSimulation;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+
+/**
+ * The Workloads class creates the reproducible game situations that the
+ * benchmarks are run on.
+ * 
+ */
+public class Workloads {
+	private Workloads() {
+	}
+
+	/**
+	 * Creates the state at the beginning of a frame, with two players and the
+	 * default thresholds and noise
+	 * 
+	 * @return the state
+	 */
+	public static GameState breakState() {
+		GameInitPhase.initThresholds();
+		GameInitPhase.initNoise();
+
+		GameState state = new GameState();
+		state.setTable(GameInitPhase.createTable());
+		List<Player> players = new ArrayList<Player>();
+		for (String name : new String[] { "A", "B" }) {
+			Player p = new Player();
+			p.setName(name);
+			p.setCue(new Cue(.550f));
+			players.add(p);
+		}
+		state.setPlayers(players);
+		state.setCurrentPlayer(players.get(0));
+		new FrameInitPhase(state).start();
+		state.setPossibleOnBalls(GameState.redBalls);
+		return state;
+	}
+
+	/**
+	 * Creates the state after the break-off shot of
+	 * {@link #breakOff(GameState)} has been played, with the balls spread over
+	 * the table
+	 * 
+	 * @return the state
+	 */
+	public static GameState midFrameState() {
+		GameState state = breakState();
+		InTimeSimulation sim = new InTimeSimulation(state.getBalls(), state
+				.getTable());
+		sim.init(Collections.singleton(breakOff(state)));
+		GameLogicHandler logicHandler = new GameLogicHandler(state);
+		logicHandler.observe(sim);
+		sim.finish();
+
+		for (BilliardBall b : state.getBalls()) {
+			sim.getBall(b);
+			b.setTime(0);
+		}
+		logicHandler.updateState(state);
+		return state;
+	}
+
+	/**
+	 * Creates the state at the end of a frame, in which only the cue ball and
+	 * the black are left on the table
+	 * 
+	 * @return the state
+	 */
+	public static GameState endgameState() {
+		GameState state = breakState();
+		Set<BilliardBall> balls = new HashSet<BilliardBall>();
+		for (BilliardBall b : state.getBalls()) {
+			if (b.getType() == BilliardBall.Type.CUE
+					|| b.getType() == BilliardBall.Type.BLACK) {
+				balls.add(b);
+			}
+		}
+		state.setBalls(balls);
+		state.setPossibleOnBalls(EnumSet.of(BilliardBall.Type.BLACK));
+		state.setIsEndgame(true);
+		return state;
+	}
+
+	/**
+	 * Creates a firm shot of the cue ball straight at the red that is closest
+	 * to it, that is the apex of the pack at the beginning of a frame
+	 * 
+	 * @param state
+	 *            the state
+	 * @return the shot
+	 */
+	public static CueInteraction breakOff(GameState state) {
+		Vector3f cue = state.getCueBall().getPosition();
+		BilliardBall target = null;
+		for (BilliardBall b : state.getBalls()) {
+			if (b.getType() == BilliardBall.Type.RED
+					&& (target == null || b.getPosition().distance(cue) < target
+							.getPosition().distance(cue))) {
+				target = b;
+			}
+		}
+		Vector3f direction = target.getPosition().subtract(cue);
+		// an angle of 0 plays the ball along the y-axis
+		return new CueInteraction(0, state.getCurrentPlayer().getCue(), state
+				.getCueBall(), FastMath.atan2(direction.y, direction.x)
+				- FastMath.HALF_PI, 0, 0, 0, 3f);
+	}
+
+	/**
+	 * Creates random shots of the cue ball in the given state
+	 * 
+	 * @param state
+	 *            the state
+	 * @param count
+	 *            the number of shots
+	 * @param seed
+	 *            the seed of the random generator
+	 * @return the shots
+	 */
+	public static List<CueInteraction> randomShots(GameState state, int count,
+			long seed) {
+		Random r = new Random(seed);
+		List<CueInteraction> shots = new ArrayList<CueInteraction>(count);
+		for (int i = 0; i < count; i++) {
+			shots.add(new CueInteraction(0, state.getCurrentPlayer().getCue(),
+					state.getCueBall(), r.nextFloat() * 2 * FastMath.PI, 0, 0,
+					0, r.nextFloat() * 5f + .05f));
+		}
+		return shots;
+	}
+}
@@ -122,7 +122,8 @@ public class AimLine {
 		sim = new InTimeSimulation(new HashSet<BilliardBall>(state.getBalls()),
 				state.getTable());
 		aimingHandler = new AimLineHandler();
-		sim.addEventHandler(aimingHandler);
+		sim.addEventHandler(aimingHandler, BallCollision.class,
+				PocketingEvent.class);
 	}
 
 	/**
@@ -0,0 +1,27 @@
+package de.danielmescheder.snooker.control;
+
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.gameflow.phases.SimulationPhase;
+
+/**
+ * A PonderingUnit is a {@link ControllingUnit} that can think about its next
+ * shot while the previous shot is still being played back. As soon as the
+ * course of a shot is known, the {@link SimulationPhase} predicts the state
+ * after the shot and hands it to the unit of the player who will be next to
+ * play.
+ *
+ */
+public interface PonderingUnit extends ControllingUnit {
+	/**
+	 * Starts to think about the next shot in the background. The method is
+	 * called from a prescheduling thread once the course of the shot is known
+	 * and has to return quickly. The call is over before the phase of the
+	 * shot finishes, so it never overlaps with a turn of the unit. The unit
+	 * has to check whether the prediction came true once its turn begins.
+	 *
+	 * @param predicted
+	 *            the predicted state at the beginning of the next turn; it
+	 *            belongs to the unit
+	 */
+	public void ponder(GameState predicted);
+}
@@ -25,6 +25,7 @@ import de.danielmescheder.snooker.gameflow.phases.AimingPhase;
 import de.danielmescheder.snooker.gameflow.phases.FrameInitPhase;
 import de.danielmescheder.snooker.gameflow.phases.PositioningPhase;
 import de.danielmescheder.snooker.gameflow.phases.SimulationPhase;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.presentation.SnookerTable3D;
 import de.danielmescheder.snooker.presentation.TablePresentation;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
@@ -43,6 +44,7 @@ public class NonPlanningSamplingAI implements ControllingUnit
 
 	private TablePresentation presentation;
 	private GameState state;
+	private RandomStream random = new RandomStream();
 	private float accuracy = 0.0005f;
 	private int visualizationDepth = 1;
 	private CueInteraction maxEvent, cueStrike;
@@ -54,6 +56,18 @@ public class NonPlanningSamplingAI implements ControllingUnit
 		this.state = state;
 	}
 
+	/**
+	 * Seeds the stream from which all random numbers of this AI are drawn, so
+	 * that its decisions can be reproduced
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public void setSeed(long seed)
+	{
+		random = new RandomStream(seed);
+	}
+
 	public void handlePhase(GamePhase phase)
 	{
 		HashMap<String, Object> props = new HashMap<String, Object>();
@@ -111,10 +125,10 @@ public class NonPlanningSamplingAI implements ControllingUnit
 	private void handleAiming(AimingPhase phase)
 	{
 		toggleMarkings();
-		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(4);
+		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(4, random.split());
 		DirectPocketingEvaluator pocketingEvaluator = new DirectPocketingEvaluator();
 		DirectCueGenerator ciGenerator = new DirectCueGenerator(pocketingGenerator, pocketingEvaluator);
-		CueInteractionToPocketEvaluator finalEvaluator = new CueInteractionToPocketEvaluator(20);
+		CueInteractionToPocketEvaluator finalEvaluator = new CueInteractionToPocketEvaluator(20, random.split());
 
 		finalEvaluator.setCriticalScore(.1f);
 		pocketingEvaluator.setCriticalScore(.5f);
@@ -164,7 +178,7 @@ public class NonPlanningSamplingAI implements ControllingUnit
 	private void handleAimingFallback(AimingPhase phase)
 	{
 
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
 		simpleScoreEvaluator.setCriticalScore(0.2);
 		
@@ -1,7 +1,11 @@
 package de.danielmescheder.snooker.control.ai;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -12,27 +16,34 @@ import com.jme.math.FastMath;
 import com.jme.math.Vector3f;
 
 import de.danielmescheder.snooker.control.AimLine;
-import de.danielmescheder.snooker.control.ControllingUnit;
+import de.danielmescheder.snooker.control.PonderingUnit;
+import de.danielmescheder.snooker.control.ai.evaluator.CandidatePipeline;
 import de.danielmescheder.snooker.control.ai.evaluator.CueInteractionToPocketEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.DepthSamplingEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.DirectPocketingEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.SafetyShotEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.SamplingRandomEvaluator;
+import de.danielmescheder.snooker.control.ai.evaluator.SequentialTest;
+import de.danielmescheder.snooker.control.ai.evaluator.ShotCache;
 import de.danielmescheder.snooker.control.ai.evaluator.SimpleSamplingEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.SimpleScoreEvaluator;
 import de.danielmescheder.snooker.control.ai.generator.DirectCueGenerator;
 import de.danielmescheder.snooker.control.ai.generator.DirectPocketGenerator;
 import de.danielmescheder.snooker.control.ai.generator.RandomCueInteractionGenerator;
 import de.danielmescheder.snooker.control.ui.controller.SimulationControl;
+import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.gameflow.GamePhase;
 import de.danielmescheder.snooker.gameflow.GameState;
 import de.danielmescheder.snooker.gameflow.phases.AimingPhase;
 import de.danielmescheder.snooker.gameflow.phases.FrameInitPhase;
 import de.danielmescheder.snooker.gameflow.phases.PositioningPhase;
 import de.danielmescheder.snooker.gameflow.phases.SimulationPhase;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.presentation.SnookerTable3D;
 import de.danielmescheder.snooker.presentation.TablePresentation;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.NoiseSequence;
+import de.danielmescheder.snooker.simulation.event.PocketingEvent;
 import de.danielmescheder.snooker.simulation.event.SingleBallEvent;
 
 /**
@@ -41,41 +52,117 @@ import de.danielmescheder.snooker.simulation.event.SingleBallEvent;
  * explanation of the AI, please refer to the paper.
  * 
  */
-public class PlanningSamplingAI implements ControllingUnit
+public class PlanningSamplingAI implements PonderingUnit
 {
 	protected static final Logger logger = Logger.getLogger(PlanningSamplingAI.class.getName());
+	// how far a ball may be off its predicted position, in meters
+	private static final float PREDICTION_TOLERANCE = 1e-4f;
 
 	protected TablePresentation presentation;
 	protected GameState state;
+	protected RandomStream random = new RandomStream();
+	protected ShotCache shotCache = new ShotCache(8192);
+	protected long timeBudget = 0;
+	private volatile Ponder ponder;
+	protected int maxParallelism = Runtime.getRuntime().availableProcessors();
 	protected float accuracy = 0.0005f;
 	protected int visualizationDepth = 1;
 	protected CueInteraction maxEvent, cueStrike;
 	protected boolean showLine = true, showMarkings = false;
 
+	/**
+	 * Constructs a new PlanningSamplingAI
+	 * 
+	 * @param presentation
+	 *            the presentation on which the search is shown; null to run
+	 *            the AI headless, in which case simulation phases are left to
+	 *            the caller
+	 * @param state
+	 *            the state of the game
+	 */
 	public PlanningSamplingAI(TablePresentation presentation, GameState state)
 	{
 		this.presentation = presentation;
 		this.state = state;
 	}
 
+	/**
+	 * Seeds the stream from which all random numbers of this AI are drawn, so
+	 * that its decisions can be reproduced
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public void setSeed(long seed)
+	{
+		random = new RandomStream(seed);
+	}
+
+	/**
+	 * Sets the time the AI may take to choose a shot. With a budget, the
+	 * candidates are first evaluated quickly; while time remains, the best of
+	 * them are evaluated again with more samples and a deeper search of the
+	 * next shot. A shot is ready at any time, so the AI decides in time no
+	 * matter how the search goes; only the evaluation that runs when the
+	 * budget is used up is finished.
+	 * 
+	 * @param millis
+	 *            the time per shot in milliseconds; 0 to search without a
+	 *            time limit
+	 */
+	public void setTimeBudget(long millis)
+	{
+		if (millis < 0)
+		{
+			throw new IllegalArgumentException("Time budget must not be negative");
+		}
+		timeBudget = millis;
+	}
+
+	public long getTimeBudget()
+	{
+		return timeBudget;
+	}
+
+	/**
+	 * Sets the number of candidate shots that are evaluated at the same time.
+	 * Since the candidates share the shot cache, the chosen shot may in rare
+	 * cases depend on it, as described at {@link CandidatePipeline}.
+	 * 
+	 * @param maxParallelism
+	 *            the maximum number of candidates; 1 to evaluate one after the
+	 *            other
+	 */
+	public void setMaxParallelism(int maxParallelism)
+	{
+		if (maxParallelism < 1)
+		{
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		this.maxParallelism = maxParallelism;
+	}
+
 	public void handlePhase(GamePhase phase)
 	{
-		HashMap<String, Object> props = new HashMap<String, Object>();
+		if (presentation != null)
+		{
+			HashMap<String, Object> props = new HashMap<String, Object>();
 
-		props.put(ThirdPersonMouseLook.PROP_MAXROLLOUT, "3");
-		props.put(ThirdPersonMouseLook.PROP_MINROLLOUT, "1");
-		props.put(ThirdPersonMouseLook.PROP_MINASCENT, "" + 45 * FastMath.DEG_TO_RAD);
-		props.put(ThirdPersonMouseLook.PROP_MAXASCENT, "" + 45 * FastMath.DEG_TO_RAD);
-		props.put(ChaseCamera.PROP_INITIALSPHERECOORDS, new Vector3f(3, 0, 30 * FastMath.DEG_TO_RAD));
-		props.put(ChaseCamera.PROP_WORLDUPVECTOR, new Vector3f(0, 0, 1));
+			props.put(ThirdPersonMouseLook.PROP_MAXROLLOUT, "3");
+			props.put(ThirdPersonMouseLook.PROP_MINROLLOUT, "1");
+			props.put(ThirdPersonMouseLook.PROP_MINASCENT, "" + 45 * FastMath.DEG_TO_RAD);
+			props.put(ThirdPersonMouseLook.PROP_MAXASCENT, "" + 45 * FastMath.DEG_TO_RAD);
+			props.put(ChaseCamera.PROP_INITIALSPHERECOORDS, new Vector3f(3, 0, 30 * FastMath.DEG_TO_RAD));
+			props.put(ChaseCamera.PROP_WORLDUPVECTOR, new Vector3f(0, 0, 1));
 
-		props.put(ChaseCamera.PROP_TARGETOFFSET, new Vector3f(0, 0, 0));
+			props.put(ChaseCamera.PROP_TARGETOFFSET, new Vector3f(0, 0, 0));
 
-		ChaseCamera chaser = new ChaseCamera(presentation.getCamera(), presentation.getTableNode(), props);
-		chaser.setMinDistance(state.getTable().getLength());
-		chaser.setMaxDistance(state.getTable().getLength());
+			ChaseCamera chaser = new ChaseCamera(presentation.getCamera(), presentation.getTableNode(), props);
+			chaser.setMinDistance(state.getTable().getLength());
+			chaser.setMaxDistance(state.getTable().getLength());
 
-		presentation.setCameraControl(chaser);
+			presentation.setCameraControl(chaser);
+		}
 
 		if (phase instanceof FrameInitPhase)
 		{
@@ -97,12 +184,18 @@ public class PlanningSamplingAI implements ControllingUnit
 
 	protected void handleInit(FrameInitPhase phase)
 	{
-		presentation.initBalls();
+		if (presentation != null)
+		{
+			presentation.initBalls();
+		}
 	}
 
 	protected void handleSimulation(SimulationPhase phase)
 	{
-		presentation.setGameControl(new SimulationControl(presentation, phase, state));
+		if (presentation != null)
+		{
+			presentation.setGameControl(new SimulationControl(presentation, phase, state));
+		}
 	}
 
 	protected void handlePositioning(PositioningPhase phase)
@@ -114,6 +207,11 @@ public class PlanningSamplingAI implements ControllingUnit
 
 	protected void handleAiming(AimingPhase phase)
 	{
+		if (timeBudget > 0)
+		{
+			handleAimingAnytime(phase);
+			return;
+		}
 
 		toggleMarkings();
 
@@ -122,45 +220,16 @@ public class PlanningSamplingAI implements ControllingUnit
 			handleAimingFallbackOneBall(phase);
 		}
 
-		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(2);
-		DirectPocketingEvaluator pocketingEvaluator = new DirectPocketingEvaluator();
-		DirectCueGenerator ciGenerator = new DirectCueGenerator(pocketingGenerator, pocketingEvaluator);
-
-		DirectPocketGenerator secondLevelPocketGenerator = new DirectPocketGenerator(1);
-		DirectCueGenerator secondLevelCueGenerator = new DirectCueGenerator(secondLevelPocketGenerator, pocketingEvaluator);
-		CueInteractionToPocketEvaluator secondLevelEvaluator = new CueInteractionToPocketEvaluator(3);
-		DepthSamplingEvaluator finalEvaluator = new DepthSamplingEvaluator(10, secondLevelCueGenerator, secondLevelEvaluator, 25);
-
-		finalEvaluator.setCriticalScore(.2f);
-		secondLevelEvaluator.setCriticalScore(0f);
-		pocketingEvaluator.setCriticalScore(.5f);
-
 		long before = System.currentTimeMillis();
-		int count = 0;
-		cueStrike = null;
-		maxEvent = null;
-		double maxScore = -1;
-
-		do
+		CandidatePipeline pipeline = searchAimingShot(new CandidatePipeline.Listener()
 		{
-			count++;
-			cueStrike = ciGenerator.generate(state);
-			if (cueStrike == null)
-			{
-				handleAimingFallbackPhaseTwo(phase);
-				return;
-			}
-			if (finalEvaluator.evaluate(cueStrike, ciGenerator.getTarget(), state))
+			public void evaluated(CueInteraction shot, PocketingEvent target, boolean passed, double score)
 			{
-				if (finalEvaluator.getScore() > maxScore)
-				{
-					maxScore = finalEvaluator.getScore();
-					maxEvent = cueStrike;
-				}
+				enableAimLine(100, shot);
+				logger.log(Level.FINE, "Trying event in order to pocket " + target, shot);
 			}
-			enableAimLine(100, cueStrike);
-			logger.log(Level.FINE, "Trying event in order to pocket " + ciGenerator.getTarget(), cueStrike);
-		} while (maxScore < 1 && (count < 60));
+		});
+		int count = pipeline.getCount();
 		if (maxEvent == null)
 		{
 			handleAimingFallbackPhaseTwo(phase);
@@ -169,6 +238,7 @@ public class PlanningSamplingAI implements ControllingUnit
 
 		float time = (System.currentTimeMillis() - before) / 1000f;
 		logger.log(Level.FINE, "Generated " + count + " shots in " + time + "s : " + count / time + " shots/s");
+		logger.log(Level.FINE, shotCache.toString());
 
 		phase.setAngDest(maxEvent.getAngDest());
 		phase.setAngElev(maxEvent.getAngElev());
@@ -181,14 +251,514 @@ public class PlanningSamplingAI implements ControllingUnit
 		phase.finish();
 	}
 
+	/**
+	 * Creates the search for the shot of a turn. The search has no listener.
+	 * 
+	 * @return the search
+	 */
+	protected CandidatePipeline createAimingPipeline()
+	{
+		return createAimingPipeline(2, 1);
+	}
+
+	/**
+	 * Creates the search for the shot of a turn that tries the given numbers
+	 * of aiming points per pocket
+	 * 
+	 * @param variations
+	 *            the aiming points per pocket of the candidates
+	 * @param secondLevelVariations
+	 *            the aiming points per pocket of the shots after a candidate
+	 * @return the search
+	 */
+	protected CandidatePipeline createAimingPipeline(int variations, final int secondLevelVariations)
+	{
+		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(variations, random.split());
+		DirectPocketingEvaluator pocketingEvaluator = new DirectPocketingEvaluator();
+		DirectCueGenerator ciGenerator = new DirectCueGenerator(pocketingGenerator, pocketingEvaluator);
+		pocketingEvaluator.setCriticalScore(.5f);
+
+		// all candidates of this turn are sampled with the same noise
+		final NoiseSequence noise = NoiseSequence.quasiRandom(10, random.split());
+		final NoiseSequence secondLevelNoise = NoiseSequence.quasiRandom(3, random.split());
+		CandidatePipeline pipeline = new CandidatePipeline(ciGenerator, new CandidatePipeline.EvaluatorFactory()
+		{
+			public EventEvaluator<CueInteraction, PocketingEvent> create(RandomStream random)
+			{
+				return createAimingEvaluator(random, secondLevelVariations, 10, 25, noise, secondLevelNoise, Long.MAX_VALUE);
+			}
+		}, random.split());
+		pipeline.setMaxParallelism(maxParallelism);
+		pipeline.setMaxCandidates(60);
+		pipeline.setTargetScore(1);
+		return pipeline;
+	}
+
+	/**
+	 * Searches for the shot of this turn and stores it in maxEvent. If the
+	 * search was already started while the previous shot was played back and
+	 * the predicted position came true, its result is taken instead.
+	 * 
+	 * @param listener
+	 *            the listener that is told about the candidates of a new
+	 *            search
+	 * @return the search that found the shot
+	 */
+	protected CandidatePipeline searchAimingShot(CandidatePipeline.Listener listener)
+	{
+		Ponder pondered = takePonder();
+		if (pondered != null)
+		{
+			logger.log(Level.FINE, "Taking the shot found while pondering");
+			maxEvent = pondered.shot;
+			return pondered.pipeline;
+		}
+		CandidatePipeline pipeline = createAimingPipeline();
+		pipeline.setListener(listener);
+		maxEvent = pipeline.run(state);
+		return pipeline;
+	}
+
+	/**
+	 * Starts a search for the shot in the predicted state on a pondering
+	 * thread. The thread belongs to this AI: a search that is no longer
+	 * needed is cancelled and joined before the next search starts, either
+	 * by the next pondering thread or by the turn that discards it.
+	 */
+	public void ponder(GameState predicted)
+	{
+		Ponder previous = ponder;
+		if (previous != null)
+		{
+			previous.pipeline.cancel();
+		}
+		ponder = null;
+		// the anytime search is bound to the clock of its own turn
+		if (timeBudget > 0 || predicted.getBalls().size() <= 1)
+		{
+			joinPonder(previous);
+			return;
+		}
+		Ponder next = new Ponder(predicted, createAimingPipeline(), previous);
+		ponder = next;
+		next.start();
+	}
+
+	/**
+	 * Takes the search that was started while the previous shot was played
+	 * back
+	 * 
+	 * @return the finished search; null if there was none or its prediction
+	 *         did not come true
+	 */
+	private Ponder takePonder()
+	{
+		Ponder pondered = ponder;
+		ponder = null;
+		if (pondered == null)
+		{
+			return null;
+		}
+		if (!cameTrue(pondered.predicted))
+		{
+			logger.log(Level.FINE, "Prediction did not come true");
+			pondered.pipeline.cancel();
+			joinPonder(pondered);
+			return null;
+		}
+		if (!joinPonder(pondered))
+		{
+			return null;
+		}
+		return pondered.finished ? pondered : null;
+	}
+
+	/**
+	 * Checks whether a predicted state equals the current state
+	 */
+	private boolean cameTrue(GameState predicted)
+	{
+		if (predicted.getBalls().size() != state.getBalls().size()
+				|| predicted.isEndgame() != state.isEndgame()
+				|| !predicted.getPossibleOnBallTypes().equals(state.getPossibleOnBallTypes())
+				|| predicted.getPlayers().indexOf(predicted.getCurrentPlayer()) != state.getPlayers().indexOf(state.getCurrentPlayer()))
+		{
+			return false;
+		}
+		Map<BilliardBall, BilliardBall> balls = new HashMap<BilliardBall, BilliardBall>();
+		for (BilliardBall b : state.getBalls())
+		{
+			balls.put(b, b);
+		}
+		for (BilliardBall b : predicted.getBalls())
+		{
+			BilliardBall actual = balls.get(b);
+			if (actual == null || actual.getPosition().distance(b.getPosition()) > PREDICTION_TOLERANCE)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A search for the shot of the next turn that runs while the previous shot
+	 * is played back
+	 */
+	private static class Ponder extends Thread
+	{
+		private final GameState predicted;
+		private final CandidatePipeline pipeline;
+		private Ponder previous;
+		private CueInteraction shot;
+		private boolean finished;
+
+		public Ponder(GameState predicted, CandidatePipeline pipeline, Ponder previous)
+		{
+			super("Pondering");
+			setDaemon(true);
+			this.predicted = predicted;
+			this.pipeline = pipeline;
+			this.previous = previous;
+		}
+
+		@Override
+		public void run()
+		{
+			// the evaluations of a cancelled search must not compete with
+			// this one
+			if (previous != null && !joinPonder(previous))
+			{
+				return;
+			}
+			previous = null;
+			shot = pipeline.run(predicted);
+			finished = true;
+		}
+	}
+
+	/**
+	 * Waits for a search of the pondering thread to end
+	 * 
+	 * @return false if the thread was interrupted while waiting
+	 */
+	private static boolean joinPonder(Ponder ponder)
+	{
+		if (ponder == null)
+		{
+			return true;
+		}
+		try
+		{
+			ponder.join();
+			return true;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * A candidate shot of the anytime search
+	 */
+	private static class Candidate
+	{
+		private final CueInteraction shot;
+		private final PocketingEvent target;
+		private double score;
+
+		public Candidate(CueInteraction shot, PocketingEvent target)
+		{
+			this.shot = shot;
+			this.target = target;
+		}
+	}
+
+	private static final Comparator<Candidate> byScore = new Comparator<Candidate>()
+	{
+		public int compare(Candidate c1, Candidate c2)
+		{
+			return Double.compare(c2.score, c1.score);
+		}
+	};
+
+	// scores are between -1 and 1, so shots that failed the evaluation are
+	// ranked below all shots that passed it
+	private static final double FAILED = -3;
+
+	private static final int MAX_ANYTIME_SAMPLES = 80;
+
+	/**
+	 * Chooses a shot within the time budget. In the first round, candidates
+	 * are generated and evaluated with few samples and a shallow search of the
+	 * next shot. Every further round evaluates the better half of the
+	 * candidates again with twice the samples and next level shots. The best
+	 * candidate of the last complete round is played. If no candidate passes,
+	 * a safety shot is searched for in the remaining time.
+	 * 
+	 * @param phase
+	 *            the aiming phase
+	 */
+	protected void handleAimingAnytime(AimingPhase phase)
+	{
+		long before = System.currentTimeMillis();
+		long deadline = before + timeBudget;
+		toggleMarkings();
+
+		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(2, random.split());
+		DirectPocketingEvaluator pocketingEvaluator = new DirectPocketingEvaluator();
+		DirectCueGenerator ciGenerator = new DirectCueGenerator(pocketingGenerator, pocketingEvaluator);
+		pocketingEvaluator.setCriticalScore(.5f);
+
+		int samples = 5;
+		int nextLevelShots = 10;
+		DepthSamplingEvaluator evaluator = createAnytimeEvaluator(samples, nextLevelShots, deadline);
+		List<Candidate> candidates = new ArrayList<Candidate>();
+		Candidate best = null;
+		do
+		{
+			CueInteraction shot = ciGenerator.generate(state);
+			if (shot == null)
+			{
+				break;
+			}
+			Candidate candidate = new Candidate(shot, ciGenerator.getTarget());
+			candidate.score = anytimeScore(evaluator, candidate);
+			candidates.add(candidate);
+			if (best == null || candidate.score > best.score)
+			{
+				best = candidate;
+			}
+			enableAimLine(100, shot);
+		} while (best.score < 1 && candidates.size() < 60 && System.currentTimeMillis() < deadline);
+		int rounds = 1;
+
+		while (best != null && passed(best) && samples < MAX_ANYTIME_SAMPLES && System.currentTimeMillis() < deadline)
+		{
+			Collections.sort(candidates, byScore);
+			List<Candidate> better = new ArrayList<Candidate>(candidates.subList(0, Math.max(1, candidates.size() / 2)));
+			samples *= 2;
+			nextLevelShots *= 2;
+			evaluator = createAnytimeEvaluator(samples, nextLevelShots, deadline);
+
+			double[] scores = new double[better.size()];
+			int evaluated = 0;
+			while (evaluated < better.size() && System.currentTimeMillis() < deadline)
+			{
+				scores[evaluated] = anytimeScore(evaluator, better.get(evaluated));
+				evaluated++;
+			}
+			if (evaluated < better.size())
+			{
+				// an incomplete round is not comparable to the last one
+				break;
+			}
+			for (int i = 0; i < scores.length; i++)
+			{
+				better.get(i).score = scores[i];
+			}
+			candidates = better;
+			Collections.sort(candidates, byScore);
+			best = candidates.get(0);
+			rounds++;
+		}
+
+		CueInteraction shot = null;
+		PocketingEvent target = null;
+		if (best != null && passed(best))
+		{
+			shot = best.shot;
+			target = best.target;
+		}
+		else
+		{
+			shot = searchSafetyShot(deadline);
+		}
+		if (shot == null)
+		{
+			// nothing passed in time; take the best failed shot or any shot
+			if (best != null)
+			{
+				shot = best.shot;
+				target = best.target;
+			}
+			else
+			{
+				shot = new RandomCueInteractionGenerator(random.split()).generate(state);
+			}
+		}
+
+		float time = (System.currentTimeMillis() - before) / 1000f;
+		logger.log(Level.FINE, "Evaluated " + candidates.size() + " candidates in " + rounds + " rounds in " + time + "s");
+		logger.log(Level.FINE, shotCache.toString());
+
+		plannedShot(shot, target);
+
+		phase.setAngDest(shot.getAngDest());
+		phase.setAngElev(shot.getAngElev());
+		phase.setTransX(shot.getTransX());
+		phase.setTransY(shot.getTransY());
+		phase.setVelocity(shot.getVelocity());
+
+		enableAimLine(1000, shot);
+		toggleMarkings();
+		phase.finish();
+	}
+
+	/**
+	 * Called when the anytime search has chosen a shot
+	 * 
+	 * @param shot
+	 *            the shot that is played
+	 * @param target
+	 *            the pocketing the shot aims at; null for a safety shot
+	 */
+	protected void plannedShot(CueInteraction shot, PocketingEvent target)
+	{
+	}
+
+	/**
+	 * Creates the evaluator of a single candidate of the aiming search. Every
+	 * candidate gets an evaluator of its own, so that the candidates can be
+	 * evaluated at the same time.
+	 * 
+	 * @param random
+	 *            the stream of the candidate
+	 * @param secondLevelVariations
+	 *            the aiming points per pocket of the shots after the candidate
+	 * @param samples
+	 *            the number of samples of the candidate
+	 * @param nextLevelShots
+	 *            the number of shots after the candidate that are tried
+	 * @param noise
+	 *            the noise of the samples of the candidate
+	 * @param secondLevelNoise
+	 *            the noise of the samples of the next shots
+	 * @param deadline
+	 *            the time after which no more next shots are tried
+	 * @return the evaluator
+	 */
+	private DepthSamplingEvaluator createAimingEvaluator(RandomStream random, int secondLevelVariations, int samples, int nextLevelShots, NoiseSequence noise, NoiseSequence secondLevelNoise, long deadline)
+	{
+		DirectPocketGenerator secondLevelPocketGenerator = new DirectPocketGenerator(secondLevelVariations, random.split());
+		DirectPocketingEvaluator secondLevelPocketingEvaluator = new DirectPocketingEvaluator();
+		DirectCueGenerator secondLevelCueGenerator = new DirectCueGenerator(secondLevelPocketGenerator, secondLevelPocketingEvaluator);
+		CueInteractionToPocketEvaluator secondLevelEvaluator = new CueInteractionToPocketEvaluator(3, random.split());
+		DepthSamplingEvaluator evaluator = new DepthSamplingEvaluator(samples, secondLevelCueGenerator, secondLevelEvaluator, nextLevelShots, random.split());
+
+		evaluator.setCriticalScore(.2f);
+		evaluator.setSequentialTest(new SequentialTest(0, 1));
+		secondLevelEvaluator.setCriticalScore(0f);
+		secondLevelPocketingEvaluator.setCriticalScore(.5f);
+		evaluator.setNoiseSequence(noise);
+		secondLevelEvaluator.setNoiseSequence(secondLevelNoise);
+		evaluator.setShotCache(shotCache);
+		secondLevelEvaluator.setShotCache(shotCache);
+		evaluator.setDeadline(deadline);
+		return evaluator;
+	}
+
+	private DepthSamplingEvaluator createAnytimeEvaluator(int samples, int nextLevelShots, long deadline)
+	{
+		// the candidates of a round share their noise
+		NoiseSequence noise = NoiseSequence.quasiRandom(samples, random.split());
+		NoiseSequence secondLevelNoise = NoiseSequence.quasiRandom(3, random.split());
+		return createAimingEvaluator(random, 1, samples, nextLevelShots, noise, secondLevelNoise, deadline);
+	}
+
+	private static boolean passed(Candidate candidate)
+	{
+		return candidate.score > FAILED + 1;
+	}
+
+	private double anytimeScore(DepthSamplingEvaluator evaluator, Candidate candidate)
+	{
+		if (evaluator.evaluate(candidate.shot, candidate.target, state))
+		{
+			return evaluator.getScore();
+		}
+		return FAILED + evaluator.getScore();
+	}
+
+	/**
+	 * Searches for a safety shot until one passes or the deadline is reached
+	 * 
+	 * @return the safety shot; null if none passed in time
+	 */
+	private CueInteraction searchSafetyShot(long deadline)
+	{
+		RandomCueInteractionGenerator ciGenerator = new RandomCueInteractionGenerator(random.split());
+		SafetyShotEvaluator finalEvaluator = createSafetyEvaluator(1, deadline);
+
+		while (System.currentTimeMillis() < deadline)
+		{
+			CueInteraction shot = ciGenerator.generate(state);
+			if (finalEvaluator.evaluate(shot, ciGenerator.getTarget(), state))
+			{
+				return shot;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates the evaluator of the shots at the last ball, which only judges
+	 * whether a shot pots it
+	 * 
+	 * @param samples
+	 *            the number of samples of a shot
+	 * @return the evaluator
+	 */
+	protected CueInteractionToPocketEvaluator createLastBallEvaluator(int samples)
+	{
+		CueInteractionToPocketEvaluator evaluator = new CueInteractionToPocketEvaluator(samples, random.split());
+		evaluator.setCriticalScore(.1f);
+		// all shots of this turn are sampled with the same noise
+		evaluator.setNoiseSequence(NoiseSequence.quasiRandom(samples, random.split()));
+		evaluator.setShotCache(shotCache);
+		return evaluator;
+	}
+
+	/**
+	 * Creates the evaluator of safety shots, which judges a shot by the best
+	 * reply the opponent is left with
+	 * 
+	 * @param secondLevelVariations
+	 *            the aiming points per pocket of the replies
+	 * @param deadline
+	 *            the time after which no more replies are tried
+	 * @return the evaluator
+	 */
+	protected SafetyShotEvaluator createSafetyEvaluator(int secondLevelVariations, long deadline)
+	{
+		DirectPocketGenerator secondLevelPocketGenerator = new DirectPocketGenerator(secondLevelVariations, random.split());
+		DirectPocketingEvaluator secondLevelPocketEvaluator = new DirectPocketingEvaluator();
+		DirectCueGenerator secondLevelCueGenerator = new DirectCueGenerator(secondLevelPocketGenerator, secondLevelPocketEvaluator);
+		CueInteractionToPocketEvaluator secondLevelEvaluator = new CueInteractionToPocketEvaluator(4, random.split());
+		SafetyShotEvaluator evaluator = new SafetyShotEvaluator(4, secondLevelCueGenerator, secondLevelEvaluator, 30, random.split());
+
+		evaluator.setCriticalScore(0f);
+		secondLevelEvaluator.setCriticalScore(-1f);
+		secondLevelPocketEvaluator.setCriticalScore(.5f);
+		// all safeties of this turn and their replies are sampled with the
+		// same noise
+		evaluator.setNoiseSequence(NoiseSequence.quasiRandom(4, random.split()));
+		secondLevelEvaluator.setNoiseSequence(NoiseSequence.quasiRandom(4, random.split()));
+		evaluator.setShotCache(shotCache);
+		secondLevelEvaluator.setShotCache(shotCache);
+		evaluator.setDeadline(deadline);
+		return evaluator;
+	}
+
 	private void handleAimingFallbackOneBall(AimingPhase phase)
 	{
-		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(1);
+		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(1, random.split());
 		DirectPocketingEvaluator pocketingEvaluator = new DirectPocketingEvaluator();
 		DirectCueGenerator ciGenerator = new DirectCueGenerator(pocketingGenerator, pocketingEvaluator);
-		CueInteractionToPocketEvaluator finalEvaluator = new CueInteractionToPocketEvaluator(10);
+		CueInteractionToPocketEvaluator finalEvaluator = createLastBallEvaluator(10);
 
-		finalEvaluator.setCriticalScore(.1f);
 		pocketingEvaluator.setCriticalScore(.5f);
 
 		long before = System.currentTimeMillis();
@@ -243,7 +813,7 @@ public class PlanningSamplingAI implements ControllingUnit
 	{
 		logger.log(Level.INFO, "Falling back to one ball search");
 
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
 		simpleScoreEvaluator.setCriticalScore(0.0);
 
@@ -275,12 +845,15 @@ public class PlanningSamplingAI implements ControllingUnit
 	private void handleAimingFallbackPhaseOne(AimingPhase phase)
 	{
 		logger.log(Level.INFO, "Falling back to random search");
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SamplingRandomEvaluator samplingRandomEvaluator = new SamplingRandomEvaluator(5);
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
 		samplingRandomEvaluator.setCriticalScore(0.4f);
 		simpleScoreEvaluator.setCriticalScore(.1f);
 		ArrayList<CueInteraction> candidates = new ArrayList<CueInteraction>();
+		// the candidates are checked again in every round with the same
+		// noise, so the cache knows the outcomes from the second round on
+		NoiseSequence recheckNoise = NoiseSequence.quasiRandom(5, random.split());
 
 		long before = System.currentTimeMillis();
 		int count = 0;
@@ -296,7 +869,11 @@ public class PlanningSamplingAI implements ControllingUnit
 			if (samplingRandomEvaluator.evaluate(cueStrike, randomCIGenerator.getTarget(), state))
 			{
 				candidates.add(cueStrike);
-				SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(100);
+				SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(100, random.split());
+				// stop as soon as the shot is clearly above or below the
+				// percentage we are looking for
+				sampler.setCriticalScore(minPercentage);
+				sampler.setSequentialTest(new SequentialTest(.05, 10));
 				toggleAimLine(cueStrike);
 				sampler.evaluate(cueStrike, randomCIGenerator.getTarget(), state);
 				toggleAimLine(cueStrike);
@@ -310,7 +887,9 @@ public class PlanningSamplingAI implements ControllingUnit
 				{
 					if (samplingRandomEvaluator.evaluate(candidate, randomCIGenerator.getTarget(), state))
 					{
-						SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(5);
+						SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(5, random.split());
+						sampler.setNoiseSequence(recheckNoise);
+						sampler.setShotCache(shotCache);
 						toggleAimLine(candidate);
 						sampler.evaluate(candidate, randomCIGenerator.getTarget(), state);
 						toggleAimLine(candidate);
@@ -356,17 +935,8 @@ public class PlanningSamplingAI implements ControllingUnit
 	{
 		logger.log(Level.INFO, "Falling back to safety shots");
 
-		RandomCueInteractionGenerator ciGenerator = new RandomCueInteractionGenerator();
-
-		DirectPocketGenerator secondLevelPocketGenerator = new DirectPocketGenerator(1);
-		DirectPocketingEvaluator secondLevelPocketEvaluator = new DirectPocketingEvaluator();
-		DirectCueGenerator secondLevelCueGenerator = new DirectCueGenerator(secondLevelPocketGenerator, secondLevelPocketEvaluator);
-		CueInteractionToPocketEvaluator secondLevelEvaluator = new CueInteractionToPocketEvaluator(4);
-		SafetyShotEvaluator finalEvaluator = new SafetyShotEvaluator(4, secondLevelCueGenerator, secondLevelEvaluator, 30);
-
-		finalEvaluator.setCriticalScore(0f);
-		secondLevelEvaluator.setCriticalScore(-1f);
-		secondLevelPocketEvaluator.setCriticalScore(.5f);
+		RandomCueInteractionGenerator ciGenerator = new RandomCueInteractionGenerator(random.split());
+		SafetyShotEvaluator finalEvaluator = createSafetyEvaluator(1, Long.MAX_VALUE);
 
 		long before = System.currentTimeMillis();
 		int count = 0;
@@ -395,6 +965,10 @@ public class PlanningSamplingAI implements ControllingUnit
 
 	protected void enableAimLine(long time, SingleBallEvent e)
 	{
+		if (presentation == null)
+		{
+			return;
+		}
 		presentation.showShotVisualization(true);
 		AimLine aimLine = new AimLine(presentation, state, visualizationDepth, accuracy);
 		aimLine.showAimLine(e);
@@ -411,6 +985,10 @@ public class PlanningSamplingAI implements ControllingUnit
 
 	protected void toggleAimLine(SingleBallEvent e)
 	{
+		if (presentation == null)
+		{
+			return;
+		}
 		if (showLine)
 		{
 			presentation.showShotVisualization(true);
@@ -426,6 +1004,10 @@ public class PlanningSamplingAI implements ControllingUnit
 
 	private void toggleMarkings()
 	{
+		if (presentation == null)
+		{
+			return;
+		}
 		if (!showMarkings)
 		{
 			((SnookerTable3D) presentation).showMarkings(true);
@@ -20,6 +20,7 @@ import de.danielmescheder.snooker.gameflow.phases.AimingPhase;
 import de.danielmescheder.snooker.gameflow.phases.FrameInitPhase;
 import de.danielmescheder.snooker.gameflow.phases.PositioningPhase;
 import de.danielmescheder.snooker.gameflow.phases.SimulationPhase;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.presentation.SnookerTable3D;
 import de.danielmescheder.snooker.presentation.TablePresentation;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
@@ -37,6 +38,7 @@ public class RandomAIControl implements ControllingUnit {
 
 	private TablePresentation presentation;
 	private GameState state;
+	private RandomStream random = new RandomStream();
 	private float accuracy = 0.0005f;
 	private int visualizationDepth = 2;
 	private CueInteraction cueStrike;
@@ -47,6 +49,17 @@ public class RandomAIControl implements ControllingUnit {
 		this.state = state;
 	}
 
+	/**
+	 * Seeds the stream from which all random numbers of this AI are drawn, so
+	 * that its decisions can be reproduced
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public void setSeed(long seed) {
+		random = new RandomStream(seed);
+	}
+
 	public void handlePhase(GamePhase phase) {
 		HashMap<String, Object> props = new HashMap<String, Object>();
 
@@ -99,7 +112,7 @@ public class RandomAIControl implements ControllingUnit {
 
 	private void handleAiming(AimingPhase phase) {
 		toggleMarkings();
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
 		simpleScoreEvaluator.setCriticalScore(0.2);
 
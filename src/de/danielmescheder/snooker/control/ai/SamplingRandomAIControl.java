@@ -23,6 +23,7 @@ import de.danielmescheder.snooker.gameflow.phases.AimingPhase;
 import de.danielmescheder.snooker.gameflow.phases.FrameInitPhase;
 import de.danielmescheder.snooker.gameflow.phases.PositioningPhase;
 import de.danielmescheder.snooker.gameflow.phases.SimulationPhase;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.presentation.SnookerTable3D;
 import de.danielmescheder.snooker.presentation.TablePresentation;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
@@ -42,6 +43,7 @@ public class SamplingRandomAIControl implements ControllingUnit {
 
 	protected TablePresentation presentation;
 	protected GameState state;
+	protected RandomStream random = new RandomStream();
 	protected float accuracy = 0.0005f;
 	protected int visualizationDepth = 2;
 	protected CueInteraction cueStrike;
@@ -55,27 +57,40 @@ public class SamplingRandomAIControl implements ControllingUnit {
 		this.state = state;
 	}
 
+	/**
+	 * Seeds the stream from which all random numbers of this AI are drawn, so
+	 * that its decisions can be reproduced
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public void setSeed(long seed) {
+		random = new RandomStream(seed);
+	}
+
 	public void handlePhase(GamePhase phase) {
-		HashMap<String, Object> props = new HashMap<String, Object>();
+		if (presentation != null) {
+			HashMap<String, Object> props = new HashMap<String, Object>();
 
-		props.put(ThirdPersonMouseLook.PROP_MAXROLLOUT, "3");
-		props.put(ThirdPersonMouseLook.PROP_MINROLLOUT, "1");
-		props.put(ThirdPersonMouseLook.PROP_MINASCENT, "" + 45
-				* FastMath.DEG_TO_RAD);
-		props.put(ThirdPersonMouseLook.PROP_MAXASCENT, "" + 45
-				* FastMath.DEG_TO_RAD);
-		props.put(ChaseCamera.PROP_INITIALSPHERECOORDS, new Vector3f(3, 0,
-				30 * FastMath.DEG_TO_RAD));
-		props.put(ChaseCamera.PROP_WORLDUPVECTOR, new Vector3f(0, 0, 1));
+			props.put(ThirdPersonMouseLook.PROP_MAXROLLOUT, "3");
+			props.put(ThirdPersonMouseLook.PROP_MINROLLOUT, "1");
+			props.put(ThirdPersonMouseLook.PROP_MINASCENT, "" + 45
+					* FastMath.DEG_TO_RAD);
+			props.put(ThirdPersonMouseLook.PROP_MAXASCENT, "" + 45
+					* FastMath.DEG_TO_RAD);
+			props.put(ChaseCamera.PROP_INITIALSPHERECOORDS, new Vector3f(3, 0,
+					30 * FastMath.DEG_TO_RAD));
+			props.put(ChaseCamera.PROP_WORLDUPVECTOR, new Vector3f(0, 0, 1));
 
-		props.put(ChaseCamera.PROP_TARGETOFFSET, new Vector3f(0, 0, 0));
+			props.put(ChaseCamera.PROP_TARGETOFFSET, new Vector3f(0, 0, 0));
 
-		ChaseCamera chaser = new ChaseCamera(presentation.getCamera(),
-				presentation.getTableNode(), props);
-		chaser.setMinDistance(state.getTable().getLength());
-		chaser.setMaxDistance(state.getTable().getLength());
+			ChaseCamera chaser = new ChaseCamera(presentation.getCamera(),
+					presentation.getTableNode(), props);
+			chaser.setMinDistance(state.getTable().getLength());
+			chaser.setMaxDistance(state.getTable().getLength());
 
-		presentation.setCameraControl(chaser);
+			presentation.setCameraControl(chaser);
+		}
 
 		if (phase instanceof FrameInitPhase) {
 			handleInit((FrameInitPhase) phase);
@@ -89,10 +104,16 @@ public class SamplingRandomAIControl implements ControllingUnit {
 	}
 
 	protected void handleInit(FrameInitPhase phase) {
+		if (presentation == null) {
+			return;
+		}
 		presentation.initBalls();
 	}
 
 	protected void handleSimulation(SimulationPhase phase) {
+		if (presentation == null) {
+			return;
+		}
 		presentation.setGameControl(new SimulationControl(presentation, phase,
 				state));
 	}
@@ -107,7 +128,7 @@ public class SamplingRandomAIControl implements ControllingUnit {
 
 	protected void handleAiming(AimingPhase phase) {
 		toggleMarkings();
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SamplingRandomEvaluator samplingRandomEvaluator = new SamplingRandomEvaluator(
 				5);
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
@@ -127,7 +148,7 @@ public class SamplingRandomAIControl implements ControllingUnit {
 			if (samplingRandomEvaluator.evaluate(cueStrike, randomCIGenerator
 					.getTarget(), state)) {
 				candidates.add(cueStrike);
-				SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(5);
+				SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(5, random.split());
 				toggleAimLine(cueStrike);
 				sampler.evaluate(cueStrike, randomCIGenerator.getTarget(),
 						state);
@@ -142,7 +163,7 @@ public class SamplingRandomAIControl implements ControllingUnit {
 					if (samplingRandomEvaluator.evaluate(candidate,
 							randomCIGenerator.getTarget(), state)) {
 						SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(
-								5);
+								5, random.split());
 						toggleAimLine(candidate);
 						sampler.evaluate(candidate, randomCIGenerator
 								.getTarget(), state);
@@ -191,6 +212,9 @@ public class SamplingRandomAIControl implements ControllingUnit {
 	}
 
 	protected void enableAimLine(long time, SingleBallEvent e) {
+		if (presentation == null) {
+			return;
+		}
 		presentation.showShotVisualization(true);
 		AimLine aimLine = new AimLine(presentation, state, visualizationDepth,
 				accuracy);
@@ -204,6 +228,9 @@ public class SamplingRandomAIControl implements ControllingUnit {
 	}
 
 	protected void toggleAimLine(SingleBallEvent e) {
+		if (presentation == null) {
+			return;
+		}
 		if (showLine) {
 			presentation.showShotVisualization(true);
 			AimLine aimLine = new AimLine(presentation, state,
@@ -216,6 +243,9 @@ public class SamplingRandomAIControl implements ControllingUnit {
 	}
 
 	private void toggleMarkings() {
+		if (presentation == null) {
+			return;
+		}
 		if (!showMarkings) {
 			((SnookerTable3D) presentation).showMarkings(true);
 			((SnookerTable3D) presentation).markBalls(state.getOnBalls());
@@ -0,0 +1,100 @@
+package de.danielmescheder.snooker.control.ai.evaluator;
+
+import java.util.List;
+
+import de.danielmescheder.snooker.control.ai.EventEvaluator;
+import de.danielmescheder.snooker.math.RandomStream;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.Event;
+import de.danielmescheder.snooker.simulation.event.NoiseModel;
+import de.danielmescheder.snooker.simulation.event.NoiseSequence;
+
+/**
+ * The BatchSamplingEvaluator is the base of the evaluators that judge a shot
+ * by simulating a number of noisy samples of it in a {@link ShotBatch}. It
+ * holds the settings all of them share: the noise of the samples, the cache
+ * of their outcomes and the number of samples simulated at the same time.
+ * 
+ * @param <T>
+ *            the type of the target of the shots
+ */
+public abstract class BatchSamplingEvaluator<T extends Event> implements
+		EventEvaluator<CueInteraction, T> {
+	protected final ShotBatch batch = new ShotBatch();
+	protected final int samples;
+	private final RandomStream random;
+	private NoiseModel noise = NoiseModel.getDefault();
+	private NoiseSequence noiseSequence;
+
+	/**
+	 * Constructs a new BatchSamplingEvaluator
+	 * 
+	 * @param samples
+	 *            the number of samples of every shot
+	 * @param random
+	 *            the stream the noise is drawn from without a sequence
+	 */
+	protected BatchSamplingEvaluator(int samples, RandomStream random) {
+		this.samples = samples;
+		this.random = random;
+	}
+
+	/**
+	 * Creates the noisy samples of a shot
+	 * 
+	 * @param shot
+	 *            the shot
+	 * @return as many samples as the evaluator takes
+	 */
+	protected List<CueInteraction> samples(CueInteraction shot) {
+		return ShotBatch.samples(shot, samples, noise, noiseSequence, random);
+	}
+
+	/**
+	 * Sets the deviations of the noise that is added to the samples
+	 * 
+	 * @param noise
+	 *            the noise model
+	 */
+	public void setNoiseModel(NoiseModel noise) {
+		this.noise = noise;
+	}
+
+	/**
+	 * Sets the sequence of noise draws the samples are taken from. Sample i
+	 * gets the noise of draw i, so all shots evaluated with the same sequence
+	 * see the same noise. Without a sequence, the noise of every sample is
+	 * drawn anew.
+	 * 
+	 * @param noiseSequence
+	 *            the sequence; null to draw the noise anew
+	 */
+	public void setNoiseSequence(NoiseSequence noiseSequence) {
+		if (noiseSequence != null && noiseSequence.size() < samples) {
+			throw new IllegalArgumentException("Sequence of "
+					+ noiseSequence.size() + " draws is too short for "
+					+ samples + " samples");
+		}
+		this.noiseSequence = noiseSequence;
+	}
+
+	/**
+	 * Sets the cache that is consulted before a sample is simulated
+	 * 
+	 * @param cache
+	 *            the cache; null to simulate every sample
+	 */
+	public void setShotCache(ShotCache cache) {
+		batch.setCache(cache);
+	}
+
+	/**
+	 * Sets the maximum number of samples that are simulated at the same time
+	 * 
+	 * @param maxParallelism
+	 *            the maximum number of workers
+	 */
+	public void setMaxParallelism(int maxParallelism) {
+		batch.setMaxParallelism(maxParallelism);
+	}
+}
@@ -0,0 +1,330 @@
+package de.danielmescheder.snooker.control.ai.evaluator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import de.danielmescheder.snooker.control.ai.EventEvaluator;
+import de.danielmescheder.snooker.control.ai.EventGenerator;
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.math.RandomStream;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.PocketingEvent;
+
+/**
+ * The CandidatePipeline searches for the best of a number of candidate shots
+ * by evaluating several of them at the same time. The calling thread streams
+ * the candidates out of a generator, a pool of workers evaluates them and the
+ * results are taken in the order in which the candidates were generated, so
+ * the best shot is chosen exactly as by the plain loop
+ *
+ * <pre>
+ * do {
+ * 	shot = generator.generate(state);
+ * 	if (evaluator.evaluate(shot, generator.getTarget(), state)) ...
+ * } while (bestScore &lt; targetScore &amp;&amp; count &lt; maxCandidates);
+ * </pre>
+ *
+ * An evaluator keeps the score of its last evaluation, so every candidate gets
+ * an evaluator of its own from an {@link EvaluatorFactory}. The factory is
+ * given a stream that is split from the stream of the pipeline in the order
+ * of the candidates, which makes the result independent of the number of
+ * workers as long as the evaluators do not share a {@link ShotCache}. A cache
+ * hands a sample the outcome of whichever nearly equal sample was simulated
+ * first, and that order depends on the workers, so with a cache the chosen
+ * shot may in rare cases differ.
+ *
+ * The generator runs ahead of the results by at most as many candidates as
+ * there are workers. Once the search is decided, the candidates that have
+ * not been started are dropped, and those that are running are waited for,
+ * since they still read the state.
+ *
+ */
+public class CandidatePipeline {
+	private final EventGenerator<CueInteraction, PocketingEvent> generator;
+	private final EvaluatorFactory factory;
+	private final RandomStream random;
+	private final ForkJoinPool pool;
+	private int maxParallelism;
+	private int maxCandidates = Integer.MAX_VALUE;
+	private double targetScore = Double.POSITIVE_INFINITY;
+	private Listener listener;
+	private volatile boolean cancelled;
+
+	private PocketingEvent target;
+	private double score;
+	private int count;
+	private boolean exhausted;
+
+	/**
+	 * An EvaluatorFactory creates the evaluator of a single candidate
+	 */
+	public interface EvaluatorFactory {
+		/**
+		 * Creates an evaluator. The evaluator is only used by a single worker.
+		 *
+		 * @param random
+		 *            the stream all random numbers of the evaluator are to be
+		 *            drawn from
+		 * @return the evaluator
+		 */
+		EventEvaluator<CueInteraction, PocketingEvent> create(
+				RandomStream random);
+	}
+
+	/**
+	 * A Listener is told about every evaluated candidate. It is called on the
+	 * thread that runs the search, in the order of the candidates.
+	 */
+	public interface Listener {
+		/**
+		 * Reports the evaluation of a candidate
+		 *
+		 * @param shot
+		 *            the candidate
+		 * @param target
+		 *            the pocketing the candidate was generated for
+		 * @param passed
+		 *            whether the candidate passed its evaluation
+		 * @param score
+		 *            the score of the candidate
+		 */
+		void evaluated(CueInteraction shot, PocketingEvent target,
+				boolean passed, double score);
+	}
+
+	private static class Evaluation extends RecursiveTask<Boolean> {
+		private static final long serialVersionUID = 1L;
+
+		private final CueInteraction shot;
+		private final PocketingEvent target;
+		private final GameState state;
+		private final EventEvaluator<CueInteraction, PocketingEvent> evaluator;
+		private double score;
+
+		public Evaluation(CueInteraction shot, PocketingEvent target,
+				GameState state,
+				EventEvaluator<CueInteraction, PocketingEvent> evaluator) {
+			this.shot = shot;
+			this.target = target;
+			this.state = state;
+			this.evaluator = evaluator;
+		}
+
+		@Override
+		protected Boolean compute() {
+			boolean passed = evaluator.evaluate(shot, target, state);
+			score = evaluator.getScore();
+			return passed;
+		}
+	}
+
+	/**
+	 * Constructs a new CandidatePipeline that uses the pool of the
+	 * {@link SamplingEngine}s and as many workers as there are processors
+	 *
+	 * @param generator
+	 *            the generator of the candidates
+	 * @param factory
+	 *            the factory of the evaluators
+	 * @param random
+	 *            the stream the evaluators are seeded from
+	 */
+	public CandidatePipeline(
+			EventGenerator<CueInteraction, PocketingEvent> generator,
+			EvaluatorFactory factory, RandomStream random) {
+		this(generator, factory, random, SamplingEngine.getDefaultPool(),
+				SamplingEngine.getDefaultPool().getParallelism());
+	}
+
+	/**
+	 * Constructs a new CandidatePipeline
+	 *
+	 * @param generator
+	 *            the generator of the candidates
+	 * @param factory
+	 *            the factory of the evaluators
+	 * @param random
+	 *            the stream the evaluators are seeded from
+	 * @param pool
+	 *            the pool that runs the evaluations
+	 * @param maxParallelism
+	 *            the maximum number of candidates that are evaluated at the
+	 *            same time
+	 */
+	public CandidatePipeline(
+			EventGenerator<CueInteraction, PocketingEvent> generator,
+			EvaluatorFactory factory, RandomStream random, ForkJoinPool pool,
+			int maxParallelism) {
+		this.generator = generator;
+		this.factory = factory;
+		this.random = random;
+		this.pool = pool;
+		setMaxParallelism(maxParallelism);
+	}
+
+	/**
+	 * Sets the maximum number of candidates that are evaluated at the same
+	 * time. A value of 1 evaluates one candidate after the other.
+	 *
+	 * @param maxParallelism
+	 *            the maximum number of workers
+	 */
+	public void setMaxParallelism(int maxParallelism) {
+		if (maxParallelism < 1) {
+			throw new IllegalArgumentException(
+					"Parallelism must be at least 1");
+		}
+		this.maxParallelism = maxParallelism;
+	}
+
+	/**
+	 * Sets the number of candidates after which the search stops
+	 *
+	 * @param maxCandidates
+	 *            the maximum number of candidates
+	 */
+	public void setMaxCandidates(int maxCandidates) {
+		this.maxCandidates = maxCandidates;
+	}
+
+	/**
+	 * Sets the score that ends the search as soon as a candidate that passed
+	 * reaches it
+	 *
+	 * @param targetScore
+	 *            the score that is good enough
+	 */
+	public void setTargetScore(double targetScore) {
+		this.targetScore = targetScore;
+	}
+
+	/**
+	 * Sets the listener that is told about every evaluated candidate
+	 *
+	 * @param listener
+	 *            the listener; null for none
+	 */
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Searches for the best candidate
+	 *
+	 * @param state
+	 *            the state the candidates are played in; it must not be
+	 *            changed during the search
+	 * @return the candidate with the highest score among those that passed;
+	 *         null if none passed, the generator ran out of candidates or the
+	 *         search was cancelled
+	 */
+	public CueInteraction run(GameState state) {
+		Deque<Evaluation> running = new ArrayDeque<Evaluation>();
+		CueInteraction best = null;
+		boolean generated = true;
+		target = null;
+		score = -1;
+		count = 0;
+		exhausted = false;
+
+		int started = 0;
+		try {
+			while (true) {
+				while (generated && !cancelled && started < maxCandidates
+						&& running.size() < maxParallelism) {
+					CueInteraction shot = generator.generate(state);
+					if (shot == null) {
+						generated = false;
+						break;
+					}
+					Evaluation evaluation = new Evaluation(shot, generator
+							.getTarget(), state, factory.create(random
+							.split()));
+					pool.execute(evaluation);
+					running.add(evaluation);
+					started++;
+				}
+				if (running.isEmpty()) {
+					// only reached if no candidate was good enough
+					exhausted = !generated;
+					return exhausted || cancelled ? null : best;
+				}
+
+				Evaluation evaluation = running.poll();
+				boolean passed = evaluation.join();
+				count++;
+				if (passed && evaluation.score > score) {
+					score = evaluation.score;
+					best = evaluation.shot;
+					target = evaluation.target;
+				}
+				if (listener != null) {
+					listener.evaluated(evaluation.shot, evaluation.target,
+							passed, evaluation.score);
+				}
+				if (score >= targetScore) {
+					return best;
+				}
+				if (cancelled) {
+					return null;
+				}
+			}
+		} finally {
+			for (Evaluation evaluation : running) {
+				evaluation.cancel(false);
+			}
+			for (Evaluation evaluation : running) {
+				evaluation.quietlyJoin();
+			}
+		}
+	}
+
+	/**
+	 * Cancels the search. No more candidates are generated, and the search
+	 * returns once the candidates that are being evaluated are done. A
+	 * cancelled pipeline cannot be run again.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Gets the pocketing the best candidate of the last search was generated
+	 * for
+	 *
+	 * @return the target; null if no candidate passed
+	 */
+	public PocketingEvent getTarget() {
+		return target;
+	}
+
+	/**
+	 * Gets the score of the best candidate of the last search
+	 *
+	 * @return the score; -1 if no candidate passed
+	 */
+	public double getScore() {
+		return score;
+	}
+
+	/**
+	 * Gets the number of candidates that were evaluated in the last search
+	 *
+	 * @return the number of candidates
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Tells whether the last search ended because the generator ran out of
+	 * candidates
+	 *
+	 * @return true if the generator failed to generate a candidate
+	 */
+	public boolean isExhausted() {
+		return exhausted;
+	}
+}
@@ -1,6 +1,7 @@
 package de.danielmescheder.snooker.control.ai.evaluator;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -8,14 +9,12 @@ import de.danielmescheder.snooker.control.ai.EventEvaluator;
 import de.danielmescheder.snooker.control.ai.EventGenerator;
 import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.logic.GameLogicHandler;
-import de.danielmescheder.snooker.simulation.EventHandler;
 import de.danielmescheder.snooker.simulation.InTimeSimulation;
-import de.danielmescheder.snooker.simulation.Simulation;
-import de.danielmescheder.snooker.simulation.event.BallCollision;
+import de.danielmescheder.snooker.simulation.SimulationPool;
+import de.danielmescheder.snooker.simulation.Snapshot;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
-import de.danielmescheder.snooker.simulation.event.Event;
-import de.danielmescheder.snooker.simulation.event.NoisyCueInteraction;
 import de.danielmescheder.snooker.simulation.event.PocketingEvent;
 
 
@@ -24,71 +23,39 @@ import de.danielmescheder.snooker.simulation.event.PocketingEvent;
  * consult the report.
  * 
  */
-public class DepthSamplingEvaluator implements
-		EventEvaluator<CueInteraction, PocketingEvent> {
+public class DepthSamplingEvaluator extends
+		BatchSamplingEvaluator<PocketingEvent> {
 	private static final Logger logger = Logger
 			.getLogger(DepthSamplingEvaluator.class.getName());
 
 	private double criticalScore = 0.5;
 	private double score;
-	private int samples;
 	private int nextLevelShots;
+	private long deadline = Long.MAX_VALUE;
 	private float maxScore;
 	private float nextLevelValue = 1;
 	private EventGenerator<CueInteraction, PocketingEvent> nextLevelGen;
 	private EventEvaluator<CueInteraction, PocketingEvent> nextLevelEval;
+	private SequentialTest test = new SequentialTest();
 
-	private class AIHandler implements EventHandler {
-		private Simulation sim;
-		private GameLogicHandler logicHandler;
-		private BilliardBall ball;
-		private BilliardBall cueBall;
-		private int collisionCount;
-		private int maxCollisions;
-		private boolean success = false;
-
-		public AIHandler(Simulation sim, GameLogicHandler logicHandler,
-				BilliardBall ball, BilliardBall cueBall, int maxCollisions) {
-			this.sim = sim;
-			this.ball = ball;
-			this.cueBall = cueBall;
-			this.maxCollisions = maxCollisions;
-			this.logicHandler = logicHandler;
-			collisionCount = 0;
-		}
-
-		@Override
-		public void handle(Event e) {
-			if (logicHandler.foulCommitted()) {
-				sim.pause();
-			}
-			if (e instanceof BallCollision) {
-				collisionCount++;
-
-				if (collisionCount > maxCollisions) {
-					sim.pause();
-				}
-			}
-			if (e instanceof PocketingEvent) {
-				if (e.getBallKeys().contains(ball)) {
-					success = true;
-				}
-			}
-		}
-
-		public boolean success() {
-			return success;
-		}
+	public DepthSamplingEvaluator(int samples,
+			EventGenerator<CueInteraction, PocketingEvent> nextLevelGenerator,
+			EventEvaluator<CueInteraction, PocketingEvent> nextLevelEvaluator,
+			int nextLevelShots) {
+		this(samples, nextLevelGenerator, nextLevelEvaluator, nextLevelShots,
+				new RandomStream());
 	}
 
 	public DepthSamplingEvaluator(int samples,
 			EventGenerator<CueInteraction, PocketingEvent> nextLevelGenerator,
 			EventEvaluator<CueInteraction, PocketingEvent> nextLevelEvaluator,
-			int nextLevelShots) {
-		this.samples = samples;
+			int nextLevelShots, RandomStream random) {
+		super(samples, random);
 		this.nextLevelGen = nextLevelGenerator;
 		this.nextLevelEval = nextLevelEvaluator;
 		this.nextLevelShots = nextLevelShots;
+		batch.setStopOnFoul(true);
+		batch.setMaxCollisions(20);
 	}
 
 	@Override
@@ -100,56 +67,58 @@ public class DepthSamplingEvaluator implements
 	public boolean evaluate(CueInteraction event, PocketingEvent target,
 			GameState state) {
 		logger.log(Level.INFO, "Evaluating event", event);
-		float points = 0;
 		score = 0;
 
-		int targetValue = target.getBall().getType().getValue();
+		final int targetValue = target.getBall().getType().getValue();
 		maxScore = 0;
 		for (BilliardBall.Type type : state.getPossibleOnBallTypes()) {
 			maxScore = Math.max(maxScore, type.getValue());
 		}
+		int maxFoulScore = 0;
+		for (BilliardBall.Type type : BilliardBall.Type.values()) {
+			maxFoulScore = Math.max(maxFoulScore, type.getValue());
+		}
 
-		InTimeSimulation sim = new InTimeSimulation(state.getBalls(), state
-				.getTable());
-
-		for (int i = 0; i < samples; i++)
-		{
-			CueInteraction ci = event.toNoisyCueInteraction();
-			sim.init(Collections.singleton(ci));
-			GameLogicHandler logicHandler = new GameLogicHandler(state);
-			sim.removeHandlers();
-			sim.addEventHandler(logicHandler);
-			AIHandler aiHandler = new AIHandler(sim, logicHandler, target
-					.getBall(), event.getBall(), 20);
-			sim.addEventHandler(aiHandler);
-
-			sim.finish();
-
-			logicHandler.evaluateEvents();
-
-			if (sim.isPaused()) {
-				if (logicHandler.foulCommitted()) {
-					points -= logicHandler.getFoulScore() / (float) samples;
-				}
-			} else {
-				if (aiHandler.success()) {
-					points += targetValue / (float) samples;
+		List<CueInteraction> noisySamples = samples(event);
+
+		final BilliardBall targetBall = target.getBall();
+		test.start(-maxFoulScore / maxScore, targetValue / maxScore,
+				criticalScore, samples);
+		batch.run(state, noisySamples, test, new ShotBatch.SampleValue() {
+			public double valueOf(ShotOutcomes outcomes, int i) {
+				if (outcomes.isAborted(i)) {
+					if (outcomes.isFoul(i)) {
+						return -outcomes.getFoulScore(i) / maxScore;
+					}
+				} else if (outcomes.isPotted(i, targetBall)) {
+					return targetValue / maxScore;
 				}
+				return 0;
 			}
-		}
+		});
+		float points = (float) (test.getMean() * maxScore);
 
 		score = Math.min(1, Math.max(-1, points / maxScore));
 		logger.log(Level.FINER, "Score for this level", score);
+		logger.log(Level.FINE, "Samples used", test.getCount());
 
 		if (score >= criticalScore) {
 			logger.log(Level.FINER, "Running sim for depth check", score);
-			sim.init(Collections.singleton(event));
+			InTimeSimulation sim = SimulationPool.acquire(state.getBalls(),
+					state.getTable());
 			GameLogicHandler logicHandler = new GameLogicHandler(state);
-			sim.removeHandlers();
-			sim.addEventHandler(logicHandler);
-
-			sim.finish();
-			float nextLevelScore = nextLevelScore(state, sim, logicHandler);
+			Snapshot position;
+			try {
+				sim.init(Collections.singleton(event));
+				logicHandler.observe(sim);
+
+				sim.finish();
+				position = sim.snapshot();
+			} finally {
+				SimulationPool.release(sim);
+			}
+			// the simulation is released before the next level acquires its own
+			float nextLevelScore = nextLevelScore(state, position, logicHandler);
 			score = (2 * points / (maxScore + nextLevelValue) + nextLevelScore) / 3f;
 
 		}
@@ -160,11 +129,43 @@ public class DepthSamplingEvaluator implements
 		return (score >= criticalScore);
 	}
 
-	private float nextLevelScore(GameState state, Simulation sim,
+	/**
+	 * Sets the test that decides when enough samples have been simulated. The
+	 * default test simulates all samples.
+	 * 
+	 * @param test
+	 *            the test; it must not be shared with other evaluators
+	 */
+	public void setSequentialTest(SequentialTest test) {
+		this.test = test;
+	}
+
+	/**
+	 * Gets the number of samples that were simulated in the last evaluation
+	 * 
+	 * @return the number of samples used
+	 */
+	public int getSamplesUsed() {
+		return test.getCount();
+	}
+
+	/**
+	 * Sets the time after which no more shots of the next level are tried.
+	 * The shots that were evaluated until then make up the score.
+	 * 
+	 * @param deadline
+	 *            the time in milliseconds, as given by
+	 *            {@link System#currentTimeMillis()}
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	private float nextLevelScore(GameState state, Snapshot position,
 			GameLogicHandler logicHandler) {
 		GameState newState = (GameState) state.clone();
 		for (BilliardBall b : newState.getBalls()) {
-			sim.getBall(b);
+			position.getBall(b);
 			b.setTime(0);
 		}
 		logicHandler.updateState(newState);
@@ -185,7 +186,8 @@ public class DepthSamplingEvaluator implements
 				}
 			}
 		} while (maxNextLevelScore < nextLevelEval.getValue()
-				&& count < nextLevelShots);
+				&& count < nextLevelShots
+				&& System.currentTimeMillis() < deadline);
 		logger.log(Level.INFO, "Found next level score", maxNextLevelScore);
 		nextLevelValue = (float) nextLevelEval.getValue();
 		return (maxNextLevelScore / (maxScore + nextLevelValue));
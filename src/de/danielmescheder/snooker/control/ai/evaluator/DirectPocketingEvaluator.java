@@ -5,12 +5,12 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.danielmescheder.snooker.control.ai.EventEvaluator;
-import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.Pocket;
 import de.danielmescheder.snooker.gameflow.GameState;
 import de.danielmescheder.snooker.simulation.EventHandler;
 import de.danielmescheder.snooker.simulation.InTimeSimulation;
 import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.SimulationPool;
 import de.danielmescheder.snooker.simulation.event.BallCollision;
 import de.danielmescheder.snooker.simulation.event.CushionCollision;
 import de.danielmescheder.snooker.simulation.event.Event;
@@ -36,40 +36,37 @@ public class DirectPocketingEvaluator implements
 		private Simulation sim;
 		private Pocket target;
 		private boolean success = false;
-		private BilliardBall ball;
 
-		public AIHandler(Simulation sim, BilliardBall ball, Pocket target) {
-			this.ball = ball;
+		public AIHandler(Simulation sim, Pocket target) {
 			this.sim = sim;
 			this.target = target;
 		}
 
 		@Override
 		public void handle(Event e) {
-			if (e.getBallKeys().contains(ball)) {
-				if (e instanceof BallCollision) {
-					logger
-							.log(Level.FINER,
-									"Ball collision occured, canceling");
+			// only the events of the ball are passed to the handler
+			if (e instanceof BallCollision) {
+				logger
+						.log(Level.FINER,
+								"Ball collision occured, canceling");
+				success = false;
+				sim.pause();
+
+			} else if (e instanceof CushionCollision) {
+				logger.log(Level.FINER,
+						"Cushion collision occured, canceling");
+				success = false;
+				sim.pause();
+			} else if (e instanceof PocketingEvent) {
+				logger.log(Level.FINER, "Pocketing Event occured...");
+				if (((PocketingEvent) e).getPocket().equals(target)) {
+					logger.log(Level.FINER, "...right pocket! YEHAW!");
+					success = true;
+				} else {
+					logger.log(Level.FINER, "...wrong pocket! :-(");
 					success = false;
-					sim.pause();
-
-				} else if (e instanceof CushionCollision) {
-					logger.log(Level.FINER,
-							"Cushion collision occured, canceling");
-					success = false;
-					sim.pause();
-				} else if (e instanceof PocketingEvent) {
-					logger.log(Level.FINER, "Pocketing Event occured...");
-					if (((PocketingEvent) e).getPocket().equals(target)) {
-						logger.log(Level.FINER, "...right pocket! YEHAW!");
-						success = true;
-					} else {
-						logger.log(Level.FINER, "...wrong pocket! :-(");
-						success = false;
-					}
-					sim.pause();
 				}
+				sim.pause();
 			}
 		}
 
@@ -82,14 +79,19 @@ public class DirectPocketingEvaluator implements
 	public boolean evaluate(SetValuesEvent e, PocketingEvent target,
 			GameState state) {
 		logger.log(Level.INFO, "Evaluating event", e);
-		InTimeSimulation sim = new InTimeSimulation(state.getBalls(), state
+		InTimeSimulation sim = SimulationPool.acquire(state.getBalls(), state
 				.getTable());
-		AIHandler aiHandler = new AIHandler(sim, target.getBall(), target
-				.getPocket());
-		sim.addEventHandler(aiHandler);
-
-		sim.init(Collections.singleton(e));
-		sim.finish();
+		AIHandler aiHandler = new AIHandler(sim, target.getPocket());
+		try {
+			sim.addEventHandler(aiHandler, target.getBall(),
+					BallCollision.class, CushionCollision.class,
+					PocketingEvent.class);
+
+			sim.init(Collections.singleton(e));
+			sim.finish();
+		} finally {
+			SimulationPool.release(sim);
+		}
 
 		score = (aiHandler.success) ? 1 : 0;
 
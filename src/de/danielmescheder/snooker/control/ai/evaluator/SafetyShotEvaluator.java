@@ -1,6 +1,7 @@
 package de.danielmescheder.snooker.control.ai.evaluator;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -8,11 +9,11 @@ import de.danielmescheder.snooker.control.ai.EventEvaluator;
 import de.danielmescheder.snooker.control.ai.EventGenerator;
 import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.logic.GameLogicHandler;
-import de.danielmescheder.snooker.simulation.EventHandler;
 import de.danielmescheder.snooker.simulation.InTimeSimulation;
-import de.danielmescheder.snooker.simulation.Simulation;
-import de.danielmescheder.snooker.simulation.event.BallCollision;
+import de.danielmescheder.snooker.simulation.SimulationPool;
+import de.danielmescheder.snooker.simulation.Snapshot;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.event.PocketingEvent;
@@ -23,58 +24,37 @@ import de.danielmescheder.snooker.simulation.event.PocketingEvent;
  * consult the report.
  * 
  */
-public class SafetyShotEvaluator implements
-		EventEvaluator<CueInteraction, Event> {
+public class SafetyShotEvaluator extends
+		BatchSamplingEvaluator<Event> {
 	private static final Logger logger = Logger
 			.getLogger(SafetyShotEvaluator.class.getName());
 
 	private double criticalScore = 0.5;
 	private double score;
-	private int samples;
 	private int nextLevelShots;
+	private long deadline = Long.MAX_VALUE;
 	private float maxScore;
 	private EventGenerator<CueInteraction, PocketingEvent> nextLevelGen;
 	private EventEvaluator<CueInteraction, PocketingEvent> nextLevelEval;
 
-	private class AIHandler implements EventHandler {
-		private Simulation sim;
-		private GameLogicHandler logicHandler;
-		private int collisionCount;
-		private int maxCollisions;
-
-		public AIHandler(Simulation sim, GameLogicHandler logicHandler,
-				int maxCollisions) {
-			this.sim = sim;
-			this.maxCollisions = maxCollisions;
-			this.logicHandler = logicHandler;
-			collisionCount = 0;
-		}
-
-		@Override
-		public void handle(Event e) {
-			if (logicHandler.foulCommitted()) {
-				sim.pause();
-			}
-			if (e instanceof BallCollision) {
-				collisionCount++;
-
-				if (collisionCount > maxCollisions) {
-					sim.pause();
-				}
-			}
-
-		}
-
+	public SafetyShotEvaluator(int samples,
+			EventGenerator<CueInteraction, PocketingEvent> nextLevelGenerator,
+			EventEvaluator<CueInteraction, PocketingEvent> nextLevelEvaluator,
+			int nextLevelShots) {
+		this(samples, nextLevelGenerator, nextLevelEvaluator, nextLevelShots,
+				new RandomStream());
 	}
 
 	public SafetyShotEvaluator(int samples,
 			EventGenerator<CueInteraction, PocketingEvent> nextLevelGenerator,
 			EventEvaluator<CueInteraction, PocketingEvent> nextLevelEvaluator,
-			int nextLevelShots) {
-		this.samples = samples;
+			int nextLevelShots, RandomStream random) {
+		super(samples, random);
 		this.nextLevelGen = nextLevelGenerator;
 		this.nextLevelEval = nextLevelEvaluator;
 		this.nextLevelShots = nextLevelShots;
+		batch.setStopOnFoul(true);
+		batch.setMaxCollisions(20);
 	}
 
 	@Override
@@ -88,35 +68,31 @@ public class SafetyShotEvaluator implements
 		float points = 0;
 		score = 0;
 
-		InTimeSimulation sim = new InTimeSimulation(state.getBalls(), state
-				.getTable());
-
-		for (int i = 0; i < samples; i++) {
-			CueInteraction ci = event.toNoisyCueInteraction();
-			sim.init(Collections.singleton(ci));
-			GameLogicHandler logicHandler = new GameLogicHandler(state);
-			sim.removeHandlers();
-			sim.addEventHandler(logicHandler);
-			AIHandler aiHandler = new AIHandler(sim, logicHandler, 20);
-			sim.addEventHandler(aiHandler);
-
-			sim.finish();
+		List<CueInteraction> noisySamples = samples(event);
 
-			logicHandler.evaluateEvents();
-
-			if (logicHandler.foulCommitted()) {
+		ShotOutcomes outcomes = batch.run(state, noisySamples);
+		for (int i = 0; i < outcomes.size(); i++) {
+			if (outcomes.isFoul(i)) {
 				points--;
 			}
 		}
 		if (points >= 0) {
 			logger.log(Level.FINER, "Running sim for depth check", score);
-			sim.init(Collections.singleton(event));
+			InTimeSimulation sim = SimulationPool.acquire(state.getBalls(),
+					state.getTable());
 			GameLogicHandler logicHandler = new GameLogicHandler(state);
-			sim.removeHandlers();
-			sim.addEventHandler(logicHandler);
-
-			sim.finish();
-			score = nextLevelScore(state, sim, logicHandler);
+			Snapshot position;
+			try {
+				sim.init(Collections.singleton(event));
+				logicHandler.observe(sim);
+
+				sim.finish();
+				position = sim.snapshot();
+			} finally {
+				SimulationPool.release(sim);
+			}
+			// the simulation is released before the next level acquires its own
+			score = nextLevelScore(state, position, logicHandler);
 		} else {
 			score = -1;
 		}
@@ -126,11 +102,24 @@ public class SafetyShotEvaluator implements
 		return (score >= criticalScore);
 	}
 
-	private float nextLevelScore(GameState state, Simulation sim,
+	/**
+	 * Sets the time after which the opponent's replies to the safety are not
+	 * searched any further. The safety is judged by the best reply found
+	 * until then.
+	 * 
+	 * @param deadline
+	 *            the time in milliseconds, as given by
+	 *            {@link System#currentTimeMillis()}
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	private float nextLevelScore(GameState state, Snapshot position,
 			GameLogicHandler logicHandler) {
 		GameState newState = (GameState) state.clone();
 		for (BilliardBall b : newState.getBalls()) {
-			sim.getBall(b);
+			position.getBall(b);
 			b.setTime(0);
 		}
 		logicHandler.updateState(newState);
@@ -148,7 +137,8 @@ public class SafetyShotEvaluator implements
 					maxNextLevelScore = (float) (nextLevelEval.getScore());
 				}
 			}
-		} while (maxNextLevelScore < 1 && count < nextLevelShots);
+		} while (maxNextLevelScore < 1 && count < nextLevelShots
+				&& System.currentTimeMillis() < deadline);
 		logger.log(Level.INFO, "Found next level score", maxNextLevelScore);
 		return -maxNextLevelScore;
 	}
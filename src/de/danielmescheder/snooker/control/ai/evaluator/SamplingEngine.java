@@ -0,0 +1,185 @@
+package de.danielmescheder.snooker.control.ai.evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.simulation.InTimeSimulation;
+import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.SimulationPool;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+
+/**
+ * The SamplingEngine runs the Monte Carlo samples of an evaluator in parallel.
+ * The samples are split into contiguous chunks, one per worker, and every
+ * worker simulates its chunk on its own {@link Simulation}. The outcomes are
+ * returned in the order of the samples, so an evaluator that reduces them in
+ * that order obtains exactly the same result as a sequential run.
+ *
+ * Since the work is done by a {@link ForkJoinPool}, an engine may be used from
+ * within a task that is itself running in the pool.
+ *
+ */
+public class SamplingEngine {
+	private static final ForkJoinPool defaultPool = new ForkJoinPool();
+
+	private final ForkJoinPool pool;
+	private int maxParallelism;
+
+	/**
+	 * A SampleTask simulates a single sample and reports its outcome
+	 *
+	 * @param <R>
+	 *            the type of the outcome
+	 */
+	public interface SampleTask<R> {
+		/**
+		 * Simulates a sample. The simulation is owned by the calling worker and
+		 * has to be initialized by the task.
+		 *
+		 * @param sim
+		 *            the simulation to be used
+		 * @param sample
+		 *            the sample
+		 * @param index
+		 *            the position of the sample in the list of samples
+		 * @return the outcome
+		 */
+		R simulate(Simulation sim, CueInteraction sample, int index);
+	}
+
+	private static class Chunk<R> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final GameState state;
+		private final List<? extends CueInteraction> samples;
+		private final SampleTask<R> task;
+		private final Object[] outcomes;
+		private final int from, to;
+
+		public Chunk(GameState state, List<? extends CueInteraction> samples,
+				SampleTask<R> task, Object[] outcomes, int from, int to) {
+			this.state = state;
+			this.samples = samples;
+			this.task = task;
+			this.outcomes = outcomes;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			InTimeSimulation sim = SimulationPool.acquire(state.getBalls(),
+					state.getTable());
+			try {
+				for (int i = from; i < to; i++) {
+					outcomes[i] = task.simulate(sim, samples.get(i), i);
+				}
+			} finally {
+				SimulationPool.release(sim);
+			}
+		}
+	}
+
+	/**
+	 * Constructs a new SamplingEngine that uses a pool shared by all engines
+	 * and as many workers as there are processors
+	 */
+	public SamplingEngine() {
+		this(defaultPool, defaultPool.getParallelism());
+	}
+
+	/**
+	 * Constructs a new SamplingEngine
+	 *
+	 * @param pool
+	 *            the pool that runs the samples
+	 * @param maxParallelism
+	 *            the maximum number of samples that are simulated at the same
+	 *            time
+	 */
+	public SamplingEngine(ForkJoinPool pool, int maxParallelism) {
+		this.pool = pool;
+		setMaxParallelism(maxParallelism);
+	}
+
+	/**
+	 * Gets the pool shared by all engines that were constructed without a pool
+	 *
+	 * @return the default pool
+	 */
+	static ForkJoinPool getDefaultPool() {
+		return defaultPool;
+	}
+
+	/**
+	 * Sets the maximum number of samples that are simulated at the same time. A
+	 * value of 1 runs all samples on the calling thread.
+	 *
+	 * @param maxParallelism
+	 *            the maximum number of workers
+	 */
+	public void setMaxParallelism(int maxParallelism) {
+		if (maxParallelism < 1) {
+			throw new IllegalArgumentException(
+					"Parallelism must be at least 1");
+		}
+		this.maxParallelism = maxParallelism;
+	}
+
+	/**
+	 * Gets the maximum number of samples that are simulated at the same time
+	 *
+	 * @return the maximum number of workers
+	 */
+	public int getMaxParallelism() {
+		return maxParallelism;
+	}
+
+	/**
+	 * Simulates all samples in the given state
+	 *
+	 * @param state
+	 *            the state in which the samples are played
+	 * @param samples
+	 *            the samples
+	 * @param task
+	 *            the task that simulates a single sample
+	 * @return the outcomes in the order of the samples
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> List<R> run(GameState state,
+			List<? extends CueInteraction> samples, SampleTask<R> task) {
+		Object[] outcomes = new Object[samples.size()];
+		int workers = Math.min(maxParallelism, samples.size());
+
+		if (workers <= 1) {
+			new Chunk<R>(state, samples, task, outcomes, 0, samples.size())
+					.compute();
+		} else {
+			final List<Chunk<R>> chunks = new ArrayList<Chunk<R>>(workers);
+			for (int w = 0; w < workers; w++) {
+				chunks.add(new Chunk<R>(state, samples, task, outcomes, w
+						* samples.size() / workers, (w + 1) * samples.size()
+						/ workers));
+			}
+			if (ForkJoinTask.inForkJoinPool()) {
+				ForkJoinTask.invokeAll(chunks);
+			} else {
+				pool.invoke(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void compute() {
+						invokeAll(chunks);
+					}
+				});
+			}
+		}
+		return (List<R>) Arrays.asList(outcomes);
+	}
+}
@@ -14,7 +14,10 @@ import de.danielmescheder.snooker.logic.GameLogicHandler;
 import de.danielmescheder.snooker.simulation.EventHandler;
 import de.danielmescheder.snooker.simulation.InTimeSimulation;
 import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.SimulationPool;
+import de.danielmescheder.snooker.simulation.event.BallCollision;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.CushionCollision;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.event.PocketingEvent;
 import de.danielmescheder.snooker.simulation.event.SingleBallEvent;
@@ -105,35 +108,40 @@ public class SamplingRandomEvaluator implements
 		for (BilliardBall.Type type : state.getPossibleOnBallTypes()) {
 			maxScore = Math.max(maxScore, type.getValue());
 		}
-		InTimeSimulation sim = new InTimeSimulation(state.getBalls(), state
+		InTimeSimulation sim = SimulationPool.acquire(state.getBalls(), state
 				.getTable());
-		sim.init(eventSet);
-		GameLogicHandler logicHandler;
-		shotOutcomeHandler = new PlannedShotOutcomeHandler();
-		CushionCollisionInterrupt cci = new CushionCollisionInterrupt(sim, 1);
-		BallCollisionInterrupt bci = new BallCollisionInterrupt(sim,
-				maxCollisions);
-		logicHandler = new GameLogicHandler(state);
-		sim.addEventHandler(logicHandler);
-		sim.addEventHandler(bci);
-		sim.addEventHandler(shotOutcomeHandler);
-		sim.addEventHandler(new AIHandler(sim, logicHandler));
-		sim.addEventHandler(cci);
-
-		sim.finish();
-
-		if (sim.isPaused()) {
-			// simulation has been aborted
-			score = -1;
-		} else {
-			logicHandler.evaluateEvents();
-
-			if (logicHandler.foulCommitted()) {
-				score = -((double) logicHandler.getFoulScore()) / 7f; 
-																		
+		try {
+			sim.init(eventSet);
+			GameLogicHandler logicHandler;
+			shotOutcomeHandler = new PlannedShotOutcomeHandler();
+			CushionCollisionInterrupt cci = new CushionCollisionInterrupt(sim, 1);
+			BallCollisionInterrupt bci = new BallCollisionInterrupt(sim,
+					maxCollisions);
+			logicHandler = new GameLogicHandler(state);
+			logicHandler.observe(sim);
+			sim.addEventHandler(bci, BallCollision.class);
+			sim.addEventHandler(shotOutcomeHandler, PocketingEvent.class);
+			sim.addEventHandler(new AIHandler(sim, logicHandler));
+			sim.addEventHandler(cci, BallCollision.class,
+					CushionCollision.class);
+
+			sim.finish();
+
+			if (sim.isPaused()) {
+				// simulation has been aborted
+				score = -1;
 			} else {
-				score = (logicHandler.getPottedScore()) / maxScore;
+				logicHandler.evaluateEvents();
+
+				if (logicHandler.foulCommitted()) {
+					score = -((double) logicHandler.getFoulScore()) / 7f; 
+																		
+				} else {
+					score = (logicHandler.getPottedScore()) / maxScore;
+				}
 			}
+		} finally {
+			SimulationPool.release(sim);
 		}
 		value = maxScore;
 		logger.log(Level.FINE, "Score was", score);
@@ -0,0 +1,192 @@
+package de.danielmescheder.snooker.control.ai.evaluator;
+
+/**
+ * The SequentialTest decides whether the mean value of the samples of a shot
+ * reaches a threshold while the samples are still being simulated, so that a
+ * sampling evaluator can stop as soon as the outcome is clear.
+ *
+ * The samples are added block by block and the test is asked for a decision
+ * after every block. The test passes or fails early when
+ * <ul>
+ * <li>the remaining samples cannot change the decision anymore, even if all of
+ * them take the smallest or largest possible value, or</li>
+ * <li>the samples so far are too unlikely if the true mean was on the other
+ * side of the threshold.</li>
+ * </ul>
+ * The first rule never changes the decision that all samples would have led
+ * to. The second one is wrong with a probability of at most the error rate of
+ * the test; the error rate is split over all decisions, so it holds no matter
+ * how often the test is asked.
+ *
+ * The second rule is a generalized likelihood ratio test. It uses the
+ * Chernoff-Hoeffding bound, which holds for any samples in a bounded range: the
+ * probability that n samples have a mean of q although the true mean is p is at
+ * most exp(-n KL(q, p)), with KL being the Kullback-Leibler divergence between
+ * Bernoulli distributions of the means scaled to [0, 1].
+ *
+ * A test keeps the state of the current evaluation, so every evaluator needs a
+ * test of its own.
+ *
+ */
+public class SequentialTest {
+	/**
+	 * The decision of a test
+	 */
+	public enum Decision {
+		PASSED, FAILED, UNDECIDED
+	}
+
+	private final double errorRate;
+	private final int minSamples;
+
+	private double min, max, threshold;
+	private int maxSamples;
+	private int looks;
+	private int count;
+	private double sum;
+
+	/**
+	 * Constructs a test that never stops early, so all samples are simulated
+	 */
+	public SequentialTest() {
+		this(0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Constructs a new SequentialTest
+	 *
+	 * @param errorRate
+	 *            the probability with which an early decision may be wrong; 0
+	 *            only stops when the decision is certain
+	 * @param minSamples
+	 *            the number of samples that are simulated before the first
+	 *            decision
+	 */
+	public SequentialTest(double errorRate, int minSamples) {
+		if (errorRate < 0 || errorRate >= 1) {
+			throw new IllegalArgumentException("Error rate " + errorRate
+					+ " out of range");
+		}
+		if (minSamples < 1) {
+			throw new IllegalArgumentException(
+					"At least one sample is needed");
+		}
+		this.errorRate = errorRate;
+		this.minSamples = minSamples;
+	}
+
+	/**
+	 * Starts a new evaluation
+	 *
+	 * @param min
+	 *            the smallest value a sample can take
+	 * @param max
+	 *            the largest value a sample can take
+	 * @param threshold
+	 *            the mean value the samples have to reach to pass
+	 * @param maxSamples
+	 *            the number of samples that are available
+	 */
+	public void start(double min, double max, double threshold, int maxSamples) {
+		this.min = min;
+		this.max = max;
+		this.threshold = threshold;
+		this.maxSamples = maxSamples;
+		looks = 0;
+		count = 0;
+		sum = 0;
+	}
+
+	/**
+	 * Adds the value of a sample
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void add(double value) {
+		count++;
+		sum += value;
+	}
+
+	/**
+	 * Decides on the samples so far
+	 *
+	 * @return the decision; {@link Decision#UNDECIDED} if more samples are
+	 *         needed
+	 */
+	public Decision decide() {
+		if (count == 0) {
+			return Decision.UNDECIDED;
+		}
+		if (count >= maxSamples) {
+			return getMean() >= threshold ? Decision.PASSED : Decision.FAILED;
+		}
+		if (count < minSamples) {
+			return Decision.UNDECIDED;
+		}
+
+		int remaining = maxSamples - count;
+		if (sum + remaining * min >= threshold * maxSamples) {
+			return Decision.PASSED;
+		}
+		if (sum + remaining * max < threshold * maxSamples) {
+			return Decision.FAILED;
+		}
+
+		double p = (threshold - min) / (max - min);
+		if (errorRate > 0 && p > 0 && p < 1) {
+			looks++;
+			// the k-th decision gets an error rate of errorRate / (k(k+1)), so
+			// all of them together stay below errorRate
+			double log = Math.log(looks * (looks + 1.0) / errorRate);
+			double q = (getMean() - min) / (max - min);
+			if (count * divergence(q, p) >= log) {
+				return q > p ? Decision.PASSED : Decision.FAILED;
+			}
+		}
+		return Decision.UNDECIDED;
+	}
+
+	/**
+	 * The Kullback-Leibler divergence between Bernoulli distributions with the
+	 * given means
+	 */
+	private static double divergence(double q, double p) {
+		q = Math.min(1, Math.max(0, q));
+		double d = 0;
+		if (q > 0) {
+			d += q * Math.log(q / p);
+		}
+		if (q < 1) {
+			d += (1 - q) * Math.log((1 - q) / (1 - p));
+		}
+		return d;
+	}
+
+	/**
+	 * Gets the number of samples that are simulated before the first decision
+	 *
+	 * @return the minimum number of samples
+	 */
+	public int getMinSamples() {
+		return minSamples;
+	}
+
+	/**
+	 * Gets the number of samples of the current evaluation
+	 *
+	 * @return the number of samples added since the start
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the mean value of the samples of the current evaluation
+	 *
+	 * @return the mean; 0 if there are no samples
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : sum / count;
+	}
+}
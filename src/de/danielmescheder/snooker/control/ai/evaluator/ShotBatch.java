@@ -0,0 +1,348 @@
+package de.danielmescheder.snooker.control.ai.evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.logic.GameLogicHandler;
+import de.danielmescheder.snooker.math.RandomStream;
+import de.danielmescheder.snooker.simulation.EventHandler;
+import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.event.BallCollision;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.Event;
+import de.danielmescheder.snooker.simulation.event.NoiseModel;
+import de.danielmescheder.snooker.simulation.event.NoiseSequence;
+import de.danielmescheder.snooker.simulation.event.PocketingEvent;
+
+/**
+ * The ShotBatch simulates a list of cue interactions that are all played in
+ * the same {@link GameState} and judges them by the rules of the game. This is
+ * the loop every sampling evaluator needs: initialize a simulation with the
+ * shot, attach a {@link GameLogicHandler}, stop the simulation once the shot
+ * is not worth following anymore and read the result.
+ *
+ * The shots are run by a {@link SamplingEngine}, so every worker simulates its
+ * share of the batch on a single pooled simulation and all simulations share
+ * the geometry of the table. The results are returned as {@link ShotOutcomes}
+ * in the order of the shots. With a {@link ShotCache}, only the shots whose
+ * outcome is not cached are simulated.
+ *
+ */
+public class ShotBatch {
+	/**
+	 * The default number of shots after which a sequential test looks at the
+	 * values again
+	 */
+	public static final int DEFAULT_LOOK_INTERVAL = 4;
+
+	private final SamplingEngine engine;
+	private int lookInterval = DEFAULT_LOOK_INTERVAL;
+	private boolean stopOnFoul = false;
+	private int maxCollisions = Integer.MAX_VALUE;
+	private int maxEventsWithoutPot = Integer.MAX_VALUE;
+	private ShotCache cache;
+
+	/**
+	 * A SampleValue reduces the outcome of a shot to the value a
+	 * {@link SequentialTest} decides on
+	 */
+	public interface SampleValue {
+		/**
+		 * Gets the value of a shot
+		 *
+		 * @param outcomes
+		 *            the outcomes of a block of shots
+		 * @param shot
+		 *            the index of the shot in the block
+		 * @return the value
+		 */
+		double valueOf(ShotOutcomes outcomes, int shot);
+	}
+
+	/**
+	 * Records the outcome of a single shot and stops its simulation when a
+	 * limit of the batch is reached
+	 */
+	private class Recorder implements EventHandler {
+		private final Simulation sim;
+		private final GameLogicHandler logicHandler;
+		private final ShotOutcomes outcomes;
+		private final int shot;
+		private int collisionCount;
+
+		public Recorder(Simulation sim, GameLogicHandler logicHandler,
+				ShotOutcomes outcomes, int shot) {
+			this.sim = sim;
+			this.logicHandler = logicHandler;
+			this.outcomes = outcomes;
+			this.shot = shot;
+		}
+
+		@Override
+		public void handle(Event e) {
+			outcomes.events[shot]++;
+			if (e instanceof BallCollision) {
+				if (collisionCount == 0) {
+					for (BilliardBall b : e.getBallKeys()) {
+						if (b.getType() != BilliardBall.Type.CUE) {
+							outcomes.firstContact[shot] = b.getID();
+							break;
+						}
+					}
+				}
+				collisionCount++;
+			} else if (e instanceof PocketingEvent) {
+				for (BilliardBall b : e.getBallKeys()) {
+					outcomes.potted[shot] |= 1L << b.getID();
+				}
+			}
+
+			if ((stopOnFoul && logicHandler.foulCommitted())
+					|| collisionCount > maxCollisions
+					|| (outcomes.events[shot] > maxEventsWithoutPot
+							&& logicHandler.getPottedScore() == 0)) {
+				sim.pause();
+			}
+		}
+	}
+
+	/**
+	 * Constructs a new ShotBatch that runs its shots on an engine of its own
+	 */
+	public ShotBatch() {
+		this(new SamplingEngine());
+	}
+
+	/**
+	 * Constructs a new ShotBatch
+	 *
+	 * @param engine
+	 *            the engine that runs the shots
+	 */
+	public ShotBatch(SamplingEngine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Sets whether the simulation of a shot is stopped as soon as a foul has
+	 * been committed
+	 *
+	 * @param stopOnFoul
+	 *            true to stop at a foul
+	 */
+	public void setStopOnFoul(boolean stopOnFoul) {
+		this.stopOnFoul = stopOnFoul;
+	}
+
+	/**
+	 * Sets the number of ball collisions after which the simulation of a shot
+	 * is stopped
+	 *
+	 * @param maxCollisions
+	 *            the maximum number of ball collisions
+	 */
+	public void setMaxCollisions(int maxCollisions) {
+		this.maxCollisions = maxCollisions;
+	}
+
+	/**
+	 * Sets the number of events after which the simulation of a shot is
+	 * stopped if it has not scored by potting a ball yet. A shot that has
+	 * scored is followed to its end.
+	 *
+	 * @param maxEventsWithoutPot
+	 *            the maximum number of events of a shot that has not scored
+	 */
+	public void setMaxEventsWithoutPot(int maxEventsWithoutPot) {
+		this.maxEventsWithoutPot = maxEventsWithoutPot;
+	}
+
+	/**
+	 * Sets the maximum number of shots that are simulated at the same time
+	 *
+	 * @param maxParallelism
+	 *            the maximum number of workers
+	 */
+	public void setMaxParallelism(int maxParallelism) {
+		engine.setMaxParallelism(maxParallelism);
+	}
+
+	/**
+	 * Sets the number of shots after which a sequential test looks at the
+	 * values again. The looks do not depend on the number of shots that are
+	 * simulated at the same time, so the decision of a test is the same on
+	 * every machine.
+	 *
+	 * @param lookInterval
+	 *            the number of shots between two looks
+	 */
+	public void setLookInterval(int lookInterval) {
+		if (lookInterval < 1) {
+			throw new IllegalArgumentException("Look interval " + lookInterval
+					+ " out of range");
+		}
+		this.lookInterval = lookInterval;
+	}
+
+	/**
+	 * Sets the cache that is consulted before a shot is simulated
+	 *
+	 * @param cache
+	 *            the cache; null to simulate every shot
+	 */
+	public void setCache(ShotCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Gets the maximum number of shots that are simulated at the same time
+	 *
+	 * @return the maximum number of workers
+	 */
+	public int getMaxParallelism() {
+		return engine.getMaxParallelism();
+	}
+
+	/**
+	 * Creates the noisy samples of a shot
+	 *
+	 * @param shot
+	 *            the shot as it is meant to be played
+	 * @param count
+	 *            the number of samples
+	 * @param noise
+	 *            the deviations of the noise
+	 * @param sequence
+	 *            the sequence of noise draws, of which sample i gets draw i;
+	 *            null to draw the noise of every sample from the stream
+	 * @param random
+	 *            the stream the noise is drawn from without a sequence
+	 * @return the samples
+	 */
+	public static List<CueInteraction> samples(CueInteraction shot,
+			int count, NoiseModel noise, NoiseSequence sequence,
+			RandomStream random) {
+		List<CueInteraction> samples = new ArrayList<CueInteraction>(count);
+		for (int i = 0; i < count; i++) {
+			if (sequence != null) {
+				samples.add(shot.toNoisyCueInteraction(noise, sequence, i));
+			} else {
+				samples.add(shot.toNoisyCueInteraction(noise, random));
+			}
+		}
+		return samples;
+	}
+
+	/**
+	 * Simulates all shots in the given state
+	 *
+	 * @param state
+	 *            the state in which the shots are played
+	 * @param shots
+	 *            the shots
+	 * @return the outcomes in the order of the shots
+	 */
+	public ShotOutcomes run(final GameState state,
+			List<? extends CueInteraction> shots) {
+		for (BilliardBall b : state.getBalls()) {
+			if (b.getID() < 0 || b.getID() >= Long.SIZE) {
+				throw new IllegalArgumentException("Ball ID " + b.getID()
+						+ " out of range for a batch");
+			}
+		}
+
+		final ShotOutcomes outcomes = new ShotOutcomes(shots.size());
+		List<? extends CueInteraction> uncached = shots;
+		ShotCache.Key[] keys = null;
+		final int[] index = new int[shots.size()];
+		if (cache == null) {
+			for (int i = 0; i < index.length; i++) {
+				index[i] = i;
+			}
+		} else {
+			ShotCache.Position position = ShotCache.position(state,
+					stopOnFoul ? 1 : 0, maxCollisions, maxEventsWithoutPot);
+			List<CueInteraction> misses = new ArrayList<CueInteraction>();
+			keys = new ShotCache.Key[shots.size()];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = ShotCache.key(position, shots.get(i));
+				if (!cache.get(keys[i], outcomes, i)) {
+					index[misses.size()] = i;
+					misses.add(shots.get(i));
+				}
+			}
+			uncached = misses;
+			if (uncached.isEmpty()) {
+				return outcomes;
+			}
+		}
+
+		engine.run(state, uncached, new SamplingEngine.SampleTask<Void>() {
+			public Void simulate(Simulation sim, CueInteraction ci, int j) {
+				int i = index[j];
+				sim.init(Collections.singleton(ci));
+				GameLogicHandler logicHandler = new GameLogicHandler(state);
+				sim.removeHandlers();
+				logicHandler.observe(sim);
+				outcomes.firstContact[i] = ShotOutcomes.NO_CONTACT;
+				sim.addEventHandler(new Recorder(sim, logicHandler, outcomes, i));
+
+				sim.finish();
+
+				logicHandler.evaluateEvents();
+				outcomes.aborted[i] = sim.isPaused();
+				outcomes.foul[i] = logicHandler.foulCommitted();
+				outcomes.pottedScore[i] = logicHandler.getPottedScore();
+				outcomes.foulScore[i] = logicHandler.getFoulScore();
+
+				BilliardBall cueBall = (BilliardBall) ci.getBall().clone();
+				sim.getBall(cueBall);
+				outcomes.cueBallX[i] = cueBall.getPosition().x;
+				outcomes.cueBallY[i] = cueBall.getPosition().y;
+				return null;
+			}
+		});
+
+		if (cache != null) {
+			for (int j = 0; j < uncached.size(); j++) {
+				cache.put(keys[index[j]], outcomes, index[j]);
+			}
+		}
+		return outcomes;
+	}
+
+	/**
+	 * Simulates the shots block by block until the test is decided or all
+	 * shots are used. The first block holds the minimum number of samples of
+	 * the test, every further block the shots of one look interval. The shots
+	 * of a block are simulated at the same time. The test has to be started by
+	 * the caller and holds the result afterwards.
+	 *
+	 * @param state
+	 *            the state in which the shots are played
+	 * @param shots
+	 *            the shots
+	 * @param test
+	 *            the test that decides on the values of the shots
+	 * @param value
+	 *            the value of a shot
+	 */
+	public void run(GameState state, List<? extends CueInteraction> shots,
+			SequentialTest test, SampleValue value) {
+		int from = 0;
+		while (from < shots.size()
+				&& test.decide() == SequentialTest.Decision.UNDECIDED) {
+			int size = from == 0 ? Math.max(lookInterval, test.getMinSamples())
+					: lookInterval;
+			int to = (int) Math.min(shots.size(), (long) from + size);
+			ShotOutcomes outcomes = run(state, shots.subList(from, to));
+			for (int i = 0; i < outcomes.size(); i++) {
+				test.add(value.valueOf(outcomes, i));
+			}
+			from = to;
+		}
+	}
+}
@@ -0,0 +1,337 @@
+package de.danielmescheder.snooker.control.ai.evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+
+/**
+ * The ShotCache remembers the outcomes of simulated shots, so that a shot that
+ * is evaluated again in the same position does not have to be simulated
+ * again. This happens a lot during a turn: the candidates of a pocket differ
+ * only slightly, the depth check looks at the same follow-up shots from
+ * similar positions and, with a common noise sequence, every repeated shot
+ * gets exactly the same samples.
+ *
+ * A shot is identified by its position and its cue parameters, both rounded
+ * to a fixed resolution. The resolution is far below the noise of a shot, so
+ * two shots that share an entry can be regarded as the same shot. The
+ * position also holds the balls that are on, since they decide on fouls and
+ * scores, and the limits of the {@link ShotBatch} that simulated the shot.
+ *
+ * The cache holds a bounded number of outcomes and evicts the least recently
+ * used one when it is full. A cache may be shared by evaluators and threads.
+ *
+ */
+public class ShotCache {
+	// the resolution of positions in meters, of angles in radians, of the cue
+	// tip offsets and of the velocity
+	private static final float POSITION_QUANTUM = 1e-5f;
+	private static final float ANGLE_QUANTUM = 1e-6f;
+	private static final float OFFSET_QUANTUM = 1e-6f;
+	private static final float VELOCITY_QUANTUM = 1e-5f;
+
+	private static final Comparator<BilliardBall> byID = new Comparator<BilliardBall>() {
+		public int compare(BilliardBall b1, BilliardBall b2) {
+			return b1.getID() < b2.getID() ? -1 : (b1.getID() == b2.getID() ? 0
+					: 1);
+		}
+	};
+
+	private final int capacity;
+	private final Map<Key, Outcome> entries;
+	private long hits, misses, evictions;
+
+	/**
+	 * The rounded position a batch of shots is played in
+	 */
+	static class Position {
+		private final long[] values;
+		private final int hash;
+
+		private Position(long[] values) {
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Position)) {
+				return false;
+			}
+			Position p = (Position) o;
+			return hash == p.hash && Arrays.equals(values, p.values);
+		}
+	}
+
+	/**
+	 * A rounded shot in a rounded position
+	 */
+	static class Key {
+		private final Position position;
+		private final long[] shot;
+		private final int hash;
+
+		private Key(Position position, long[] shot) {
+			this.position = position;
+			this.shot = shot;
+			this.hash = 31 * position.hashCode() + Arrays.hashCode(shot);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return hash == k.hash && Arrays.equals(shot, k.shot)
+					&& position.equals(k.position);
+		}
+	}
+
+	/**
+	 * The outcome of a single shot, as a row of {@link ShotOutcomes}
+	 */
+	private static class Outcome {
+		private final long potted;
+		private final int firstContact;
+		private final boolean foul;
+		private final int pottedScore;
+		private final int foulScore;
+		private final boolean aborted;
+		private final float cueBallX, cueBallY;
+		private final int events;
+
+		private Outcome(ShotOutcomes outcomes, int shot) {
+			potted = outcomes.potted[shot];
+			firstContact = outcomes.firstContact[shot];
+			foul = outcomes.foul[shot];
+			pottedScore = outcomes.pottedScore[shot];
+			foulScore = outcomes.foulScore[shot];
+			aborted = outcomes.aborted[shot];
+			cueBallX = outcomes.cueBallX[shot];
+			cueBallY = outcomes.cueBallY[shot];
+			events = outcomes.events[shot];
+		}
+
+		private void copyTo(ShotOutcomes outcomes, int shot) {
+			outcomes.potted[shot] = potted;
+			outcomes.firstContact[shot] = firstContact;
+			outcomes.foul[shot] = foul;
+			outcomes.pottedScore[shot] = pottedScore;
+			outcomes.foulScore[shot] = foulScore;
+			outcomes.aborted[shot] = aborted;
+			outcomes.cueBallX[shot] = cueBallX;
+			outcomes.cueBallY[shot] = cueBallY;
+			outcomes.events[shot] = events;
+		}
+	}
+
+	/**
+	 * Constructs a new ShotCache
+	 *
+	 * @param capacity
+	 *            the maximum number of outcomes that are remembered
+	 */
+	public ShotCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1");
+		}
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Key, Outcome>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Outcome> eldest) {
+				if (size() > ShotCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Rounds the position of a batch of shots
+	 *
+	 * @param state
+	 *            the state the shots are played in
+	 * @param limits
+	 *            the limits of the batch that simulates the shots
+	 * @return the rounded position
+	 */
+	static Position position(GameState state, long... limits) {
+		List<BilliardBall> balls = new ArrayList<BilliardBall>(state.getBalls());
+		Collections.sort(balls, byID);
+
+		long[] values = new long[1 + limits.length + 4 * balls.size()];
+		int i = 0;
+		for (BilliardBall.Type type : state.getPossibleOnBallTypes()) {
+			values[i] |= 1L << type.ordinal();
+		}
+		i++;
+		for (long limit : limits) {
+			values[i++] = limit;
+		}
+		for (BilliardBall b : balls) {
+			values[i++] = b.getID();
+			values[i++] = b.getState().ordinal();
+			values[i++] = round(b.getPosition().x, POSITION_QUANTUM);
+			values[i++] = round(b.getPosition().y, POSITION_QUANTUM);
+		}
+		return new Position(values);
+	}
+
+	/**
+	 * Rounds a shot
+	 *
+	 * @param position
+	 *            the rounded position the shot is played in
+	 * @param ci
+	 *            the shot
+	 * @return the key of the shot
+	 */
+	static Key key(Position position, CueInteraction ci) {
+		return new Key(position, new long[] { ci.getBall().getID(),
+				Float.floatToIntBits(ci.getTime()),
+				round(ci.getAngDest(), ANGLE_QUANTUM),
+				round(ci.getAngElev(), ANGLE_QUANTUM),
+				round(ci.getTransX(), OFFSET_QUANTUM),
+				round(ci.getTransY(), OFFSET_QUANTUM),
+				round(ci.getVelocity(), VELOCITY_QUANTUM) });
+	}
+
+	private static long round(float value, float quantum) {
+		return Math.round((double) value / quantum);
+	}
+
+	/**
+	 * Looks up the outcome of a shot
+	 *
+	 * @param key
+	 *            the key of the shot
+	 * @param outcomes
+	 *            the outcomes the cached outcome is copied to
+	 * @param shot
+	 *            the index of the shot in the outcomes
+	 * @return true if the outcome was cached
+	 */
+	synchronized boolean get(Key key, ShotOutcomes outcomes, int shot) {
+		Outcome outcome = entries.get(key);
+		if (outcome == null) {
+			misses++;
+			return false;
+		}
+		hits++;
+		outcome.copyTo(outcomes, shot);
+		return true;
+	}
+
+	/**
+	 * Remembers the outcome of a shot
+	 *
+	 * @param key
+	 *            the key of the shot
+	 * @param outcomes
+	 *            the outcomes the outcome is taken from
+	 * @param shot
+	 *            the index of the shot in the outcomes
+	 */
+	synchronized void put(Key key, ShotOutcomes outcomes, int shot) {
+		entries.put(key, new Outcome(outcomes, shot));
+	}
+
+	/**
+	 * Forgets all outcomes. The counters are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Gets the number of outcomes that are remembered
+	 *
+	 * @return the size of the cache
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the maximum number of outcomes that are remembered
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of shots whose outcome was found in the cache
+	 *
+	 * @return the number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of shots whose outcome was not found in the cache
+	 *
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of outcomes that were forgotten because the cache was
+	 * full
+	 *
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the share of the lookups that were hits
+	 *
+	 * @return the hit rate; 0 if nothing was looked up yet
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ShotCache: " + entries.size() + "/" + capacity + " entries, "
+				+ hits + " hits, " + misses + " misses, " + evictions
+				+ " evictions";
+	}
+}
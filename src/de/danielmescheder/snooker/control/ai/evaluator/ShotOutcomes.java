@@ -0,0 +1,184 @@
+package de.danielmescheder.snooker.control.ai.evaluator;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+
+/**
+ * The ShotOutcomes are the results of a batch of shots simulated by a
+ * {@link ShotBatch}. Every property is kept in an array that is indexed by the
+ * position of the shot in the batch, so that an evaluator can reduce a batch
+ * without walking through an object per shot.
+ *
+ * The potted balls of a shot are kept as a bit set of the ball IDs, so IDs
+ * have to be smaller than 64.
+ *
+ */
+public class ShotOutcomes {
+	/**
+	 * The first contact of a shot in which the cue ball did not hit any ball
+	 */
+	public static final int NO_CONTACT = -1;
+
+	final long[] potted;
+	final int[] firstContact;
+	final boolean[] foul;
+	final int[] pottedScore;
+	final int[] foulScore;
+	final boolean[] aborted;
+	final float[] cueBallX;
+	final float[] cueBallY;
+	final int[] events;
+
+	/**
+	 * Constructs empty outcomes for the given number of shots
+	 *
+	 * @param size
+	 *            the number of shots
+	 */
+	ShotOutcomes(int size) {
+		potted = new long[size];
+		firstContact = new int[size];
+		foul = new boolean[size];
+		pottedScore = new int[size];
+		foulScore = new int[size];
+		aborted = new boolean[size];
+		cueBallX = new float[size];
+		cueBallY = new float[size];
+		events = new int[size];
+	}
+
+	/**
+	 * Gets the number of shots
+	 *
+	 * @return the number of shots
+	 */
+	public int size() {
+		return potted.length;
+	}
+
+	/**
+	 * Checks whether a ball was potted by a shot
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @param ball
+	 *            the ball
+	 * @return true if the ball was potted
+	 */
+	public boolean isPotted(int shot, BilliardBall ball) {
+		return (potted[shot] & (1L << ball.getID())) != 0;
+	}
+
+	/**
+	 * Gets the balls that were potted by a shot
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @param balls
+	 *            the balls the shot was played with
+	 * @return those of the balls that were potted
+	 */
+	public Set<BilliardBall> getPottedBalls(int shot,
+			Collection<BilliardBall> balls) {
+		Set<BilliardBall> result = new HashSet<BilliardBall>();
+		for (BilliardBall b : balls) {
+			if (isPotted(shot, b)) {
+				result.add(b);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the ball the cue ball hit first
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @return the ID of the ball; {@link #NO_CONTACT} if the cue ball did not
+	 *         hit any ball
+	 */
+	public int getFirstContact(int shot) {
+		return firstContact[shot];
+	}
+
+	/**
+	 * Checks whether a shot was a foul
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @return true if a foul was committed
+	 */
+	public boolean isFoul(int shot) {
+		return foul[shot];
+	}
+
+	/**
+	 * Gets the score of the balls that were legally potted by a shot
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @return the score; 0 if the shot was a foul
+	 */
+	public int getPottedScore(int shot) {
+		return pottedScore[shot];
+	}
+
+	/**
+	 * Gets the score the opponent gets for a shot
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @return the foul score; 0 if the shot was not a foul
+	 */
+	public int getFoulScore(int shot) {
+		return foulScore[shot];
+	}
+
+	/**
+	 * Checks whether the simulation of a shot was stopped before all balls
+	 * came to rest, because one of the limits of the batch was reached
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @return true if the shot was aborted
+	 */
+	public boolean isAborted(int shot) {
+		return aborted[shot];
+	}
+
+	/**
+	 * Gets the x coordinate of the cue ball at the end of a shot
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @return the x coordinate
+	 */
+	public float getCueBallX(int shot) {
+		return cueBallX[shot];
+	}
+
+	/**
+	 * Gets the y coordinate of the cue ball at the end of a shot
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @return the y coordinate
+	 */
+	public float getCueBallY(int shot) {
+		return cueBallY[shot];
+	}
+
+	/**
+	 * Gets the number of events that were handled while a shot was simulated
+	 *
+	 * @param shot
+	 *            the index of the shot
+	 * @return the number of events
+	 */
+	public int getEventCount(int shot) {
+		return events[shot];
+	}
+}
@@ -1,16 +1,13 @@
 package de.danielmescheder.snooker.control.ai.evaluator;
 
-import java.util.HashSet;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.danielmescheder.snooker.control.ai.EventEvaluator;
 import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.gameflow.GameState;
-import de.danielmescheder.snooker.logic.GameLogicHandler;
-import de.danielmescheder.snooker.simulation.EventHandler;
-import de.danielmescheder.snooker.simulation.InTimeSimulation;
-import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
 import de.danielmescheder.snooker.simulation.event.Event;
 
@@ -20,39 +17,24 @@ import de.danielmescheder.snooker.simulation.event.Event;
  * event. Then the probability of success can be accessed.
  * 
  */
-public class SimpleSamplingEvaluator implements
-		EventEvaluator<CueInteraction, Event> {
+public class SimpleSamplingEvaluator extends
+		BatchSamplingEvaluator<Event> {
 	private static final Logger logger = Logger
 			.getLogger(SimpleSamplingEvaluator.class.getName());
 
 	private double criticalScore = 0.5;
 	private double score;
-	private double samples = 10;
 	private double value;
+	private SequentialTest test = new SequentialTest();
 
 	public SimpleSamplingEvaluator(int samples) {
-		this.samples = samples;
+		this(samples, new RandomStream());
 	}
 
-	class AIHandler implements EventHandler {
-		private Simulation sim;
-		private GameLogicHandler logicHandler;
-		private int eventCount;
-
-		public AIHandler(Simulation sim, GameLogicHandler logicHandler) {
-			this.sim = sim;
-			this.logicHandler = logicHandler;
-			eventCount = 0;
-		}
-
-		@Override
-		public void handle(Event e) {
-			eventCount++;
-			if ((eventCount > 10000 && logicHandler.getPottedScore() == 0)
-					|| logicHandler.foulCommitted()) {
-				sim.pause();
-			}
-		}
+	public SimpleSamplingEvaluator(int samples, RandomStream random) {
+		super(samples, random);
+		batch.setStopOnFoul(true);
+		batch.setMaxEventsWithoutPot(10000);
 	}
 
 	@Override
@@ -61,7 +43,9 @@ public class SimpleSamplingEvaluator implements
 	}
 
 	/**
-	 * Any goal event will do - we only consider the score!
+	 * Any goal event will do - we only consider the score! The critical score
+	 * is only used by a {@link SequentialTest} to stop sampling early; the
+	 * event is always accepted.
 	 * 
 	 * @see de.danielmescheder.snooker.control.ai.EventEvaluator#evaluate(de.danielmescheder.snooker.simulation.event.Event,
 	 *      de.danielmescheder.snooker.simulation.event.Event,
@@ -76,40 +60,47 @@ public class SimpleSamplingEvaluator implements
 		for (BilliardBall.Type type : state.getPossibleOnBallTypes()) {
 			maxScore = Math.max(maxScore, type.getValue());
 		}
-		double totalScore = 0;
-		for (int i = 0; i < samples; i++) {
-
-			HashSet<Event> eventSet = new HashSet<Event>();
-			eventSet.add(event.toNoisyCueInteraction());
-			InTimeSimulation sim = new InTimeSimulation(state.getBalls(), state
-					.getTable());
-			sim.init(eventSet);
-			GameLogicHandler logicHandler;
-
-			logicHandler = new GameLogicHandler(state);
-			sim.addEventHandler(logicHandler);
-			sim.addEventHandler(new AIHandler(sim, logicHandler));
-			sim.finish();
-
-			if (sim.isPaused()) {
-				// simulation has been aborted
-			} else {
-				logicHandler.evaluateEvents();
-
-				if (logicHandler.foulCommitted()) {
-				} else {
-					if ((double) logicHandler.getPottedScore() > 0)
-						totalScore += 1;
+		List<CueInteraction> noisySamples = samples(event);
+
+		test.start(0, 1, criticalScore, noisySamples.size());
+		batch.run(state, noisySamples, test, new ShotBatch.SampleValue() {
+			public double valueOf(ShotOutcomes outcomes, int i) {
+				// aborted shots do not count
+				if (!outcomes.isAborted(i) && !outcomes.isFoul(i)
+						&& outcomes.getPottedScore(i) > 0) {
+					return 1;
 				}
+				return 0;
 			}
-		}
+		});
 		value = maxScore;
-		score = (totalScore / samples);
-		logger.log(Level.FINE, "Sampling a shot. Score: " + score);
+		score = test.getMean();
+		logger.log(Level.FINE, "Sampling a shot. Score: " + score + " from "
+				+ test.getCount() + " samples");
 
 		return (true);
 	}
 
+	/**
+	 * Sets the test that decides when enough samples have been simulated. The
+	 * default test simulates all samples.
+	 * 
+	 * @param test
+	 *            the test; it must not be shared with other evaluators
+	 */
+	public void setSequentialTest(SequentialTest test) {
+		this.test = test;
+	}
+
+	/**
+	 * Gets the number of samples that were simulated in the last evaluation
+	 * 
+	 * @return the number of samples used
+	 */
+	public int getSamplesUsed() {
+		return test.getCount();
+	}
+
 	@Override
 	public double getScore() {
 		return score;
@@ -12,6 +12,7 @@ import de.danielmescheder.snooker.logic.GameLogicHandler;
 import de.danielmescheder.snooker.simulation.EventHandler;
 import de.danielmescheder.snooker.simulation.InTimeSimulation;
 import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.SimulationPool;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.event.PocketingEvent;
@@ -96,29 +97,33 @@ public class SimpleScoreEvaluator implements
 
 		double maxScore = 0;
 		maxScore = state.getMaxScore();
-		InTimeSimulation sim = new InTimeSimulation(state.getBalls(), state
+		InTimeSimulation sim = SimulationPool.acquire(state.getBalls(), state
 				.getTable());
-		sim.init(eventSet);
-		GameLogicHandler logicHandler;
-		shotOutcomeHandler = new PlannedShotOutcomeHandler();
-		logicHandler = new GameLogicHandler(state);
-		sim.addEventHandler(logicHandler);
-		sim.addEventHandler(shotOutcomeHandler);
-		sim.addEventHandler(new AIHandler(sim, logicHandler));
-
-		sim.finish();
-
-		if (sim.isPaused()) {
-			// simulation has been aborted
-			score = -1;
-		} else {
-			logicHandler.evaluateEvents();
-
-			if (logicHandler.foulCommitted()) {
-				score = -((double) logicHandler.getFoulScore()) / 7f; 
+		try {
+			sim.init(eventSet);
+			GameLogicHandler logicHandler;
+			shotOutcomeHandler = new PlannedShotOutcomeHandler();
+			logicHandler = new GameLogicHandler(state);
+			logicHandler.observe(sim);
+			sim.addEventHandler(shotOutcomeHandler, PocketingEvent.class);
+			sim.addEventHandler(new AIHandler(sim, logicHandler));
+
+			sim.finish();
+
+			if (sim.isPaused()) {
+				// simulation has been aborted
+				score = -1;
 			} else {
-				score = (logicHandler.getPottedScore()) / maxScore;
+				logicHandler.evaluateEvents();
+
+				if (logicHandler.foulCommitted()) {
+					score = -((double) logicHandler.getFoulScore()) / 7f; 
+				} else {
+					score = (logicHandler.getPottedScore()) / maxScore;
+				}
 			}
+		} finally {
+			SimulationPool.release(sim);
 		}
 		value = maxScore;
 		logger.log(Level.FINE, "Score was", score);
@@ -28,7 +28,7 @@ public class DirectCueGenerator implements
 	private static final Logger logger = Logger
 			.getLogger(DirectCueGenerator.class.getName());
 
-	private static BairstowSolver solver = new BairstowSolver(null);
+	private BairstowSolver solver = new BairstowSolver(null);
 	private EventGenerator<SetValuesEvent, PocketingEvent> ballStateGenerator;
 	private EventEvaluator<SetValuesEvent, PocketingEvent> ballStateEvaluator;
 	private PocketingEvent currTarget;
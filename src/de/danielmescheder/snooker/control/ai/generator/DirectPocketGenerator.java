@@ -1,7 +1,6 @@
 package de.danielmescheder.snooker.control.ai.generator;
 
 import java.util.Iterator;
-import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,6 +12,7 @@ import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.Pocket;
 import de.danielmescheder.snooker.domain.Ball.BallState;
 import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.simulation.event.PocketingEvent;
 import de.danielmescheder.snooker.simulation.event.SetValuesEvent;
 import de.danielmescheder.snooker.simulation.physics.Physics;
@@ -27,7 +27,7 @@ public class DirectPocketGenerator implements
 		EventGenerator<SetValuesEvent, PocketingEvent> {
 	private static final Logger logger = Logger
 			.getLogger(DirectPocketGenerator.class.getName());
-	private static Random random = new Random();
+	private RandomStream random;
 	private Iterator<Pocket> pocketIterator;
 	private Iterator<BilliardBall> ballIterator;
 	private GameState state;
@@ -38,7 +38,20 @@ public class DirectPocketGenerator implements
 	private int variationsPerPocket;
 
 	public DirectPocketGenerator(int variations) {
+		this(variations, new RandomStream());
+	}
+
+	/**
+	 * Constructs a new DirectPocketGenerator
+	 * 
+	 * @param variations
+	 *            the number of aiming points per pocket
+	 * @param random
+	 *            the stream the aiming points and velocities are drawn from
+	 */
+	public DirectPocketGenerator(int variations, RandomStream random) {
 		variationsPerPocket = variations;
+		this.random = random;
 	}
 
 	@Override
@@ -73,7 +86,7 @@ public class DirectPocketGenerator implements
 			Vector3f varVec = new Vector3f(currentPocket.getOrientation().y,
 					-currentPocket.getOrientation().x, 0);
 
-			aimingPoint = aimingPoint.add(varVec.mult(.5f*currentPocket.getRadius()* random.nextFloat()));
+			aimingPoint = aimingPoint.add(varVec.mult(.5f*(currentPocket.getOuterRadius() - currentBall.getRadius())* random.nextFloat()));
 		
 
 		Vector3f dist = aimingPoint.subtract(currentBall.getPosition());
@@ -7,6 +7,7 @@ import com.jme.math.FastMath;
 
 import de.danielmescheder.snooker.control.ai.EventGenerator;
 import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
 import de.danielmescheder.snooker.simulation.event.Event;
 
@@ -20,15 +21,31 @@ public class RandomCueInteractionGenerator implements
 	private static final Logger logger = Logger
 			.getLogger(RandomCueInteractionGenerator.class.getName());
 
+	private RandomStream random;
+
+	public RandomCueInteractionGenerator() {
+		this(new RandomStream());
+	}
+
+	/**
+	 * Constructs a new RandomCueInteractionGenerator
+	 * 
+	 * @param random
+	 *            the stream the interactions are drawn from
+	 */
+	public RandomCueInteractionGenerator(RandomStream random) {
+		this.random = random;
+	}
+
 	@Override
 	public CueInteraction generate(GameState state) {
 		logger.log(Level.INFO, "Generating next event");
 
-		float angDest = FastMath.rand.nextFloat() * 2 * FastMath.PI;
+		float angDest = random.nextFloat() * 2 * FastMath.PI;
 		float angElev = 0;
 		float transX = 0;
 		float transY = 0;
-		float velocity = FastMath.rand.nextFloat() * 5f + .05f;
+		float velocity = random.nextFloat() * 5f + .05f;
 
 		return new CueInteraction(0, state.getCurrentPlayer().getCue(), state
 				.getCueBall(), angDest, angElev, transX, transY, velocity);
@@ -5,11 +5,12 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.danielmescheder.snooker.control.ai.PlanningSamplingAI;
+import de.danielmescheder.snooker.control.ai.evaluator.CandidatePipeline;
 import de.danielmescheder.snooker.control.ai.evaluator.CueInteractionToPocketEvaluator;
-import de.danielmescheder.snooker.control.ai.evaluator.DepthSamplingEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.DirectPocketingEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.SafetyShotEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.SamplingRandomEvaluator;
+import de.danielmescheder.snooker.control.ai.evaluator.SequentialTest;
 import de.danielmescheder.snooker.control.ai.evaluator.SimpleSamplingEvaluator;
 import de.danielmescheder.snooker.control.ai.evaluator.SimpleScoreEvaluator;
 import de.danielmescheder.snooker.control.ai.generator.DirectCueGenerator;
@@ -22,6 +23,7 @@ import de.danielmescheder.snooker.gameflow.phases.SimulationPhase;
 import de.danielmescheder.snooker.presentation.SnookerTable3D;
 import de.danielmescheder.snooker.presentation.TablePresentation;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.NoiseSequence;
 import de.danielmescheder.snooker.simulation.event.PocketingEvent;
 import de.danielmescheder.snooker.testing.TestDataCollector;
 
@@ -49,61 +51,39 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 
 	@Override
 	protected void handleSimulation(SimulationPhase phase) {
+		if (presentation == null) {
+			return;
+		}
 		presentation.setGameControl(new SimulationControl(presentation, phase,
 				state, collector));
 	}
 
 	@Override
 	protected void handleAiming(AimingPhase phase) {
+		if (timeBudget > 0) {
+			handleAimingAnytime(phase);
+			return;
+		}
 		toggleMarkings();
 
 		if (state.getBalls().size() == 1) {
 			handleAimingFallbackOneBall(phase);
 		}
-		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(4);
-		DirectPocketingEvaluator pocketingEvaluator = new DirectPocketingEvaluator();
-		DirectCueGenerator ciGenerator = new DirectCueGenerator(
-				pocketingGenerator, pocketingEvaluator);
-
-		DirectPocketGenerator secondLevelPocketGenerator = new DirectPocketGenerator(
-				2);
-		DirectCueGenerator secondLevelCueGenerator = new DirectCueGenerator(
-				secondLevelPocketGenerator, pocketingEvaluator);
-		CueInteractionToPocketEvaluator secondLevelEvaluator = new CueInteractionToPocketEvaluator(
-				3);
-		DepthSamplingEvaluator finalEvaluator = new DepthSamplingEvaluator(10,
-				secondLevelCueGenerator, secondLevelEvaluator, 25);
-
-		finalEvaluator.setCriticalScore(.2f);
-		secondLevelEvaluator.setCriticalScore(0f);
-		pocketingEvaluator.setCriticalScore(.5f);
-
 		long before = System.currentTimeMillis();
-		int count = 0;
-		cueStrike = null;
-		maxEvent = null;
-		PocketingEvent maxTarget = null;
-		double maxScore = -1;
-
-		do {
-			count++;
-			cueStrike = ciGenerator.generate(state);
-			if (cueStrike == null) {
-				handleAimingFallbackPhaseTwo(phase);
-				return;
+		CandidatePipeline pipeline = searchAimingShot(new CandidatePipeline.Listener() {
+			public void evaluated(CueInteraction shot, PocketingEvent target,
+					boolean passed, double score) {
+				enableAimLine(100, shot);
+				logger.log(Level.INFO, "Trying event in order to pocket "
+						+ target, shot);
 			}
-			if (finalEvaluator.evaluate(cueStrike, ciGenerator.getTarget(),
-					state)) {
-				if (finalEvaluator.getScore() > maxScore) {
-					maxScore = finalEvaluator.getScore();
-					maxEvent = cueStrike;
-					maxTarget = ciGenerator.getTarget();
-				}
-			}
-			enableAimLine(100, cueStrike);
-			logger.log(Level.INFO, "Trying event in order to pocket "
-					+ ciGenerator.getTarget(), cueStrike);
-		} while (maxScore < 1 && (count < 60));
+		});
+		PocketingEvent maxTarget = pipeline.getTarget();
+		int count = pipeline.getCount();
+		if (pipeline.isExhausted()) {
+			handleAimingFallbackPhaseTwo(phase);
+			return;
+		}
 		if (maxEvent == null) {
 			handleAimingFallbackPhaseOne(phase);
 			return;
@@ -112,6 +92,7 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 		float time = (System.currentTimeMillis() - before) / 1000f;
 		logger.log(Level.FINE, "Generated " + count + " shots in " + time
 				+ "s : " + count / time + " shots/s");
+		logger.log(Level.FINE, shotCache.toString());
 
 		phase.setAngDest(maxEvent.getAngDest());
 		phase.setAngElev(maxEvent.getAngElev());
@@ -127,16 +108,26 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 		phase.finish();
 	}
 
+	@Override
+	protected CandidatePipeline createAimingPipeline() {
+		return createAimingPipeline(4, 2);
+	}
+
+	@Override
+	protected void plannedShot(CueInteraction shot, PocketingEvent target) {
+		if (target != null) {
+			collector.registerPlannedBalls(target.getBallKeys());
+		}
+	}
+
 	private void handleAimingFallbackOneBall(AimingPhase phase) {
 
-		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(4);
+		DirectPocketGenerator pocketingGenerator = new DirectPocketGenerator(4, random.split());
 		DirectPocketingEvaluator pocketingEvaluator = new DirectPocketingEvaluator();
 		DirectCueGenerator ciGenerator = new DirectCueGenerator(
 				pocketingGenerator, pocketingEvaluator);
-		CueInteractionToPocketEvaluator finalEvaluator = new CueInteractionToPocketEvaluator(
-				20);
+		CueInteractionToPocketEvaluator finalEvaluator = createLastBallEvaluator(20);
 
-		finalEvaluator.setCriticalScore(.1f);
 		pocketingEvaluator.setCriticalScore(.5f);
 
 		long before = System.currentTimeMillis();
@@ -186,7 +177,7 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 	}
 
 	private void handleAimingFallbackOneBallFallback(AimingPhase phase) {
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
 		simpleScoreEvaluator.setCriticalScore(0.2);
 
@@ -219,13 +210,17 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 
 	private void handleAimingFallbackPhaseOne(AimingPhase phase) {
 		logger.log(Level.INFO, "Falling back to random search");
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SamplingRandomEvaluator samplingRandomEvaluator = new SamplingRandomEvaluator(
 				5);
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
 		samplingRandomEvaluator.setCriticalScore(0.4f);
 		simpleScoreEvaluator.setCriticalScore(.1f);
 		ArrayList<CueInteraction> candidates = new ArrayList<CueInteraction>();
+		// the candidates are checked again in every round with the same
+		// noise, so the cache knows the outcomes from the second round on
+		NoiseSequence recheckNoise = NoiseSequence.quasiRandom(5, random
+				.split());
 
 		long before = System.currentTimeMillis();
 		int count = 0;
@@ -241,7 +236,11 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 					.getTarget(), state)) {
 				candidates.add(cueStrike);
 				SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(
-						100);
+						100, random.split());
+				// stop as soon as the shot is clearly above or below the
+				// percentage we are looking for
+				sampler.setCriticalScore(minPercentage);
+				sampler.setSequentialTest(new SequentialTest(.05, 10));
 				toggleAimLine(cueStrike);
 				sampler.evaluate(cueStrike, randomCIGenerator.getTarget(),
 						state);
@@ -255,7 +254,9 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 					if (samplingRandomEvaluator.evaluate(candidate,
 							randomCIGenerator.getTarget(), state)) {
 						SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(
-								5);
+								5, random.split());
+						sampler.setNoiseSequence(recheckNoise);
+						sampler.setShotCache(shotCache);
 						toggleAimLine(candidate);
 						sampler.evaluate(candidate, randomCIGenerator
 								.getTarget(), state);
@@ -303,21 +304,9 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 	private void handleAimingFallbackPhaseTwo(AimingPhase phase) {
 		logger.log(Level.INFO, "Falling back to safety shots");
 
-		RandomCueInteractionGenerator ciGenerator = new RandomCueInteractionGenerator();
-
-		DirectPocketGenerator secondLevelPocketGenerator = new DirectPocketGenerator(
-				3);
-		DirectPocketingEvaluator secondLevelPocketEvaluator = new DirectPocketingEvaluator();
-		DirectCueGenerator secondLevelCueGenerator = new DirectCueGenerator(
-				secondLevelPocketGenerator, secondLevelPocketEvaluator);
-		CueInteractionToPocketEvaluator secondLevelEvaluator = new CueInteractionToPocketEvaluator(
-				4);
-		SafetyShotEvaluator finalEvaluator = new SafetyShotEvaluator(4,
-				secondLevelCueGenerator, secondLevelEvaluator, 30);
-
-		finalEvaluator.setCriticalScore(0f);
-		secondLevelEvaluator.setCriticalScore(-1f);
-		secondLevelPocketEvaluator.setCriticalScore(.5f);
+		RandomCueInteractionGenerator ciGenerator = new RandomCueInteractionGenerator(random.split());
+		SafetyShotEvaluator finalEvaluator = createSafetyEvaluator(3,
+				Long.MAX_VALUE);
 
 		long before = System.currentTimeMillis();
 		int count = 0;
@@ -346,6 +335,9 @@ public class PlanningSamplingAITestingControl extends PlanningSamplingAI {
 	}
 
 	private void toggleMarkings() {
+		if (presentation == null) {
+			return;
+		}
 		if (!showMarkings) {
 			((SnookerTable3D) presentation).showMarkings(true);
 			((SnookerTable3D) presentation).markBalls(state.getOnBalls());
@@ -24,6 +24,7 @@ import de.danielmescheder.snooker.gameflow.phases.AimingPhase;
 import de.danielmescheder.snooker.gameflow.phases.FrameInitPhase;
 import de.danielmescheder.snooker.gameflow.phases.PositioningPhase;
 import de.danielmescheder.snooker.gameflow.phases.SimulationPhase;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.presentation.SnookerTable3D;
 import de.danielmescheder.snooker.presentation.TablePresentation;
 import de.danielmescheder.snooker.simulation.EventHandler;
@@ -52,6 +53,7 @@ public class RandomAITestingControl implements ControllingUnit {
 
 	private TablePresentation presentation;
 	private GameState state;
+	private RandomStream random = new RandomStream();
 	private float accuracy = 0.0005f;
 	private int visualizationDepth = 2;
 	private CueInteraction cueStrike;
@@ -72,27 +74,40 @@ public class RandomAITestingControl implements ControllingUnit {
 		collectData = true;
 	}
 
-	public void handlePhase(GamePhase phase) {
-		HashMap<String, Object> props = new HashMap<String, Object>();
-
-		props.put(ThirdPersonMouseLook.PROP_MAXROLLOUT, "3");
-		props.put(ThirdPersonMouseLook.PROP_MINROLLOUT, "1");
-		props.put(ThirdPersonMouseLook.PROP_MINASCENT, "" + 45
-				* FastMath.DEG_TO_RAD);
-		props.put(ThirdPersonMouseLook.PROP_MAXASCENT, "" + 45
-				* FastMath.DEG_TO_RAD);
-		props.put(ChaseCamera.PROP_INITIALSPHERECOORDS, new Vector3f(3, 0,
-				30 * FastMath.DEG_TO_RAD));
-		props.put(ChaseCamera.PROP_WORLDUPVECTOR, new Vector3f(0, 0, 1));
-
-		props.put(ChaseCamera.PROP_TARGETOFFSET, new Vector3f(0, 0, 0));
-
-		ChaseCamera chaser = new ChaseCamera(presentation.getCamera(),
-				presentation.getTableNode(), props);
-		chaser.setMinDistance(state.getTable().getLength());
-		chaser.setMaxDistance(state.getTable().getLength());
+	/**
+	 * Seeds the stream from which all random numbers of this AI are drawn, so
+	 * that its decisions can be reproduced
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public void setSeed(long seed) {
+		random = new RandomStream(seed);
+	}
 
-		presentation.setCameraControl(chaser);
+	public void handlePhase(GamePhase phase) {
+		if (presentation != null) {
+			HashMap<String, Object> props = new HashMap<String, Object>();
+
+			props.put(ThirdPersonMouseLook.PROP_MAXROLLOUT, "3");
+			props.put(ThirdPersonMouseLook.PROP_MINROLLOUT, "1");
+			props.put(ThirdPersonMouseLook.PROP_MINASCENT, "" + 45
+					* FastMath.DEG_TO_RAD);
+			props.put(ThirdPersonMouseLook.PROP_MAXASCENT, "" + 45
+					* FastMath.DEG_TO_RAD);
+			props.put(ChaseCamera.PROP_INITIALSPHERECOORDS, new Vector3f(3, 0,
+					30 * FastMath.DEG_TO_RAD));
+			props.put(ChaseCamera.PROP_WORLDUPVECTOR, new Vector3f(0, 0, 1));
+
+			props.put(ChaseCamera.PROP_TARGETOFFSET, new Vector3f(0, 0, 0));
+
+			ChaseCamera chaser = new ChaseCamera(presentation.getCamera(),
+					presentation.getTableNode(), props);
+			chaser.setMinDistance(state.getTable().getLength());
+			chaser.setMaxDistance(state.getTable().getLength());
+
+			presentation.setCameraControl(chaser);
+		}
 
 		if (phase instanceof FrameInitPhase) {
 			handleInit((FrameInitPhase) phase);
@@ -106,10 +121,16 @@ public class RandomAITestingControl implements ControllingUnit {
 	}
 
 	private void handleInit(FrameInitPhase phase) {
+		if (presentation == null) {
+			return;
+		}
 		presentation.initBalls();
 	}
 
 	private void handleSimulation(SimulationPhase phase) {
+		if (presentation == null) {
+			return;
+		}
 		presentation.setGameControl(new SimulationControl(presentation, phase,
 				state, collector));
 	}
@@ -125,7 +146,7 @@ public class RandomAITestingControl implements ControllingUnit {
 	private void handleAiming(AimingPhase phase) {
 		toggleMarkings();
 
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
 		simpleScoreEvaluator.setCriticalScore(0.2);
 
@@ -154,16 +175,18 @@ public class RandomAITestingControl implements ControllingUnit {
 		phase.setTransY(cueStrike.getTransY());
 		phase.setVelocity(cueStrike.getVelocity());
 
-		presentation.showShotVisualization(true);
-		toggleMarkings();
+		if (presentation != null) {
+			presentation.showShotVisualization(true);
+			toggleMarkings();
 
-		showAimLine();
-		try {
-			Thread.sleep(1000);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+			showAimLine();
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+			presentation.showShotVisualization(false);
 		}
-		presentation.showShotVisualization(false);
 
 		phase.finish();
 	}
@@ -245,7 +268,8 @@ public class RandomAITestingControl implements ControllingUnit {
 		aimingHandler.linePointsList = new ArrayList<ArrayList<Vector3f>>();
 		aimingHandler.points = new ArrayList<Vector3f>();
 		aimingHandler.addPointFromMonitoredBall();
-		sim.addEventHandler(aimingHandler);
+		sim.addEventHandler(aimingHandler, BallCollision.class,
+				PocketingEvent.class);
 
 		int step = 1;
 		while (!sim.isPaused() && sim.hasNextEvent()) {
@@ -259,6 +283,9 @@ public class RandomAITestingControl implements ControllingUnit {
 
 	}
 	private void toggleMarkings() {
+		if (presentation == null) {
+			return;
+		}
 		if (!showMarkings) {
 			((SnookerTable3D) presentation).showMarkings(true);
 			((SnookerTable3D) presentation).markBalls(state.getOnBalls());
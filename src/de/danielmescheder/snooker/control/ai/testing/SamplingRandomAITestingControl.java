@@ -49,6 +49,10 @@ public class SamplingRandomAITestingControl extends SamplingRandomAIControl
 	@Override
 	protected void handleSimulation(SimulationPhase phase)
 	{
+		if (presentation == null)
+		{
+			return;
+		}
 		presentation.setGameControl(new SimulationControl(presentation, phase, state, collector));
 	}
 
@@ -59,7 +63,7 @@ public class SamplingRandomAITestingControl extends SamplingRandomAIControl
 	{	
 		toggleMarkings();
 
-		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator();
+		RandomCueInteractionGenerator randomCIGenerator = new RandomCueInteractionGenerator(random.split());
 		SamplingRandomEvaluator samplingRandomEvaluator = new SamplingRandomEvaluator(5);
 		SimpleScoreEvaluator simpleScoreEvaluator = new SimpleScoreEvaluator();
 		samplingRandomEvaluator.setCriticalScore(0.4f);
@@ -78,7 +82,7 @@ public class SamplingRandomAITestingControl extends SamplingRandomAIControl
 			cueStrike = randomCIGenerator.generate(state);
 			if(samplingRandomEvaluator.evaluate(cueStrike,randomCIGenerator.getTarget(), state)){
 				candidates.add(cueStrike);
-				SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(10);
+				SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(10, random.split());
 				toggleAimLine(cueStrike);
 				sampler.evaluate(cueStrike, randomCIGenerator.getTarget(), state);
 				toggleAimLine(cueStrike);
@@ -90,7 +94,7 @@ public class SamplingRandomAITestingControl extends SamplingRandomAIControl
 				logger.log(Level.FINER, "Rechecking Candidates");
 				for(CueInteraction candidate : candidates){
 					if(samplingRandomEvaluator.evaluate(candidate,randomCIGenerator.getTarget(), state)){
-						SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(10);
+						SimpleSamplingEvaluator sampler = new SimpleSamplingEvaluator(10, random.split());
 						toggleAimLine(candidate);
 						sampler.evaluate(candidate, randomCIGenerator.getTarget(), state);
 						toggleAimLine(candidate);
@@ -141,6 +145,9 @@ public class SamplingRandomAITestingControl extends SamplingRandomAIControl
 		phase.finish();
 	}
 	private void toggleMarkings() {
+		if (presentation == null) {
+			return;
+		}
 		if (!showMarkings) {
 			((SnookerTable3D) presentation).showMarkings(true);
 			((SnookerTable3D) presentation).markBalls(state.getOnBalls());
@@ -97,7 +97,7 @@ public class SimulationControl extends InputHandler {
 		this.collectData = true;
 
 		outcomeHandler = new ShotOutcomeHandler();
-		simulation.addEventHandler(outcomeHandler);
+		simulation.addEventHandler(outcomeHandler, PocketingEvent.class);
 
 	}
 
@@ -1,12 +1,14 @@
 package de.danielmescheder.snooker.domain;
 
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 
 import com.jme.math.Vector3f;
 
 import de.danielmescheder.snooker.simulation.physics.BallMotion;
+import de.danielmescheder.snooker.simulation.physics.Kinematics;
 import de.danielmescheder.snooker.simulation.physics.Physics;
 
 /**
@@ -16,25 +18,36 @@ import de.danielmescheder.snooker.simulation.physics.Physics;
 
 public abstract class Ball extends SphericalGameObject {
 	public enum BallState {
-		RESTING(Physics.getRestingMotion()), SLIDING(Physics.getSlidingMotion()), ROLLING(
-				Physics.getRollingMotion());
+		RESTING(Physics.getRestingMotion(), Kinematics.State.RESTING), SLIDING(
+				Physics.getSlidingMotion(), Kinematics.State.SLIDING), ROLLING(
+				Physics.getRollingMotion(), Kinematics.State.ROLLING);
 
-		BallState(BallMotion motion) {
+		BallState(BallMotion motion, Kinematics.State kind) {
 			this.motion = motion;
+			this.kind = kind;
 		}
 
 		public BallMotion getMotion() {
 			return motion;
 		}
 
+		/**
+		 * Gets the kind of motion in the primitive {@link Kinematics}
+		 * 
+		 * @return the kind of motion
+		 */
+		public Kinematics.State getKind() {
+			return kind;
+		}
+
 		private BallMotion motion;
+		private Kinematics.State kind;
 	}
 
 	/**
 	 * Constructs a ball with standard properties.
 	 */
 	public Ball() {
-		tiles = new HashSet<Tile>();
 	}
 
 	/**
@@ -64,6 +77,7 @@ public abstract class Ball extends SphericalGameObject {
 	 */
 	public  void setAngularVelocity(Vector3f av) {
 		this.angularVelocity = av;
+		updateKinematics();
 	}
 
 	/**
@@ -83,6 +97,7 @@ public abstract class Ball extends SphericalGameObject {
 	 */
 	public  void setVelocity(Vector3f velocity) {
 		this.velocity = velocity;
+		updateKinematics();
 	}
 
 	/**
@@ -102,6 +117,7 @@ public abstract class Ball extends SphericalGameObject {
 	 */
 	public  void setTime(float time) {
 		this.time = time;
+		updateKinematics();
 	}
 
 	@Override
@@ -137,6 +153,35 @@ public abstract class Ball extends SphericalGameObject {
 	 */
 	public  void setState(BallState state) {
 		this.state = state;
+		updateKinematics();
+	}
+
+	@Override
+	public void setPosition(Vector3f position) {
+		super.setPosition(position);
+		updateKinematics();
+	}
+
+	@Override
+	public void setRadius(float d) {
+		super.setRadius(d);
+		updateKinematics();
+	}
+
+	/**
+	 * Gets the current motion of the ball in primitive form. The kinematics
+	 * are computed whenever one of the values that describe the motion is
+	 * set, so reading them does not change the ball. Vectors of the ball that
+	 * are changed in place have to be set again before the motion is queried.
+	 * 
+	 * @return the kinematics of the current motion
+	 */
+	public Kinematics getKinematics() {
+		return kinematics;
+	}
+
+	private void updateKinematics() {
+		Physics.load(this, kinematics);
 	}
 
 	/**
@@ -178,22 +223,55 @@ public abstract class Ball extends SphericalGameObject {
 	}
 
 	/**
-	 * Gets the set of tiles that a ball is currently registered to.
+	 * Gets the set of tiles that a ball is currently registered to. Tiles can
+	 * be removed from the set, but are added by {@link #enterTile(Tile)}.
 	 * 
 	 * @return a set of tiles
 	 */
 	public  Set<Tile> getTiles() {
-		return tiles;
+		return tiles.keySet();
 	}
 
 	/**
-	 * Sets the tiles that a ball is currently registered to.
+	 * Registers the ball to a tile. Every registration gets a new stamp, so
+	 * a ball that leaves a tile and enters it again can be told apart from a
+	 * ball that has stayed in it.
 	 * 
-	 * @param tiles
-	 *            the new set of tiles
+	 * @param tile
+	 *            the tile
+	 */
+	public void enterTile(Tile tile) {
+		tiles.put(tile, ++tileChanges);
+	}
+
+	/**
+	 * Gets the stamp of the registration of the ball to the given tile
+	 * 
+	 * @param tile
+	 *            the tile
+	 * @return the stamp; 0 if the ball is not registered to the tile
+	 */
+	public int getTileStamp(Tile tile) {
+		Integer stamp = tiles.get(tile);
+		return stamp == null ? 0 : stamp;
+	}
+
+	/**
+	 * Gets the number of times the motion of this ball has been changed by
+	 * the simulation. Events that were predicted for an earlier generation are
+	 * no longer valid.
+	 * 
+	 * @return the generation
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Marks that the motion of this ball has changed.
 	 */
-	public  void setTiles(Set<Tile> tiles) {
-		this.tiles = tiles;
+	public void increaseGeneration() {
+		generation++;
 	}
 
 	private Vector3f velocity = Vector3f.ZERO.clone();
@@ -202,6 +280,9 @@ public abstract class Ball extends SphericalGameObject {
 	private float mass;
 	private BallState state = BallState.RESTING;
 	private float friction;
-	private Set<Tile> tiles;
+	private final Map<Tile, Integer> tiles = new LinkedHashMap<Tile, Integer>();
+	private int tileChanges;
+	private int generation;
+	private final Kinematics kinematics = new Kinematics();
 
 }
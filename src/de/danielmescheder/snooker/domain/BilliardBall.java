@@ -9,6 +9,7 @@ import de.danielmescheder.snooker.simulation.event.BallCollision;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.physics.BallMotion;
 import de.danielmescheder.snooker.simulation.physics.Physics;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
 
 /**
  * The BilliardBall implementation of the Ball abstract class.
@@ -135,6 +136,27 @@ public class BilliardBall extends Ball
 	}
 	
 
+	/**
+	 * Sets the state of this ball to that of another ball. Afterwards, this
+	 * ball is equal to a clone of the other ball, except for the tiles it is
+	 * registered to.
+	 * 
+	 * @param other the ball to copy from
+	 */
+	public void set(BilliardBall other)
+	{
+		id = other.id;
+		type = other.type;
+		setPosition(other.getPosition().clone());
+		setVelocity(other.getVelocity().clone());
+		setAngularVelocity(other.getAngularVelocity().clone());
+		setRadius(other.getRadius());
+		setMass(other.getMass());
+		setTime(other.getTime());
+		setState(other.getState());
+		setFriction(other.getFriction());
+	}
+
 	@Override
 	public Object clone()
 	{
@@ -157,7 +179,7 @@ public class BilliardBall extends Ball
 	}
 	
 	@Override
-	public Event findCollision(BilliardBall b)
+	public Event findCollision(BilliardBall b, PhysicsContext ctx)
 	{
 		if (!b.equals(this) && !(b.getState() == BallState.RESTING && this.getState() == BallState.RESTING))
 		{
@@ -165,7 +187,7 @@ public class BilliardBall extends Ball
 			if (this.getTime() == b.getTime())
 			{
 				currentTime = this.getTime();
-				collisionTime = Physics.collisionTime(this, b);
+				collisionTime = Physics.collisionTime(ctx, this, b);
 			}
 			else
 			{
@@ -189,7 +211,7 @@ public class BilliardBall extends Ball
 				adjusted.setVelocity(motion.getVelocity(behind, currentTime));
 				adjusted.setAngularVelocity(motion.getAngularVelocity(behind, currentTime));
 				
-				collisionTime = Physics.collisionTime(advanced, adjusted);
+				collisionTime = Physics.collisionTime(ctx, advanced, adjusted);
 			}
 
 			if (collisionTime >= 0)
@@ -4,6 +4,7 @@ package de.danielmescheder.snooker.domain;
 import com.jme.math.Vector3f;
 
 import de.danielmescheder.snooker.simulation.event.Event;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
 
 /**
  * The abstract definition of a CollidableGameObject
@@ -42,8 +43,9 @@ public abstract class CollidableGameObject extends GameObject
 	/**
 	 * Returns the a collision event between this object and another.
 	 * @param b the object to be checked against
+	 * @param ctx the physics context used for the calculation
 	 * @return the collision event
 	 */
-	public abstract Event findCollision(BilliardBall b);
+	public abstract Event findCollision(BilliardBall b, PhysicsContext ctx);
 	
 }
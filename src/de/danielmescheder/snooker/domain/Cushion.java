@@ -6,6 +6,7 @@ import com.jme.math.Vector3f;
 import de.danielmescheder.snooker.simulation.event.CushionCollision;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.physics.Physics;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
 
 /**
  * The Cushion class provides information about a billiard table cushion.
@@ -85,8 +86,8 @@ public class Cushion extends CollidableGameObject {
 	}
 
 	@Override
-	public Event findCollision(BilliardBall b) {
-		double time = Physics.collisionTime(b, this);
+	public Event findCollision(BilliardBall b, PhysicsContext ctx) {
+		double time = Physics.collisionTime(ctx, b, this);
 
 		if (time >= 0) {
 			return new CushionCollision((float) (b.getTime() + time), b, this);
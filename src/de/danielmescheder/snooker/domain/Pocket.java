@@ -6,6 +6,7 @@ import com.jme.math.Vector3f;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.event.PocketingEvent;
 import de.danielmescheder.snooker.simulation.physics.Physics;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
 
 /**
  * The Pocket class is used to represent a table-pocket in the simulation. A
@@ -64,9 +65,10 @@ public class Pocket extends SphericalGameObject {
 	}
 
 	@Override
-	public Event findCollision(BilliardBall b) {
-		setRadius(outerRadius - b.getRadius());
-		double time = Physics.collisionTime(b, this);
+	public Event findCollision(BilliardBall b, PhysicsContext ctx) {
+		// the ball is pocketed as soon as its centre enters the pocket
+		double time = Physics.collisionTime(ctx, b, getPosition(), outerRadius
+				- b.getRadius());
 
 		if (time >= 0) {
 			return new PocketingEvent((float) (b.getTime() + time), b, this);
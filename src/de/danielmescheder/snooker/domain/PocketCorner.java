@@ -6,6 +6,7 @@ import com.jme.math.Vector3f;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.event.PocketCornerCollision;
 import de.danielmescheder.snooker.simulation.physics.Physics;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
 
 /**
  * The PocketCorner represents the rounded edges around a pocket
@@ -26,9 +27,9 @@ public class PocketCorner extends SphericalGameObject
 	}
 
 	@Override
-	public Event findCollision(BilliardBall b)
+	public Event findCollision(BilliardBall b, PhysicsContext ctx)
 	{
-		double time = Physics.collisionTime(b, this);
+		double time = Physics.collisionTime(ctx, b, this);
 		
 		if(time>=0)
 		{
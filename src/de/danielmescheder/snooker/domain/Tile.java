@@ -1,11 +1,14 @@
 package de.danielmescheder.snooker.domain;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import de.danielmescheder.snooker.simulation.event.EnterTileEvent;
 import de.danielmescheder.snooker.simulation.event.LeaveTileEvent;
 import de.danielmescheder.snooker.simulation.physics.Physics;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
 
 
 public class Tile
@@ -16,7 +19,8 @@ public class Tile
 	private float height,width;
 	private Tile northTile, eastTile, southTile, westTile;
 
-	private Set<CollidableGameObject> content;
+	private List<CollidableGameObject> staticContent;
+	private Set<BilliardBall> balls;
 
 	public Tile(String name, float fromX, float toX, float fromY, float toY)
 	{
@@ -28,7 +32,31 @@ public class Tile
 		this.toY = Math.max(fromY, toY);
 		this.height = toY-fromY;
 
-		content = new HashSet<CollidableGameObject>();
+		staticContent = Collections.emptyList();
+		balls = new LinkedHashSet<BilliardBall>();
+	}
+
+	/**
+	 * Constructs a new tile without balls
+	 * 
+	 * @param bounds
+	 *            a tile with the same name and bounds
+	 * @param staticContent
+	 *            the cushions, pockets and pocket corners in the tile. The
+	 *            list is shared and must not be changed.
+	 */
+	public Tile(Tile bounds, List<CollidableGameObject> staticContent)
+	{
+		this.name = bounds.name;
+		this.fromX = bounds.fromX;
+		this.toX = bounds.toX;
+		this.width = bounds.width;
+		this.fromY = bounds.fromY;
+		this.toY = bounds.toY;
+		this.height = bounds.height;
+
+		this.staticContent = staticContent;
+		balls = new LinkedHashSet<BilliardBall>();
 	}
 
 	public float getFromX() {
@@ -63,9 +91,13 @@ public class Tile
 		this.toY = toY;
 	}
 	
+	/**
+	 * Creates a tile with the same bounds and static content, but without
+	 * balls and neighbours
+	 */
 	@Override
 	public Object clone(){
-		return new Tile(name,fromX,toX,fromY,toY);
+		return new Tile(this, staticContent);
 	}
 	public Tile getNorthTile()
 	{
@@ -107,14 +139,34 @@ public class Tile
 		this.westTile = westTile;
 	}
 
-	public void addGameObject(CollidableGameObject o)
+	public void addBall(BilliardBall b)
+	{
+		balls.add(b);
+	}
+
+	public void removeBall(BilliardBall b)
+	{
+		balls.remove(b);
+	}
+
+	/**
+	 * Gets the balls in this tile
+	 * 
+	 * @return the balls, in the order in which they entered the tile
+	 */
+	public Set<BilliardBall> getBalls()
 	{
-		content.add(o);
+		return balls;
 	}
 
-	public Set<CollidableGameObject> getContent()
+	/**
+	 * Gets the cushions, pockets and pocket corners in this tile
+	 * 
+	 * @return an unmodifiable list of the objects
+	 */
+	public List<CollidableGameObject> getStaticContent()
 	{
-		return content;
+		return staticContent;
 	}
 
 	public float getLowerBoundX()
@@ -147,26 +199,26 @@ public class Tile
 		return height;
 	}
 
-	public LeaveTileEvent getLeaveEvent(BilliardBall b)
+	public LeaveTileEvent getLeaveEvent(BilliardBall b, PhysicsContext ctx)
 	{
 		float minTime = Float.MAX_VALUE;
-		float t = Physics.lineCrossingTime(b, this.toX + b.getRadius(), false,
+		float t = Physics.lineCrossingTime(ctx, b, this.toX + b.getRadius(), false,
 				1);
 		if (t >= 0)
 		{
 			minTime = Math.min(minTime, t);
 		}
-		t = Physics.lineCrossingTime(b, this.fromX - b.getRadius(), false, -1);
+		t = Physics.lineCrossingTime(ctx, b, this.fromX - b.getRadius(), false, -1);
 		if (t >= 0)
 		{
 			minTime = Math.min(minTime, t);
 		}
-		t = Physics.lineCrossingTime(b, this.toY + b.getRadius(), true, 1);
+		t = Physics.lineCrossingTime(ctx, b, this.toY + b.getRadius(), true, 1);
 		if (t >= 0)
 		{
 			minTime = Math.min(minTime, t);
 		}
-		t = Physics.lineCrossingTime(b, this.fromY - b.getRadius(), true, -1);
+		t = Physics.lineCrossingTime(ctx, b, this.fromY - b.getRadius(), true, -1);
 		if (t >= 0)
 		{
 			minTime = Math.min(minTime, t);
@@ -182,13 +234,13 @@ public class Tile
 		}
 	}
 
-	public Set<EnterTileEvent> getEnterEvents(BilliardBall b)
+	public Set<EnterTileEvent> getEnterEvents(BilliardBall b, PhysicsContext ctx)
 	{
-		Set<EnterTileEvent> events = new HashSet<EnterTileEvent>();
+		Set<EnterTileEvent> events = new LinkedHashSet<EnterTileEvent>();
 		float t;
 		if (getEastTile() != null)
 		{
-			t = Physics.lineCrossingTime(b, this.toX - b.getRadius(), false, 1);
+			t = Physics.lineCrossingTime(ctx, b, this.toX - b.getRadius(), false, 1);
 			if (t >= 0)
 			{
 				events.add(new EnterTileEvent(b.getTime() + t, b,
@@ -197,7 +249,7 @@ public class Tile
 		}
 		if (getWestTile() != null)
 		{
-			t = Physics.lineCrossingTime(b, this.fromX + b.getRadius(), false,
+			t = Physics.lineCrossingTime(ctx, b, this.fromX + b.getRadius(), false,
 					-1);
 			if (t >= 0)
 			{
@@ -207,7 +259,7 @@ public class Tile
 		}
 		if (getNorthTile() != null)
 		{
-			t = Physics.lineCrossingTime(b, this.toY - b.getRadius(), true, 1);
+			t = Physics.lineCrossingTime(ctx, b, this.toY - b.getRadius(), true, 1);
 			if (t >= 0)
 			{
 				events.add(new EnterTileEvent(b.getTime() + t, b,
@@ -216,7 +268,7 @@ public class Tile
 		}
 		if (getSouthTile() != null)
 		{
-			t = Physics.lineCrossingTime(b, this.fromY + b.getRadius(), true,
+			t = Physics.lineCrossingTime(ctx, b, this.fromY + b.getRadius(), true,
 					-1);
 			if (t >= 0)
 			{
@@ -0,0 +1,244 @@
+package de.danielmescheder.snooker.exec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.LogManager;
+
+import com.jme.math.FastMath;
+import com.jme.math.Vector3f;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Cushion;
+import de.danielmescheder.snooker.domain.Pocket;
+import de.danielmescheder.snooker.domain.Table;
+import de.danielmescheder.snooker.domain.Ball.BallState;
+import de.danielmescheder.snooker.gameflow.phases.GameInitPhase;
+import de.danielmescheder.snooker.math.BairstowSolver;
+import de.danielmescheder.snooker.math.IntervalRootFinder;
+import de.danielmescheder.snooker.simulation.physics.Physics;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
+
+/**
+ * The RootFinderVerifier compares the collision times found by the
+ * {@link IntervalRootFinder} with those found by the {@link BairstowSolver} on
+ * a large corpus of random ball states. Both have to agree on every collision
+ * that happens before the balls change their state; later collisions are only
+ * found by the BairstowSolver. Roots of the BairstowSolver at which the balls
+ * do not touch are counted as its errors. Disagreements are counted and the
+ * first of them are printed together with the time both solvers needed for
+ * the corpus.
+ *
+ * Usage: RootFinderVerifier [cases] [seed]
+ *
+ */
+public class RootFinderVerifier {
+	/**
+	 * Collision times that differ by less than this are considered equal
+	 */
+	private static final double TOLERANCE = 1E-4;
+	private static final int MAX_REPORTED = 10;
+
+	private final Table table;
+	private final List<BilliardBall[]> pairs;
+
+	private final PhysicsContext bairstow, finder;
+
+	private int agreed, disagreed, beyondMotion, spurious;
+	private double maxDifference;
+	// keeps the timed computations from being optimized away
+	private float sink;
+
+	/**
+	 * Constructs a new verifier
+	 *
+	 * @param cases
+	 *            the number of random ball pairs
+	 * @param seed
+	 *            the seed used to generate them
+	 */
+	public RootFinderVerifier(int cases, long seed) {
+		GameInitPhase.initThresholds();
+		table = GameInitPhase.createTable();
+
+		Random r = new Random(seed);
+		pairs = new ArrayList<BilliardBall[]>(cases);
+		for (int i = 0; i < cases; i++) {
+			pairs.add(new BilliardBall[] { randomBall(r, false),
+					randomBall(r, r.nextInt(3) == 0) });
+		}
+
+		bairstow = new PhysicsContext();
+		bairstow.setBairstow(true);
+		finder = new PhysicsContext();
+	}
+
+	private BilliardBall randomBall(Random r, boolean resting) {
+		BilliardBall b = new BilliardBall(0, BilliardBall.Type.RED,
+				new Vector3f(r.nextFloat() * table.getWidth(), r.nextFloat()
+						* table.getLength(), 0));
+		b.setRadius(table.getBallRadius());
+		b.setTime(0);
+		if (resting) {
+			return b;
+		}
+
+		float angle = r.nextFloat() * FastMath.TWO_PI;
+		float speed = r.nextFloat() * 5f;
+		Vector3f v = new Vector3f(FastMath.cos(angle) * speed, FastMath
+				.sin(angle)
+				* speed, 0);
+		b.setVelocity(v);
+		if (r.nextBoolean()) {
+			// rolling: the contact point does not move relative to the cloth
+			b.setAngularVelocity(new Vector3f(0, 0, 1).cross(v).mult(1f /
+					b.getRadius()));
+			b.setState(BallState.ROLLING);
+		} else {
+			b.setAngularVelocity(new Vector3f(r.nextFloat() * 200 - 100, r
+					.nextFloat() * 200 - 100, r.nextFloat() * 40 - 20));
+			b.setState(BallState.SLIDING);
+		}
+		return b;
+	}
+
+	/**
+	 * A ball is pocketed as soon as its centre enters the pocket
+	 */
+	private static float pocketRadius(Pocket p, BilliardBall b) {
+		return p.getOuterRadius() - b.getRadius();
+	}
+
+	private static float duration(BilliardBall b) {
+		return b.getState().getMotion().getDuration(b);
+	}
+
+	/**
+	 * Checks whether the ball touches a sphere with the given centre and
+	 * radius at the given time. The sphere moves like the given ball, if any.
+	 */
+	private static boolean touches(BilliardBall a, BilliardBall b,
+			Vector3f centre, float radius, float time) {
+		Vector3f pa = a.getState().getMotion().getPosition(a, time);
+		Vector3f pb = b == null ? centre : b.getState().getMotion()
+				.getPosition(b, time);
+		return Math.abs(pa.distance(pb) - a.getRadius() - radius) < 1E-3;
+	}
+
+	/**
+	 * Compares the results of both solvers for one collision
+	 *
+	 * @param until
+	 *            the time until which the trajectories are valid
+	 * @param contact
+	 *            whether the objects really touch at the time found by the
+	 *            BairstowSolver
+	 */
+	private void compare(String name, float expected, float actual,
+			float until, boolean contact) {
+		boolean valid = expected >= 0 && expected <= until + Physics.THRESHOLD;
+		boolean agree;
+		double difference = Math.abs(expected - actual);
+		if (valid && (contact || difference < TOLERANCE)) {
+			agree = actual >= 0 && difference < TOLERANCE;
+			if (agree) {
+				maxDifference = Math.max(maxDifference, difference);
+			}
+		} else if (valid) {
+			// a root that does not describe a contact is an error of Bairstow
+			spurious++;
+			agree = true;
+		} else {
+			// the root finder may find an earlier root that Bairstow missed
+			agree = actual < 0 || expected < 0 || actual < expected - TOLERANCE;
+			if (agree && actual < 0 && expected >= 0) {
+				beyondMotion++;
+			}
+		}
+		if (agree) {
+			agreed++;
+		} else {
+			if (disagreed < MAX_REPORTED) {
+				System.out.println(name + ": Bairstow " + expected
+						+ ", root finder " + actual + ", motion until " + until);
+			}
+			disagreed++;
+		}
+	}
+
+	/**
+	 * Compares both solvers on all ball pairs, cushions and pockets
+	 *
+	 * @return the number of disagreements
+	 */
+	public int verify() {
+		for (BilliardBall[] pair : pairs) {
+			BilliardBall a = pair[0], b = pair[1];
+			float until = Math.min(duration(a), duration(b));
+			float expected = Physics.collisionTime(bairstow, a, b);
+			compare("ball " + a + " ball " + b, expected, Physics
+					.collisionTime(finder, a, b), until, touches(a, b, null, b
+					.getRadius(), expected));
+			for (Cushion c : table.getCushions()) {
+				compare("ball " + a + " cushion " + c, Physics.collisionTime(
+						bairstow, a, c), Physics.collisionTime(finder, a, c),
+						duration(a), true);
+			}
+			for (Pocket p : table.getPockets()) {
+				expected = Physics.collisionTime(bairstow, a, p.getPosition(),
+						pocketRadius(p, a));
+				compare("ball " + a + " pocket " + p, expected, Physics
+						.collisionTime(finder, a, p.getPosition(), pocketRadius(
+								p, a)), duration(a), touches(a, null, p
+						.getPosition(), pocketRadius(p, a), expected));
+			}
+		}
+		return disagreed;
+	}
+
+	/**
+	 * Measures the time needed for all collisions of the corpus
+	 *
+	 * @return the time in milliseconds
+	 */
+	public double time(PhysicsContext ctx) {
+		long start = System.nanoTime();
+		for (BilliardBall[] pair : pairs) {
+			sink += Physics.collisionTime(ctx, pair[0], pair[1]);
+			for (Cushion c : table.getCushions()) {
+				sink += Physics.collisionTime(ctx, pair[0], c);
+			}
+			for (Pocket p : table.getPockets()) {
+				sink += Physics.collisionTime(ctx, pair[0], p.getPosition(),
+						pocketRadius(p, pair[0]));
+			}
+		}
+		return (System.nanoTime() - start) / 1E6;
+	}
+
+	public static void main(String[] args) {
+		LogManager.getLogManager().reset();
+
+		int cases = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+		RootFinderVerifier verifier = new RootFinderVerifier(cases, seed);
+		int disagreed = verifier.verify();
+		System.out.printf(
+				"%d collisions agreed, %d disagreed, %d only found by Bairstow after the motion ended%n",
+				verifier.agreed, disagreed, verifier.beyondMotion);
+		System.out.printf("%d spurious roots of Bairstow, maximum difference %.3g%n",
+				verifier.spurious, verifier.maxDifference);
+
+		// warm up both solvers before timing them
+		verifier.time(verifier.bairstow);
+		verifier.time(verifier.finder);
+		System.out.printf("Bairstow: %.1f ms, root finder: %.1f ms%n",
+				verifier.time(verifier.bairstow), verifier
+						.time(verifier.finder));
+
+		if (disagreed > 0) {
+			System.exit(1);
+		}
+	}
+}
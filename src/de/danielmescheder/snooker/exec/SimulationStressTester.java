@@ -0,0 +1,201 @@
+package de.danielmescheder.snooker.exec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.LogManager;
+
+import com.jme.math.FastMath;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Cue;
+import de.danielmescheder.snooker.domain.Player;
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.gameflow.phases.FrameInitPhase;
+import de.danielmescheder.snooker.gameflow.phases.GameInitPhase;
+import de.danielmescheder.snooker.simulation.InTimeSimulation;
+import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.event.CueInteraction;
+
+/**
+ * The SimulationStressTester runs many independent simulations of random
+ * break-off shots, first sequentially and then concurrently on a thread pool.
+ * Every concurrent result has to be bit-identical to its sequential
+ * counterpart, otherwise simulations share mutable state. The throughput of
+ * both runs is printed to show how the simulation scales with the number of
+ * threads.
+ *
+ * Usage: SimulationStressTester [threads] [shots] [seed]
+ *
+ */
+public class SimulationStressTester {
+	private final GameState state;
+	private final List<CueInteraction> shots;
+
+	/**
+	 * Constructs a new stress tester
+	 *
+	 * @param shotCount
+	 *            the number of shots to be simulated
+	 * @param seed
+	 *            the seed used to generate the shots
+	 */
+	public SimulationStressTester(int shotCount, long seed) {
+		GameInitPhase.initThresholds();
+
+		state = new GameState();
+		state.setTable(GameInitPhase.createTable());
+		state.setPlayers(new ArrayList<Player>());
+		new FrameInitPhase(state).start();
+
+		Cue cue = new Cue(.550f);
+		Random r = new Random(seed);
+		shots = new ArrayList<CueInteraction>(shotCount);
+		for (int i = 0; i < shotCount; i++) {
+			shots.add(new CueInteraction(0, cue, state.getCueBall(), r
+					.nextFloat()
+					* 2 * FastMath.PI, 0, 0, 0, r.nextFloat() * 5f + .05f));
+		}
+	}
+
+	/**
+	 * Simulates a single shot
+	 *
+	 * @param shot
+	 *            the shot
+	 * @return the final x- and y-coordinates of all balls, ordered by id,
+	 *         followed by the time at which the simulation came to rest;
+	 *         null if the simulation failed
+	 */
+	private float[] simulate(CueInteraction shot) {
+		Simulation sim = new InTimeSimulation(state.getBalls(), state
+				.getTable());
+		try {
+			sim.init(Collections.singleton(shot));
+			sim.finish();
+		} catch (RuntimeException e) {
+			return null;
+		}
+
+		List<BilliardBall> balls = new ArrayList<BilliardBall>();
+		for (BilliardBall b : state.getBalls()) {
+			balls.add((BilliardBall) b.clone());
+		}
+		Collections.sort(balls, new Comparator<BilliardBall>() {
+			public int compare(BilliardBall a, BilliardBall b) {
+				return a.getID() - b.getID();
+			}
+		});
+
+		float[] result = new float[2 * balls.size() + 1];
+		int i = 0;
+		for (BilliardBall b : balls) {
+			sim.getBall(b);
+			result[i++] = b.getPosition().x;
+			result[i++] = b.getPosition().y;
+		}
+		result[i] = sim.getCurrentTime();
+		return result;
+	}
+
+	/**
+	 * Simulates all shots on the calling thread
+	 *
+	 * @return the results in the order of the shots
+	 */
+	public List<float[]> runSequential() {
+		List<float[]> results = new ArrayList<float[]>(shots.size());
+		for (CueInteraction shot : shots) {
+			results.add(simulate(shot));
+		}
+		return results;
+	}
+
+	/**
+	 * Simulates all shots concurrently
+	 *
+	 * @param threads
+	 *            the number of worker threads
+	 * @return the results in the order of the shots
+	 * @throws Exception
+	 *             if a simulation failed
+	 */
+	public List<float[]> runConcurrent(int threads) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<float[]>> futures = new ArrayList<Future<float[]>>();
+			for (final CueInteraction shot : shots) {
+				futures.add(pool.submit(new Callable<float[]>() {
+					public float[] call() {
+						return simulate(shot);
+					}
+				}));
+			}
+			List<float[]> results = new ArrayList<float[]>(shots.size());
+			for (Future<float[]> f : futures) {
+				results.add(f.get());
+			}
+			return results;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		LogManager.getLogManager().reset();
+
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime
+				.getRuntime().availableProcessors();
+		int shotCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		SimulationStressTester tester = new SimulationStressTester(shotCount,
+				seed);
+
+		// warm up
+		tester.runSequential();
+
+		long start = System.nanoTime();
+		List<float[]> expected = tester.runSequential();
+		long sequential = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		List<float[]> actual = tester.runConcurrent(threads);
+		long concurrent = System.nanoTime() - start;
+
+		int mismatches = 0, failures = 0;
+		for (int i = 0; i < shotCount; i++) {
+			if (expected.get(i) == null) {
+				failures++;
+			}
+			if (!Arrays.equals(expected.get(i), actual.get(i))) {
+				mismatches++;
+				System.out.println("Shot " + i + " differs: "
+						+ Arrays.toString(expected.get(i)) + " vs "
+						+ Arrays.toString(actual.get(i)));
+			}
+		}
+
+		System.out.printf("%d shots, 1 thread: %.1f shots/s%n", shotCount,
+				shotCount / (sequential / 1E9));
+		System.out.printf("%d shots, %d threads: %.1f shots/s (speedup %.2f)%n",
+				shotCount, threads, shotCount / (concurrent / 1E9),
+				(double) sequential / concurrent);
+		System.out.println(mismatches == 0 ? "All results identical"
+				: mismatches + " results differ");
+		if (failures != 0) {
+			System.out.println(failures + " shots could not be simulated");
+		}
+
+		if (mismatches != 0) {
+			System.exit(1);
+		}
+	}
+}
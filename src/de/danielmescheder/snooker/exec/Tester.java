@@ -221,9 +221,9 @@ public class Tester extends JFrame
 		{
 			balls[i] = new BilliardBall(i);
 			balls[i].setRadius(RADIUS * mpp);
-			balls[i].setPosition(ballVectors[i][0].mult(mpp));
-			balls[i].getPosition().y = this.getHeight() * mpp
-					- ballVectors[i][0].mult(mpp).y;
+			Vector3f position = ballVectors[i][0].mult(mpp);
+			position.y = this.getHeight() * mpp - position.y;
+			balls[i].setPosition(position);
 			balls[i].setMass(160);
 
 			Vector3f v = ballVectors[i][1].subtract(ballVectors[i][0])
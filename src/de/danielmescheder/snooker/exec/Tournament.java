@@ -0,0 +1,385 @@
+package de.danielmescheder.snooker.exec;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.LogManager;
+
+import de.danielmescheder.snooker.control.ControllingUnit;
+import de.danielmescheder.snooker.control.PonderingUnit;
+import de.danielmescheder.snooker.control.ai.testing.PlanningSamplingAITestingControl;
+import de.danielmescheder.snooker.control.ai.testing.RandomAITestingControl;
+import de.danielmescheder.snooker.control.ai.testing.SamplingRandomAITestingControl;
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Cue;
+import de.danielmescheder.snooker.domain.Player;
+import de.danielmescheder.snooker.gameflow.GameFlow;
+import de.danielmescheder.snooker.gameflow.GamePhase;
+import de.danielmescheder.snooker.gameflow.GameState;
+import de.danielmescheder.snooker.gameflow.phases.FrameInitPhase;
+import de.danielmescheder.snooker.gameflow.phases.GameInitPhase;
+import de.danielmescheder.snooker.gameflow.phases.SimulationPhase;
+import de.danielmescheder.snooker.math.RandomStream;
+import de.danielmescheder.snooker.simulation.EventHandler;
+import de.danielmescheder.snooker.simulation.event.Event;
+import de.danielmescheder.snooker.simulation.event.PocketingEvent;
+import de.danielmescheder.snooker.testing.TestDataCollector;
+
+/**
+ * The Tournament lets two AIs play frames against each other without any
+ * presentation. Every frame is played by a {@link GameFlow} on its own table
+ * and state, and the phases of all frames are handled by a shared thread pool,
+ * so more frames than threads can be under way. Shots are simulated to their
+ * end at once instead of being played back in real time.
+ *
+ * The players alternate at the break. The statistics of each player are
+ * collected by a {@link TestDataCollector} per frame and written in CSV
+ * format, followed by a summary of the frames won and the points scored.
+ * Frames that take more than the maximum number of shots are abandoned and
+ * count for neither player, and frames that end level are counted as drawn.
+ * Note that the random AI shoots until it finds a shot that pots a ball,
+ * which can take very long when few balls are left.
+ *
+ * All random numbers of a frame, those of the AIs and the noise of the played
+ * shots, follow from the seed of the tournament, so a tournament can be
+ * repeated with the same results.
+ *
+ * Usage: Tournament [frames] [threads] [AI 1] [AI 2] [max shots] [output file]
+ * [seed]
+ *
+ * The AIs are planning, sampling or random. The planning AI can be given a
+ * time budget per shot in milliseconds, as in planning:500. An output file of
+ * - writes to the standard output.
+ *
+ */
+public class Tournament {
+	public static final int DEFAULT_MAX_SHOTS = 300;
+
+	private static final String[] AIS = { "planning", "sampling", "random" };
+
+	private final String[] ais;
+	private final int maxShots;
+	private long seed = new RandomStream().nextLong();
+
+	/**
+	 * The outcome of a single frame
+	 */
+	private static class FrameResult {
+		int[] scores;
+		int shots;
+		boolean finished;
+		String statistics;
+	}
+
+	/**
+	 * Constructs a new tournament
+	 *
+	 * @param ai1
+	 *            the AI of the first player
+	 * @param ai2
+	 *            the AI of the second player
+	 * @param maxShots
+	 *            the number of shots after which a frame is abandoned
+	 */
+	public Tournament(String ai1, String ai2, int maxShots) {
+		ais = new String[] { ai1, ai2 };
+		this.maxShots = maxShots;
+		for (String ai : ais) {
+			if (!Arrays.asList(AIS).contains(ai.replaceFirst(":.*", ""))) {
+				throw new IllegalArgumentException("Unknown AI " + ai
+						+ ", expected one of " + Arrays.toString(AIS));
+			}
+		}
+	}
+
+	/**
+	 * Sets the seed from which all random numbers of the tournament follow
+	 *
+	 * @param seed
+	 *            the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	private static ControllingUnit createAI(String ai, GameState state,
+			TestDataCollector collector, long seed) {
+		if (ai.equals("planning") || ai.startsWith("planning:")) {
+			PlanningSamplingAITestingControl control = new PlanningSamplingAITestingControl(
+					null, state, collector);
+			control.setSeed(seed);
+			if (ai.startsWith("planning:")) {
+				control.setTimeBudget(Long.parseLong(ai.substring(ai
+						.indexOf(':') + 1)));
+			}
+			return control;
+		} else if (ai.equals("sampling")) {
+			SamplingRandomAITestingControl control = new SamplingRandomAITestingControl(
+					null, state, collector);
+			control.setSeed(seed);
+			return control;
+		} else if (ai.equals("random")) {
+			RandomAITestingControl control = new RandomAITestingControl(null,
+					state, collector);
+			control.setSeed(seed);
+			return control;
+		}
+		throw new IllegalArgumentException("Unknown AI " + ai);
+	}
+
+	/**
+	 * A single frame, whose players hand all phases but the simulation to
+	 * their AIs
+	 */
+	private class Frame {
+		private final GameState state;
+		private final GameFlow flow;
+		private final TestDataCollector[] collectors;
+		private final FrameResult result = new FrameResult();
+
+		/**
+		 * Takes the shot of a player and collects its statistics
+		 */
+		private class Seat implements PonderingUnit {
+			private final ControllingUnit ai;
+			private final TestDataCollector collector;
+
+			Seat(ControllingUnit ai, TestDataCollector collector) {
+				this.ai = ai;
+				this.collector = collector;
+			}
+
+			public void handlePhase(GamePhase phase) {
+				if (phase instanceof SimulationPhase) {
+					handleSimulation((SimulationPhase) phase);
+				} else if (!(phase instanceof FrameInitPhase)) {
+					ai.handlePhase(phase);
+				}
+			}
+
+			public void ponder(GameState predicted) {
+				if (ai instanceof PonderingUnit) {
+					((PonderingUnit) ai).ponder(predicted);
+				}
+			}
+
+			private void handleSimulation(final SimulationPhase phase) {
+				final Set<BilliardBall> potted = new HashSet<BilliardBall>();
+				phase.getSimulation().addEventHandler(new EventHandler() {
+					public void handle(Event e) {
+						potted.add(((PocketingEvent) e).getBall());
+					}
+				}, PocketingEvent.class);
+				// runs before the flow schedules the next phase, which resets
+				// the scores when the next frame starts
+				phase.whenFinished(new Runnable() {
+					public void run() {
+						record(phase, potted);
+					}
+				});
+				try {
+					phase.playOut();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					flow.stop();
+				}
+			}
+
+			private void record(SimulationPhase phase, Set<BilliardBall> potted) {
+				collector.registerPottedBalls(potted);
+				result.shots++;
+
+				if (phase.getNext() instanceof FrameInitPhase) {
+					result.finished = true;
+					result.scores = new int[state.getPlayers().size()];
+					for (int i = 0; i < result.scores.length; i++) {
+						result.scores[i] = state.getPlayers().get(i).getScore();
+					}
+					flow.stop();
+				} else if (result.shots >= maxShots) {
+					flow.stop();
+				}
+			}
+		}
+
+		Frame(int number, RandomStream random) {
+			state = new GameState();
+			state.setTable(GameInitPhase.createTable());
+			state.setRandom(random.split());
+			collectors = new TestDataCollector[ais.length];
+
+			List<Player> players = new ArrayList<Player>();
+			for (int i = 0; i < ais.length; i++) {
+				Player p = new Player();
+				p.setName((i + 1) + ":" + ais[i]);
+				collectors[i] = new TestDataCollector(p.getName());
+				p.setControllingUnit(new Seat(createAI(ais[i], state,
+						collectors[i], random.nextLong()), collectors[i]));
+				p.setScore(0);
+				p.setCue(new Cue(.550f));
+				players.add(p);
+			}
+			state.setPlayers(players);
+			state.setCurrentPlayer(players.get(number % players.size()));
+
+			flow = new GameFlow(state, new FrameInitPhase(state));
+		}
+
+		/**
+		 * Starts the frame on the given executor and returns at once
+		 * 
+		 * @param executor
+		 *            the executor that handles the phases
+		 */
+		void start(Executor executor) {
+			flow.start(executor);
+		}
+
+		/**
+		 * Waits until the frame has ended
+		 * 
+		 * @return the outcome of the frame
+		 * @throws InterruptedException
+		 *             if the thread was interrupted while waiting
+		 * @throws ExecutionException
+		 *             if a phase of the frame failed
+		 */
+		FrameResult awaitResult() throws InterruptedException,
+				ExecutionException {
+			flow.awaitEnd();
+			if (flow.getFailure() != null) {
+				throw new ExecutionException("Frame failed", flow.getFailure());
+			}
+
+			StringBuilder statistics = new StringBuilder();
+			for (TestDataCollector c : collectors) {
+				String csv = c.toString();
+				// skip the header line
+				statistics.append(csv.substring(csv.indexOf('\n') + 1));
+			}
+			result.statistics = statistics.toString();
+			return result;
+		}
+	}
+
+	/**
+	 * Plays the given number of frames
+	 *
+	 * @param frames
+	 *            the number of frames
+	 * @param threads
+	 *            the number of threads that play the frames
+	 * @param out
+	 *            the writer for the statistics
+	 * @throws Exception
+	 *             if a frame failed
+	 */
+	public void play(int frames, int threads, PrintWriter out) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long before = System.currentTimeMillis();
+		List<Frame> started = new ArrayList<Frame>();
+		try {
+			RandomStream random = new RandomStream(seed);
+			for (int i = 0; i < frames; i++) {
+				// split in order, so that every frame gets the same stream in
+				// every run
+				Frame frame = new Frame(i, random.split());
+				frame.start(pool);
+				started.add(frame);
+			}
+
+			out.print(new TestDataCollector("").toString());
+			int[] won = new int[ais.length];
+			long[] points = new long[ais.length];
+			int finished = 0, drawn = 0, shots = 0;
+			for (Frame frame : started) {
+				FrameResult result = frame.awaitResult();
+				out.print(result.statistics);
+				shots += result.shots;
+				if (!result.finished) {
+					continue;
+				}
+				finished++;
+				int winner = 0;
+				boolean tied = false;
+				for (int i = 0; i < ais.length; i++) {
+					points[i] += result.scores[i];
+					if (result.scores[i] > result.scores[winner]) {
+						winner = i;
+						tied = false;
+					} else if (i != winner
+							&& result.scores[i] == result.scores[winner]) {
+						tied = true;
+					}
+				}
+				if (tied) {
+					drawn++;
+				} else {
+					won[winner]++;
+				}
+			}
+			out.flush();
+
+			float time = (System.currentTimeMillis() - before) / 1000f;
+			System.out.println(frames + " frames, " + finished + " finished, "
+					+ drawn + " drawn, " + shots + " shots in " + time + "s, seed " + seed);
+			for (int i = 0; i < ais.length; i++) {
+				System.out.printf("%d:%s won %d frames, %.1f points/frame%n",
+						i + 1, ais[i], won[i], finished > 0 ? points[i]
+								/ (float) finished : 0f);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		LogManager.getLogManager().reset();
+		GameInitPhase.initThresholds();
+		GameInitPhase.initNoise();
+
+		int frames = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime
+				.getRuntime().availableProcessors();
+		String ai1 = args.length > 2 ? args[2] : AIS[0];
+		String ai2 = args.length > 3 ? args[3] : AIS[1];
+		int maxShots = args.length > 4 ? Integer.parseInt(args[4])
+				: DEFAULT_MAX_SHOTS;
+
+		Writer writer;
+		if (args.length > 5 && !args[5].equals("-")) {
+			try {
+				writer = new FileWriter(args[5]);
+			} catch (IOException e) {
+				System.err.println("Cannot write to " + args[5]);
+				return;
+			}
+		} else {
+			writer = new PrintWriter(System.out);
+		}
+		PrintWriter out = new PrintWriter(writer);
+		try {
+			Tournament tournament = new Tournament(ai1, ai2, maxShots);
+			if (args.length > 6) {
+				tournament.setSeed(Long.parseLong(args[6]));
+			}
+			tournament.play(frames, threads, out);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package de.danielmescheder.snooker.gameflow;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -8,7 +12,8 @@ import de.danielmescheder.snooker.gameflow.phases.GameInitPhase;
 
 /**
  * The GameFlow contains the main game loop which executes until the nextPhase
- * is set to null
+ * is set to null. A phase ends when its controlling unit, or the presentation,
+ * finishes it; the flow is woken up by the phase instead of checking on it.
  * 
  */
 public class GameFlow {
@@ -18,6 +23,9 @@ public class GameFlow {
 	private GameState currentState;
 	private GamePhase currentPhase;
 	private GamePhase nextPhase;
+	private volatile boolean stopped;
+	private volatile RuntimeException failure;
+	private final CountDownLatch ended = new CountDownLatch(1);
 
 	/**
 	 * Construcs a standard gameflow which creates a new GameState and starts
@@ -29,32 +37,162 @@ public class GameFlow {
 	}
 
 	/**
-	 * Start the game
+	 * Constructs a gameflow that starts with the given phase on a state that
+	 * has already been set up, for example without a presentation
+	 * 
+	 * @param state
+	 *            the GameState with table and players
+	 * @param firstPhase
+	 *            the first phase
+	 */
+	public GameFlow(GameState state, GamePhase firstPhase) {
+		currentState = state;
+		currentPhase = firstPhase;
+	}
+
+	/**
+	 * Start the game. The game is played on the calling thread, which
+	 * returns when the game has ended.
 	 */
 	public void start() {
 		logger.log(Level.INFO, "START game flow");
 
-		nextPhase = new GameInitPhase(currentState);
+		nextPhase = currentPhase;
 
-		while (nextPhase != null) {
+		while (nextPhase != null && !stopped) {
 			currentPhase = nextPhase;
 			nextPhase = null;
-			logger.log(Level.INFO, "START phase", currentPhase);
-			currentPhase.start();
-			currentState.getCurrentPlayer().getControllingUnit().handlePhase(
-					currentPhase);
-			while (!currentPhase.isFinished()) {
-				try {
-					Thread.sleep(10);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
+			begin(currentPhase);
+			try {
+				currentPhase.awaitFinish();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				stopped = true;
+				break;
 			}
 			logger.log(Level.INFO, "STOP phase", currentPhase);
 			nextPhase = currentPhase.getNext();
 		}
 
+		end();
+	}
+
+	/**
+	 * Starts the game on the given executor and returns at once. Every phase
+	 * is handled by a task of the executor, which is submitted when the
+	 * previous phase has finished, so no thread is blocked while a phase waits
+	 * for its player. Many games can thus share a few threads, as long as
+	 * their controlling units do not block.
+	 * 
+	 * The next phase is scheduled by a finish action that is added after the
+	 * controlling unit has handled the phase. A unit that stops the flow from
+	 * an action of its own, added while it handles the phase, therefore
+	 * stops it before the next phase begins. If a phase fails, the game ends
+	 * and the failure is kept for {@link #getFailure()}.
+	 * 
+	 * @param executor
+	 *            the executor that runs the phases
+	 * @see #awaitEnd()
+	 */
+	public void start(final Executor executor) {
+		logger.log(Level.INFO, "START game flow");
+		schedule(executor, currentPhase);
+	}
+
+	private void schedule(final Executor executor, final GamePhase phase) {
+		if (phase == null || stopped) {
+			end();
+			return;
+		}
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					step(executor, phase);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			logger.log(Level.WARNING, "Game flow rejected by executor", e);
+			end();
+		}
+	}
+
+	private void step(final Executor executor, final GamePhase phase) {
+		if (stopped) {
+			end();
+			return;
+		}
+		currentPhase = phase;
+		try {
+			begin(phase);
+		} catch (RuntimeException e) {
+			logger.log(Level.SEVERE, "Phase failed", e);
+			// kept before the end is signalled, so that it is seen by those
+			// waiting for the end
+			failure = e;
+			end();
+			return;
+		}
+		phase.whenFinished(new Runnable() {
+			public void run() {
+				logger.log(Level.INFO, "STOP phase", phase);
+				schedule(executor, phase.getNext());
+			}
+		});
+	}
+
+	private void begin(GamePhase phase) {
+		logger.log(Level.INFO, "START phase", phase);
+		phase.start();
+		currentState.getCurrentPlayer().getControllingUnit().handlePhase(
+				phase);
+	}
+
+	private void end() {
 		logger.log(Level.INFO, "STOP game flow");
+		ended.countDown();
+	}
+
+	/**
+	 * Waits until the game has ended
+	 * 
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting
+	 */
+	public void awaitEnd() throws InterruptedException {
+		ended.await();
+	}
+
+	/**
+	 * Waits until the game has ended or the time is up
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return true if the game has ended; false if the time is up
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting
+	 */
+	public boolean awaitEnd(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return ended.await(timeout, unit);
+	}
+
+	/**
+	 * Gets the exception a phase of a game that was started on an executor
+	 * failed with. It is set before the game ends.
+	 * 
+	 * @return the exception; null if no phase failed
+	 */
+	public RuntimeException getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Stops the game after the current phase has finished
+	 */
+	public void stop() {
+		stopped = true;
 	}
 
 	/**
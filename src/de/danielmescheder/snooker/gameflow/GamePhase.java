@@ -1,15 +1,25 @@
 package de.danielmescheder.snooker.gameflow;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 /**
  * The abstract class GamePhase contains information about the
  * next GamePhase and the associated GameState
  * 
+ * A phase may be finished by any thread, for example by the presentation
+ * when the player has aimed. Others can wait for that or be called back.
+ * 
  */
 public abstract class GamePhase
 {
-	protected boolean finished;
+	protected volatile boolean finished;
 	protected GamePhase next;
 	protected GameState state;
+	private CountDownLatch done = new CountDownLatch(1);
+	private List<Runnable> finishActions = new ArrayList<Runnable>();
 	
 	/**
 	 * Constructs a new GamePhase object with a given state
@@ -25,15 +35,85 @@ public abstract class GamePhase
 	 */
 	public void start()
 	{
-		finished = false;
+		synchronized (this)
+		{
+			finished = false;
+			if (done.getCount() == 0)
+			{
+				done = new CountDownLatch(1);
+			}
+		}
 	}
 	
 	/**
-	 * Finishes the phase
+	 * Finishes the phase. Subclasses set the next phase before they call
+	 * this method, since it wakes up those who wait for the phase.
 	 */
 	public void finish()
 	{
-		finished = true;
+		List<Runnable> actions;
+		synchronized (this)
+		{
+			finished = true;
+			done.countDown();
+			actions = finishActions;
+			finishActions = new ArrayList<Runnable>();
+		}
+		for (Runnable action : actions)
+		{
+			action.run();
+		}
+	}
+	
+	/**
+	 * Waits until the phase is finished
+	 * @throws InterruptedException if the thread was interrupted while waiting
+	 */
+	public void awaitFinish() throws InterruptedException
+	{
+		CountDownLatch latch;
+		synchronized (this)
+		{
+			latch = done;
+		}
+		latch.await();
+	}
+	
+	/**
+	 * Waits until the phase is finished or the time is up
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return true if the phase is finished; false if the time is up
+	 * @throws InterruptedException if the thread was interrupted while waiting
+	 */
+	public boolean awaitFinish(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		CountDownLatch latch;
+		synchronized (this)
+		{
+			latch = done;
+		}
+		return latch.await(timeout, unit);
+	}
+	
+	/**
+	 * Runs an action as soon as the phase is finished. The action is run by
+	 * the thread that finishes the phase, or right away if the phase is
+	 * finished already, so it has to return quickly. Actions run in the order
+	 * in which they were added.
+	 * @param action the action
+	 */
+	public void whenFinished(Runnable action)
+	{
+		synchronized (this)
+		{
+			if (!finished)
+			{
+				finishActions.add(action);
+				return;
+			}
+		}
+		action.run();
 	}
 	
 	/**
@@ -11,6 +11,7 @@ import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.Player;
 import de.danielmescheder.snooker.domain.Table;
 import de.danielmescheder.snooker.domain.BilliardBall.Type;
+import de.danielmescheder.snooker.math.RandomStream;
 
 
 /**
@@ -44,6 +45,7 @@ public class GameState
 	private Player currentPlayer;
 	private GamePhase currentPhase;
 	private boolean isEndgame;
+	private RandomStream random = new RandomStream();
 	
 	/**
 	 * Constructs new empty GameState
@@ -243,6 +245,27 @@ public class GameState
 		this.isEndgame = isEndgame;
 	}
 
+	/**
+	 * Gets the stream from which the noise of the played shots is drawn.
+	 * A clone of the state gets a new stream that is not seeded, so shots
+	 * played on a clone cannot be repeated. The stream is not split for the
+	 * clone, since states are cloned by several threads at once.
+	 * @return the stream
+	 */
+	public RandomStream getRandom()
+	{
+		return random;
+	}
+
+	/**
+	 * Sets the stream from which the noise of the played shots is drawn
+	 * @param random the stream
+	 */
+	public void setRandom(RandomStream random)
+	{
+		this.random = random;
+	}
+
 	/**
 	 * Gets the maximum possible score
 	 * @return the max score
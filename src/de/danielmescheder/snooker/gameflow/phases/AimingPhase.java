@@ -3,6 +3,7 @@ package de.danielmescheder.snooker.gameflow.phases;
 import de.danielmescheder.snooker.gameflow.GamePhase;
 import de.danielmescheder.snooker.gameflow.GameState;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
+import de.danielmescheder.snooker.simulation.event.NoiseModel;
 import de.danielmescheder.snooker.simulation.event.NoisyCueInteraction;
 
 /**
@@ -83,7 +84,8 @@ public class AimingPhase extends GamePhase {
 		}
 		CueInteraction event = new NoisyCueInteraction(0, state
 				.getCurrentPlayer().getCue(), state.getCueBall(), angDest,
-				angElev, transX, transY, velocity);
+				angElev, transX, transY, velocity, NoiseModel.getDefault(), state
+				.getRandom());
 
 		setNext(new SimulationPhase(state, event));
 		super.finish();
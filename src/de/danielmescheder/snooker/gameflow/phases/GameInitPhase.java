@@ -17,11 +17,12 @@ import de.danielmescheder.snooker.exec.UMSnooker;
 import de.danielmescheder.snooker.gameflow.GamePhase;
 import de.danielmescheder.snooker.gameflow.GameState;
 import de.danielmescheder.snooker.math.BairstowSolver;
+import de.danielmescheder.snooker.math.IntervalRootFinder;
 import de.danielmescheder.snooker.presentation.SnookerTable3D;
 import de.danielmescheder.snooker.presentation.TablePresentation;
 import de.danielmescheder.snooker.simulation.Simulation;
 import de.danielmescheder.snooker.simulation.event.BallCollision;
-import de.danielmescheder.snooker.simulation.event.NoisyCueInteraction;
+import de.danielmescheder.snooker.simulation.event.NoiseModel;
 import de.danielmescheder.snooker.simulation.physics.Physics;
 
 /**
@@ -52,8 +53,9 @@ public class GameInitPhase extends GamePhase {
 	/**
 	 * Initializes the thresholds for the different part of the simulation
 	 */
-	private void initThresholds() {
+	public static void initThresholds() {
 		BairstowSolver.THRESHOLD = 5E-6;
+		IntervalRootFinder.THRESHOLD = 5E-6;
 		Simulation.TIME_THRESHOLD = 1E-7;
 		Simulation.SPACE_THRESHOLD = 1E-6;
 		BallCollision.VELOCITY_THRESHOLD = 1E-8f;
@@ -62,20 +64,13 @@ public class GameInitPhase extends GamePhase {
 	}
 
 	/**
-	 * Initializes the noise values for the NoisyCueInteraction
+	 * Initializes the default noise model for the NoisyCueInteraction
 	 */
-	private void initNoise() {
-//		 NoisyCueInteraction.destDev = 0f;
-//		 NoisyCueInteraction.elevDev = 0f;
-//		 NoisyCueInteraction.transXDev = 0;
-//		 NoisyCueInteraction.transYDev = 0;
-//		 NoisyCueInteraction.velDev = 0;
-
-		NoisyCueInteraction.destDev = .001f;
-		NoisyCueInteraction.elevDev = .001f;
-		NoisyCueInteraction.transXDev = .0001f;
-		NoisyCueInteraction.transYDev = .0001f;
-		NoisyCueInteraction.velDev = .01f;
+	public static void initNoise() {
+//		NoiseModel.setDefault(new NoiseModel(0, 0, 0, 0, 0));
+
+		NoiseModel.setDefault(new NoiseModel(.001f, .001f, .0001f, .0001f,
+				.01f));
 
 	}
 
@@ -84,9 +79,7 @@ public class GameInitPhase extends GamePhase {
 	 */
 	private void setDefaults() {
 		// --> Initialize the table
-		Table table = new Table(1.778f, 3.569f, .737f, .292f, .324f,
-				.0525f / 2f, .045f, .045f);
-		setTable(table);
+		setTable(createTable());
 
 		// --> Initialize presentation
 		TablePresentation presentation = initPresentation();
@@ -117,6 +110,16 @@ public class GameInitPhase extends GamePhase {
 		setCurrentPlayer(state.getPlayers().get(0));
 	}
 
+	/**
+	 * Creates a table with the default dimensions
+	 * 
+	 * @return the table
+	 */
+	public static Table createTable() {
+		return new Table(1.778f, 3.569f, .737f, .292f, .324f, .0525f / 2f,
+				.045f, .045f);
+	}
+
 	/**
 	 * Initializes a new 3D presentation
 	 * 
@@ -1,5 +1,7 @@
 package de.danielmescheder.snooker.gameflow.phases;
 
+import com.jme.math.Vector3f;
+
 import de.danielmescheder.snooker.gameflow.GamePhase;
 import de.danielmescheder.snooker.gameflow.GameState;
 
@@ -35,7 +37,7 @@ public class PositioningPhase extends GamePhase
 	 */
 	public void setPosition(float x, float y)
 	{
-		state.getCueBall().getPosition().set(x, y, 0);
+		state.getCueBall().setPosition(new Vector3f(x, y, 0));
 	}
 
 	@Override
@@ -2,8 +2,18 @@ package de.danielmescheder.snooker.gameflow.phases;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import de.danielmescheder.snooker.control.ControllingUnit;
+import de.danielmescheder.snooker.control.PonderingUnit;
 import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.Player;
 import de.danielmescheder.snooker.gameflow.GamePhase;
@@ -11,6 +21,7 @@ import de.danielmescheder.snooker.gameflow.GameState;
 import de.danielmescheder.snooker.logic.GameLogicHandler;
 import de.danielmescheder.snooker.simulation.PrescheduledSimulation;
 import de.danielmescheder.snooker.simulation.Simulation;
+import de.danielmescheder.snooker.simulation.Timeline;
 import de.danielmescheder.snooker.simulation.event.CueInteraction;
 import de.danielmescheder.snooker.simulation.event.Event;
 
@@ -26,6 +37,20 @@ public class SimulationPhase extends GamePhase {
 	private Simulation sim;
 	private GameLogicHandler logicHandler;
 	private CueInteraction cueShot;
+	private FutureTask<Void> preScheduleSim;
+	private FutureTask<Void> ponderTask;
+
+	// prescheduling runs on a daemon thread per processor, which are shared
+	// by all phases
+	private static volatile Executor preScheduler = Executors
+			.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "Prescheduling");
+							t.setDaemon(true);
+							return t;
+						}
+					});
 
 	/**
 	 * Constructs a new SimulationPhase object. The CueInteraction is taken as
@@ -46,7 +71,7 @@ public class SimulationPhase extends GamePhase {
 
 		logicHandler = new GameLogicHandler(state);
 
-		sim.addEventHandler(logicHandler);
+		logicHandler.observe(sim);
 
 	}
 
@@ -55,15 +80,115 @@ public class SimulationPhase extends GamePhase {
 		super.start();
 		final Set<Event> initEvents = new HashSet<Event>();
 		initEvents.add(cueShot);
+		// the copy is taken before playback starts to change the balls
+		final GameState predicted = (GameState) state.clone();
+		final FutureTask<Void> ponderTask = new FutureTask<Void>(
+				new Runnable() {
+					public void run() {
+						try {
+							ponder(predicted);
+						} catch (RuntimeException e) {
+							// the shot is played back anyway
+							logger.log(Level.WARNING, "Pondering failed", e);
+						}
+					}
+				}, null);
 		Runnable simRunner = new Runnable() {
 			@Override
 			public void run() {
-				sim.init(initEvents);
+				boolean initialized = false;
+				try {
+					sim.init(initEvents);
+					initialized = true;
+				} finally {
+					if (!initialized) {
+						ponderTask.cancel(false);
+					}
+				}
+				// pondering is a task of its own, so playback does not wait
+				// for it
+				try {
+					preScheduler.execute(ponderTask);
+				} catch (RejectedExecutionException e) {
+					ponderTask.cancel(false);
+				}
 			}
 		};
 
-		Thread preScheduleSim = new Thread(simRunner);
-		preScheduleSim.start();
+		this.ponderTask = ponderTask;
+		preScheduleSim = new FutureTask<Void>(simRunner, null);
+		preScheduler.execute(preScheduleSim);
+	}
+
+	/**
+	 * Sets the executor on which the shots of all simulation phases are
+	 * prescheduled, for example to share the threads of a batch of headless
+	 * games. By default, a daemon thread per processor is used.
+	 * 
+	 * @param executor
+	 *            the executor
+	 */
+	public static void setPreScheduler(Executor executor) {
+		preScheduler = executor;
+	}
+
+	/**
+	 * Lets the player who is next to play think about the next shot while
+	 * this one is played back. Runs once the course of the shot is known, on
+	 * a task of its own. The state after the shot is predicted from the
+	 * precomputed course of the shot, by applying the rules to a copy of the
+	 * state.
+	 * 
+	 * @param predicted
+	 *            a copy of the state before the shot, which is changed to the
+	 *            state after it
+	 */
+	private void ponder(GameState predicted) {
+		Timeline timeline = ((PrescheduledSimulation) sim).getTimeline();
+		GameLogicHandler predictor = new GameLogicHandler(predicted);
+		for (int i = 0; i < timeline.getEventCount(); i++) {
+			predictor.handle(timeline.getEvent(i));
+		}
+		for (BilliardBall b : predicted.getBalls()) {
+			timeline.getBall(b, timeline.getEndTime());
+			b.setTime(0);
+		}
+		predictor.updateState(predicted);
+
+		if (predicted.getBalls().size() <= 1 || predictor.cueBallPocketed()) {
+			// the next phase is not an aiming phase
+			return;
+		}
+		ControllingUnit next = predicted.getCurrentPlayer()
+				.getControllingUnit();
+		if (next instanceof PonderingUnit) {
+			logger.log(Level.FINE, "Pondering during playback", next);
+			((PonderingUnit) next).ponder(predicted);
+		}
+	}
+
+	/**
+	 * Plays the shot to its end without presentation and finishes the phase.
+	 * The balls of the state are moved to their final positions.
+	 * 
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting for the
+	 *             simulation to be initialized
+	 * @throws IllegalStateException
+	 *             if the simulation could not be initialized
+	 */
+	public void playOut() throws InterruptedException {
+		try {
+			preScheduleSim.get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Prescheduling failed", e
+					.getCause());
+		}
+		sim.finish();
+		for (BilliardBall b : state.getBalls()) {
+			sim.getBall(b);
+		}
+		finish();
 	}
 
 	@Override
@@ -71,6 +196,7 @@ public class SimulationPhase extends GamePhase {
 		if (isFinished()) {
 			return;
 		}
+		awaitPonder();
 
 		for (BilliardBall b : state.getBalls()) {
 			b.setTime(0);
@@ -79,9 +205,9 @@ public class SimulationPhase extends GamePhase {
 		logicHandler.updateState(state);
 
 		if (state.getBalls().size() <= 1) {
-			System.out.println("Scores");
+			logger.log(Level.INFO, "Scores");
 			for (Player p : state.getPlayers()) {
-				System.out.println(p.getName() + ", " + p.getScore());
+				logger.log(Level.INFO, p.getName() + ", " + p.getScore());
 			}
 			setNext(new FrameInitPhase(state));
 		} else if (logicHandler.cueBallPocketed()) {
@@ -94,6 +220,27 @@ public class SimulationPhase extends GamePhase {
 
 	}
 
+	/**
+	 * Waits until the next player has been handed the predicted state. The
+	 * next turn must not begin before, since the unit of the player uses the
+	 * same random stream for pondering and for its turn.
+	 */
+	private void awaitPonder() {
+		if (ponderTask == null) {
+			return;
+		}
+		try {
+			ponderTask.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.log(Level.WARNING, "Pondering failed", e.getCause());
+		} catch (CancellationException e) {
+			// the shot could not be prescheduled, so there is nothing to
+			// ponder about
+		}
+	}
+
 	/**
 	 * Gets the current simulation
 	 * 
@@ -12,6 +12,7 @@ import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.Player;
 import de.danielmescheder.snooker.gameflow.GameState;
 import de.danielmescheder.snooker.simulation.EventHandler;
+import de.danielmescheder.snooker.simulation.Simulation;
 import de.danielmescheder.snooker.simulation.event.BallCollision;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.event.PocketingEvent;
@@ -48,6 +49,17 @@ public class GameLogicHandler implements EventHandler {
 		}
 	}
 
+	/**
+	 * Adds this handler to the given simulation for the events the rules are
+	 * about, so that it is not called for the others
+	 * 
+	 * @param sim
+	 *            the simulation
+	 */
+	public void observe(Simulation sim) {
+		sim.addEventHandler(this, BallCollision.class, PocketingEvent.class);
+	}
+
 	/* EVENT HANDLERS */
 
 	@Override
@@ -274,15 +286,16 @@ public class GameLogicHandler implements EventHandler {
 		}
 
 		if (!foundSpot) {
-			// all spots were occupied
-			spot = state.getTable().getInitialSpot(ball.getType());
+			// all spots were occupied; the spot of the table is shared by all
+			// states, so the search moves a copy
+			spot = state.getTable().getInitialSpot(ball.getType()).clone();
 			float step = .001f;
 			// move from default spot to top cushion until there is a free spot
 			while (!foundSpot) {
 				spot.y += step;
 				if (spot.y > state.getTable().getLength() - ball.getRadius()) {
 					// top cushion is reached, search towards bottom cushion
-					spot = state.getTable().getInitialSpot(ball.getType());
+					spot = state.getTable().getInitialSpot(ball.getType()).clone();
 					step = -step;
 					spot.y += step;
 				}
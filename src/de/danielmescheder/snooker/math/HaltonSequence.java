@@ -0,0 +1,87 @@
+package de.danielmescheder.snooker.math;
+
+/**
+ * The HaltonSequence is a low-discrepancy sequence of points in the unit cube.
+ * The coordinate of a point in dimension d is the radical inverse of its index
+ * in the d-th prime base. Unlike independent random points, the points of the
+ * sequence cover the cube evenly, so the mean of a function over the first n
+ * points converges much faster than a plain Monte Carlo estimate.
+ *
+ * A sequence can be randomized by a random shift of all points modulo 1
+ * (Cranley-Patterson rotation). The points are then still evenly spread, but
+ * every sequence is a different, unbiased sample.
+ *
+ */
+public class HaltonSequence {
+	private static final int[] PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29,
+			31, 37 };
+
+	private final double[] shift;
+
+	/**
+	 * Constructs a new HaltonSequence without a shift
+	 *
+	 * @param dimensions
+	 *            the number of coordinates of a point
+	 */
+	public HaltonSequence(int dimensions) {
+		if (dimensions < 1 || dimensions > PRIMES.length) {
+			throw new IllegalArgumentException("Cannot create a sequence in "
+					+ dimensions + " dimensions");
+		}
+		shift = new double[dimensions];
+	}
+
+	/**
+	 * Constructs a new HaltonSequence whose points are shifted by a random
+	 * vector
+	 *
+	 * @param dimensions
+	 *            the number of coordinates of a point
+	 * @param random
+	 *            the stream the shift is drawn from
+	 */
+	public HaltonSequence(int dimensions, RandomStream random) {
+		this(dimensions);
+		for (int d = 0; d < dimensions; d++) {
+			shift[d] = random.nextDouble();
+		}
+	}
+
+	/**
+	 * Gets the number of coordinates of a point
+	 *
+	 * @return the number of dimensions
+	 */
+	public int getDimensions() {
+		return shift.length;
+	}
+
+	/**
+	 * Gets a coordinate of a point of the sequence
+	 *
+	 * @param index
+	 *            the index of the point
+	 * @param dimension
+	 *            the dimension of the coordinate
+	 * @return the coordinate in [0, 1)
+	 */
+	public double get(int index, int dimension) {
+		// the point 0 lies in the corner of the cube, so the sequence starts
+		// with the point 1
+		double value = radicalInverse(index + 1, PRIMES[dimension])
+				+ shift[dimension];
+		return value >= 1 ? value - 1 : value;
+	}
+
+	private static double radicalInverse(int index, int base) {
+		double result = 0;
+		double digit = 1.0 / base;
+		while (index > 0) {
+			result += (index % base) * digit;
+			index /= base;
+			digit /= base;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,238 @@
+package de.danielmescheder.snooker.math;
+
+/**
+ * The IntervalRootFinder finds the smallest root of a polynomial of up to
+ * fourth order inside a given interval. Polynomials of up to second order are
+ * solved in closed form. For higher orders the interval is split at the roots
+ * of the derivative, which are found recursively, into pieces on which the
+ * polynomial is monotonic. The first piece with a sign change contains the
+ * root, which is then refined by a safeguarded Newton iteration.
+ *
+ * Unlike the {@link BairstowSolver}, the finder never looks for roots outside
+ * the interval and gives up early if a simple bound shows that there cannot
+ * be one. It does not allocate any memory while solving, so an instance must
+ * not be shared between threads.
+ *
+ */
+public class IntervalRootFinder {
+	/**
+	 * Coefficients of the highest orders that are smaller than this are
+	 * ignored, and roots that are at most this much smaller than the lower end
+	 * of the interval are still reported.
+	 */
+	public static double THRESHOLD;
+
+	public static final int MAX_ORDER = 4;
+	private static final int MAX_ITERATIONS = 100;
+
+	// derivatives[k] holds the coefficients of the k-th derivative
+	private final double[][] derivatives;
+	// breakpoints[k] holds the sorted roots of the k-th derivative
+	private final double[][] breakpoints;
+
+	/**
+	 * Constructs a new finder
+	 */
+	public IntervalRootFinder() {
+		derivatives = new double[MAX_ORDER + 1][MAX_ORDER + 1];
+		breakpoints = new double[MAX_ORDER + 1][MAX_ORDER + 2];
+	}
+
+	/**
+	 * Finds the smallest root of the given polynomial in the interval [0,
+	 * max].
+	 *
+	 * @param coefficients
+	 *            an array with the coefficients stored in the way: f(x) =
+	 *            coeff[0] + coeff[1]*(X^1) + ... + coeff[order]*(X^order),
+	 *            where the order is at most {@link #MAX_ORDER}
+	 * @param max
+	 *            the upper end of the interval, which may be infinite
+	 * @return the smallest root, which may be slightly smaller than 0 (see
+	 *         {@link #THRESHOLD}), or -1 if there is no root in the interval
+	 */
+	public double smallestRoot(double[] coefficients, double max) {
+		int order = coefficients.length - 1;
+		while (order >= 0 && Math.abs(coefficients[order]) < THRESHOLD) {
+			order--;
+		}
+		if (order <= 0) {
+			return -1;
+		}
+		if (order > MAX_ORDER) {
+			throw new IllegalArgumentException("Order " + order
+					+ " is too high, at most " + MAX_ORDER + " is supported");
+		}
+
+		double lo = -THRESHOLD;
+		double hi = Math.min(max, cauchyBound(coefficients, order));
+		if (hi < lo || noRootBelow(coefficients, order, hi)) {
+			return -1;
+		}
+
+		double[] p = derivatives[0];
+		System.arraycopy(coefficients, 0, p, 0, order + 1);
+		for (int k = 1; k < order; k++) {
+			double[] prev = derivatives[k - 1];
+			double[] d = derivatives[k];
+			for (int i = 0; i <= order - k; i++) {
+				d[i] = (i + 1) * prev[i + 1];
+			}
+		}
+
+		double[] roots = breakpoints[0];
+		int count = roots(0, order, lo, hi, true);
+		return count > 0 ? roots[0] : -1;
+	}
+
+	/**
+	 * Finds the roots of the k-th derivative in [lo, hi] and stores them in
+	 * ascending order in breakpoints[k].
+	 *
+	 * @return the number of roots found
+	 */
+	private int roots(int k, int order, double lo, double hi, boolean firstOnly) {
+		double[] p = derivatives[k];
+		double[] out = breakpoints[k];
+		int n = order - k;
+
+		if (n == 1) {
+			double r = -p[0] / p[1];
+			if (r >= lo && r <= hi) {
+				out[0] = r;
+				return 1;
+			}
+			return 0;
+		}
+		if (n == 2) {
+			return quadraticRoots(p, lo, hi, out);
+		}
+
+		// the polynomial is monotonic between the roots of its derivative
+		int critical = roots(k + 1, order, lo, hi, false);
+		double[] c = breakpoints[k + 1];
+		int count = 0;
+		double a = lo;
+		double fa = evaluate(p, n, a);
+		for (int i = 0; i <= critical; i++) {
+			double b = i < critical ? c[i] : hi;
+			double fb = evaluate(p, n, b);
+			if (fa == 0) {
+				if (count == 0 || out[count - 1] != a) {
+					out[count++] = a;
+				}
+			} else if (fa * fb < 0) {
+				out[count++] = refine(p, k, n, a, b, fa);
+			}
+			if (count > 0 && firstOnly) {
+				return count;
+			}
+			a = b;
+			fa = fb;
+		}
+		if (fa == 0 && (count == 0 || out[count - 1] != a)) {
+			out[count++] = a;
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the roots of a quadratic polynomial in [lo, hi] without
+	 * cancellation
+	 */
+	private static int quadraticRoots(double[] p, double lo, double hi,
+			double[] out) {
+		double disc = p[1] * p[1] - 4 * p[2] * p[0];
+		if (disc < 0) {
+			return 0;
+		}
+		double q = -0.5 * (p[1] + Math.copySign(Math.sqrt(disc), p[1]));
+		double r1 = q / p[2];
+		double r2 = q != 0 ? p[0] / q : r1;
+		if (r1 > r2) {
+			double t = r1;
+			r1 = r2;
+			r2 = t;
+		}
+		int count = 0;
+		if (r1 >= lo && r1 <= hi) {
+			out[count++] = r1;
+		}
+		if (r2 >= lo && r2 <= hi && r2 != r1) {
+			out[count++] = r2;
+		}
+		return count;
+	}
+
+	/**
+	 * Refines the root of a polynomial that is monotonic in [a, b] and changes
+	 * its sign there
+	 */
+	private double refine(double[] p, int k, int n, double a, double b,
+			double fa) {
+		double[] d = derivatives[k + 1];
+		double x = 0.5 * (a + b);
+		for (int i = 0; i < MAX_ITERATIONS; i++) {
+			double fx = evaluate(p, n, x);
+			if (fx == 0) {
+				return x;
+			}
+			if ((fx < 0) == (fa < 0)) {
+				a = x;
+				fa = fx;
+			} else {
+				b = x;
+			}
+			double dx = evaluate(d, n - 1, x);
+			double next = x - fx / dx;
+			// fall back to bisection if Newton leaves the bracket
+			if (!(next > a && next < b)) {
+				next = 0.5 * (a + b);
+			}
+			if (Math.abs(next - x) <= 1E-15 * Math.max(1, Math.abs(x))
+					|| b - a <= 1E-15 * Math.max(1, Math.abs(a))) {
+				return next;
+			}
+			x = next;
+		}
+		return x;
+	}
+
+	private static double evaluate(double[] p, int n, double x) {
+		double y = p[n];
+		for (int i = n - 1; i >= 0; i--) {
+			y = y * x + p[i];
+		}
+		return y;
+	}
+
+	/**
+	 * All roots lie within this distance from 0
+	 */
+	private static double cauchyBound(double[] p, int n) {
+		double max = 0;
+		for (int i = 0; i < n; i++) {
+			max = Math.max(max, Math.abs(p[i] / p[n]));
+		}
+		return 1 + max;
+	}
+
+	/**
+	 * Checks whether the polynomial is positive on all of [0, hi], using that
+	 * it is bounded from below by its constant minus all negative terms at hi
+	 */
+	private static boolean noRootBelow(double[] p, int n, double hi) {
+		if (p[0] < THRESHOLD) {
+			return false;
+		}
+		double bound = p[0];
+		double power = 1;
+		for (int i = 1; i <= n; i++) {
+			power *= hi;
+			if (p[i] < 0) {
+				bound += p[i] * power;
+			}
+		}
+		return bound > 0;
+	}
+}
@@ -0,0 +1,119 @@
+package de.danielmescheder.snooker.math;
+
+import java.util.SplittableRandom;
+
+/**
+ * The RandomStream is a seeded stream of pseudo random numbers that can be
+ * split into independent streams. The numbers and the splits come from a
+ * {@link SplittableRandom}. The floats, ints and normally distributed values
+ * are derived from its longs here, because the way SplittableRandom derives
+ * them differs between Java versions, which would change the results of a
+ * seed.
+ *
+ * A component that needs random numbers gets a stream of its own, split from
+ * the stream of its owner. All numbers drawn by an AI therefore follow from a
+ * single seed, no matter how many components and threads draw them. A stream
+ * must not be shared between threads; split it instead.
+ *
+ */
+public class RandomStream {
+	private static final float FLOAT_UNIT = 1f / (1 << 24);
+
+	private final SplittableRandom random;
+
+	private double nextGaussian;
+	private boolean haveNextGaussian;
+
+	/**
+	 * Constructs a new stream with the given seed. Streams with the same seed
+	 * produce the same numbers.
+	 *
+	 * @param seed
+	 *            the seed
+	 */
+	public RandomStream(long seed) {
+		this(new SplittableRandom(seed));
+	}
+
+	/**
+	 * Constructs a new stream whose seed is different for every stream
+	 * created this way
+	 */
+	public RandomStream() {
+		this(new SplittableRandom());
+	}
+
+	private RandomStream(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * Creates a new stream that is independent of this one. The new stream
+	 * follows from the current state of this stream, so the streams split
+	 * from a seeded stream are the same in every run.
+	 *
+	 * @return the new stream
+	 */
+	public RandomStream split() {
+		return new RandomStream(random.split());
+	}
+
+	/**
+	 * Gets the next pseudo random long
+	 *
+	 * @return a value out of the whole range of long
+	 */
+	public long nextLong() {
+		return random.nextLong();
+	}
+
+	/**
+	 * Gets the next pseudo random int
+	 *
+	 * @return a value out of the whole range of int
+	 */
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	/**
+	 * Gets the next pseudo random float
+	 *
+	 * @return a value uniformly distributed in [0, 1)
+	 */
+	public float nextFloat() {
+		return (nextInt() >>> 8) * FLOAT_UNIT;
+	}
+
+	/**
+	 * Gets the next pseudo random double
+	 *
+	 * @return a value uniformly distributed in [0, 1)
+	 */
+	public double nextDouble() {
+		return random.nextDouble();
+	}
+
+	/**
+	 * Gets the next pseudo random value of the standard normal distribution.
+	 * The values are created in pairs by the polar method.
+	 *
+	 * @return a normally distributed value with mean 0 and deviation 1
+	 */
+	public double nextGaussian() {
+		if (haveNextGaussian) {
+			haveNextGaussian = false;
+			return nextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		double multiplier = Math.sqrt(-2 * Math.log(s) / s);
+		nextGaussian = v2 * multiplier;
+		haveNextGaussian = true;
+		return v1 * multiplier;
+	}
+}
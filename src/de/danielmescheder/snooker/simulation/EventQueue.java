@@ -0,0 +1,63 @@
+package de.danielmescheder.snooker.simulation;
+
+import de.danielmescheder.snooker.simulation.event.Event;
+
+/**
+ * An EventQueue keeps the scheduled events of a {@link Simulation} ordered by
+ * their time. In contrast to a plain priority queue it also supports the
+ * cancellation of arbitrary events, which is needed whenever the motion of a
+ * ball changes and its predicted events become invalid. The queue keeps track
+ * of the location of every event in the event itself, so an event can be in at
+ * most one queue at a time.
+ * 
+ */
+public interface EventQueue {
+	/**
+	 * Schedules an event at its time.
+	 * 
+	 * @param e
+	 *            the event
+	 */
+	public void insert(Event e);
+
+	/**
+	 * Cancels a scheduled event.
+	 * 
+	 * @param e
+	 *            an event that is stored in this queue
+	 */
+	public void remove(Event e);
+
+	/**
+	 * Returns the earliest event without removing it.
+	 * 
+	 * @return the earliest event; null if the queue is empty
+	 */
+	public Event minElement();
+
+	/**
+	 * Returns and removes the earliest event.
+	 * 
+	 * @return the earliest event; null if the queue is empty
+	 */
+	public Event removeMin();
+
+	/**
+	 * Removes all events from the queue.
+	 */
+	public void clear();
+
+	/**
+	 * Gives the number of scheduled events
+	 * 
+	 * @return the size of the queue
+	 */
+	public int size();
+
+	/**
+	 * Returns whether the queue is empty.
+	 * 
+	 * @return true if there are zero events.
+	 */
+	public boolean isEmpty();
+}
@@ -0,0 +1,209 @@
+package de.danielmescheder.snooker.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.jme.math.FastMath;
+import com.jme.math.Vector3f;
+
+import de.danielmescheder.snooker.domain.CollidableGameObject;
+import de.danielmescheder.snooker.domain.Cushion;
+import de.danielmescheder.snooker.domain.Pocket;
+import de.danielmescheder.snooker.domain.PocketCorner;
+import de.danielmescheder.snooker.domain.SphericalGameObject;
+import de.danielmescheder.snooker.domain.Table;
+import de.danielmescheder.snooker.domain.Tile;
+import de.danielmescheder.snooker.domain.Cushion.Orientation;
+
+/**
+ * The GeometryIndex assigns the static objects of a {@link Table}, that is
+ * its cushions, pockets and pocket corners, to the tiles of a grid. It is
+ * computed once per table and grid size and shared by all simulations on that
+ * table, which only add their balls to the tiles they create from it.
+ *
+ * An index never changes after it has been built. The geometry of a table must
+ * therefore not be changed once simulations have been created for it.
+ *
+ */
+public class GeometryIndex {
+	private static final Logger logger = Logger.getLogger(GeometryIndex.class
+			.getName());
+
+	private static final Map<Table, Map<List<Integer>, GeometryIndex>> indices = new WeakHashMap<Table, Map<List<Integer>, GeometryIndex>>();
+
+	private final int hTiles, vTiles;
+	private final Tile[][] prototypes;
+
+	/**
+	 * Gets the index of the given table and grid size. The index is built on
+	 * the first request and reused afterwards.
+	 *
+	 * @param table
+	 *            the table
+	 * @param hTiles
+	 *            the number of tiles along the width of the table
+	 * @param vTiles
+	 *            the number of tiles along the length of the table
+	 * @return the index
+	 */
+	public static GeometryIndex forTable(Table table, int hTiles, int vTiles) {
+		synchronized (indices) {
+			Map<List<Integer>, GeometryIndex> grids = indices.get(table);
+			if (grids == null) {
+				grids = new HashMap<List<Integer>, GeometryIndex>();
+				indices.put(table, grids);
+			}
+			List<Integer> key = Arrays.asList(hTiles, vTiles);
+			GeometryIndex index = grids.get(key);
+			if (index == null) {
+				index = new GeometryIndex(table, hTiles, vTiles);
+				grids.put(key, index);
+			}
+			return index;
+		}
+	}
+
+	private GeometryIndex(Table table, int hTiles, int vTiles) {
+		this.hTiles = hTiles;
+		this.vTiles = vTiles;
+		prototypes = new Tile[hTiles][vTiles];
+
+		float tileWidth = (4 * table.getPocketRadius() + table.getWidth())
+				/ hTiles;
+		float tileLength = (4 * table.getPocketRadius() + table.getLength())
+				/ vTiles;
+
+		for (int i = 0; i < hTiles; i++) {
+			for (int j = 0; j < vTiles; j++) {
+				Tile bounds = new Tile("(" + i + "," + j + ")", i * tileWidth
+						- 2 * table.getPocketRadius(), (i + 1) * tileWidth - 2
+						* table.getPocketRadius(), j * tileLength - 2
+						* table.getPocketRadius(), (j + 1) * tileLength - 2
+						* table.getPocketRadius());
+				logger.log(Level.FINE, "Creating tile ", bounds);
+
+				List<CollidableGameObject> content = new ArrayList<CollidableGameObject>();
+				for (Cushion c : table.getCushions()) {
+					if (cushionInTile(c, bounds)) {
+						content.add(c);
+						logger.log(Level.FINE, "Adding cushion to tile " + c
+								+ " " + bounds);
+					}
+				}
+				for (Pocket p : table.getPockets()) {
+					// a ball is pocketed as soon as its centre enters the pocket
+					if (sphereInTile(p.getPosition(), p.getOuterRadius()
+							- table.getBallRadius(), bounds)) {
+						content.add(p);
+						logger.log(Level.FINE, "Adding pocket to tile " + p
+								+ " " + bounds);
+					}
+				}
+				for (PocketCorner pc : table.getPocketCorners()) {
+					if (sphereInTile(pc, bounds)) {
+						content.add(pc);
+						logger.log(Level.FINE, "Adding pocket corner to tile "
+								+ pc + " " + bounds);
+					}
+				}
+				prototypes[i][j] = new Tile(bounds, Collections
+						.unmodifiableList(content));
+			}
+		}
+	}
+
+	public int getHTiles() {
+		return hTiles;
+	}
+
+	public int getVTiles() {
+		return vTiles;
+	}
+
+	/**
+	 * Creates a grid of new tiles that contain the static objects of the
+	 * table, but no balls. Neighbouring tiles are linked to each other.
+	 *
+	 * @return the tiles
+	 */
+	public Tile[][] createTiles() {
+		Tile[][] tiles = new Tile[hTiles][vTiles];
+		for (int i = 0; i < hTiles; i++) {
+			for (int j = 0; j < vTiles; j++) {
+				tiles[i][j] = (Tile) prototypes[i][j].clone();
+				if (i != 0) {
+					tiles[i][j].setWestTile(tiles[i - 1][j]);
+					tiles[i - 1][j].setEastTile(tiles[i][j]);
+				}
+				if (j != 0) {
+					tiles[i][j].setSouthTile(tiles[i][j - 1]);
+					tiles[i][j - 1].setNorthTile(tiles[i][j]);
+				}
+			}
+		}
+		return tiles;
+	}
+
+	public static boolean sphereInTile(SphericalGameObject s, Tile t) {
+		return sphereInTile(s.getPosition(), s.getRadius(), t);
+	}
+
+	public static boolean sphereInTile(Vector3f position, float radius, Tile t) {
+		float dx = Math.abs(position.x - t.getLowerBoundX() - t.getWidth() / 2);
+		float dy = Math.abs(position.y - t.getLowerBoundY() - t.getLength() / 2);
+
+		if (dx > (t.getWidth() / 2 + radius)) {
+			return false;
+		}
+		if (dy > (t.getLength() / 2 + radius)) {
+			return false;
+		}
+
+		if (dx <= (t.getWidth() / 2)) {
+			return true;
+		}
+		if (dy <= (t.getLength() / 2)) {
+			return true;
+		}
+
+		float cornerDistance = FastMath.sqrt(FastMath.sqr(dx - t.getWidth()
+				/ 2)
+				+ FastMath.sqr(dy - t.getLength() / 2));
+
+		return (cornerDistance <= radius);
+	}
+
+	private static boolean cushionInTile(Cushion c, Tile t) {
+		if (c.getOrientation() == Orientation.NORTH
+				|| c.getOrientation() == Orientation.SOUTH) {
+			if (c.getPosition().y < t.getLowerBoundY()
+					|| c.getPosition().y > t.getUpperBoundY()) {
+				logger.log(Level.FINER, "Horizontal Cushion not in tile", c);
+				return false;
+			}
+			if (c.getLength() + 2 * c.getPosition().x - 2 * t.getLowerBoundX() > -Simulation.SPACE_THRESHOLD) {
+				logger.log(Level.FINER, "Horizontal Cushion in tile", c);
+				return true;
+			}
+		} else {
+			if (c.getPosition().x < t.getLowerBoundX()
+					|| c.getPosition().x > t.getUpperBoundX()) {
+				logger.log(Level.FINER, "Vertical Cushion not in tile", c);
+				return false;
+			}
+			if ((c.getLength() + 2 * c.getPosition().y - 2 * t.getLowerBoundY()) > -Simulation.SPACE_THRESHOLD) {
+				logger.log(Level.FINER, "Vertical Cushion in tile", c);
+				return true;
+			}
+		}
+		logger.log(Level.FINER, "Cushion not in tile", c);
+		return false;
+	}
+}
@@ -0,0 +1,168 @@
+package de.danielmescheder.snooker.simulation;
+
+import java.util.Arrays;
+
+import de.danielmescheder.snooker.exception.InvalidPositionException;
+import de.danielmescheder.snooker.simulation.event.Event;
+
+/**
+ * The HeapEventQueue is an array-based binary heap that stores the index of
+ * every event in the event itself, so that scheduled events can be cancelled
+ * in O(log n). Events with equal times are returned in the order in which they
+ * were inserted. Apart from growing its arrays, the queue does not allocate
+ * any memory.
+ * 
+ */
+public class HeapEventQueue implements EventQueue {
+	private Event[] heap;
+	private float[] times;
+	private long[] order;
+	private int size;
+	private long inserted;
+
+	/**
+	 * Constructs an empty queue
+	 */
+	public HeapEventQueue() {
+		this(64);
+	}
+
+	/**
+	 * Constructs an empty queue
+	 * 
+	 * @param capacity
+	 *            the number of events the queue can hold before it grows
+	 */
+	public HeapEventQueue(int capacity) {
+		heap = new Event[Math.max(1, capacity)];
+		times = new float[heap.length];
+		order = new long[heap.length];
+	}
+
+	@Override
+	public void insert(Event e) {
+		if (e.getQueue() != null) {
+			throw new InvalidPositionException();
+		}
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, 2 * size);
+			times = Arrays.copyOf(times, 2 * size);
+			order = Arrays.copyOf(order, 2 * size);
+		}
+		heap[size] = e;
+		times[size] = e.getTime();
+		order[size] = inserted++;
+		e.setQueue(this);
+		e.setQueueIndex(size);
+		siftUp(size++);
+	}
+
+	@Override
+	public void remove(Event e) {
+		if (e.getQueue() != this) {
+			throw new InvalidPositionException();
+		}
+		int i = e.getQueueIndex();
+		size--;
+		if (i != size) {
+			move(size, i);
+			heap[size] = null;
+			if (i > 0 && less(i, (i - 1) / 2)) {
+				siftUp(i);
+			} else {
+				siftDown(i);
+			}
+		} else {
+			heap[size] = null;
+		}
+		e.setQueue(null);
+		e.setQueueIndex(-1);
+	}
+
+	@Override
+	public Event minElement() {
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	public Event removeMin() {
+		Event e = minElement();
+		if (e != null) {
+			remove(e);
+		}
+		return e;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			heap[i].setQueue(null);
+			heap[i].setQueueIndex(-1);
+			heap[i] = null;
+		}
+		size = 0;
+		inserted = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private boolean less(int i, int j) {
+		return times[i] < times[j]
+				|| (times[i] == times[j] && order[i] < order[j]);
+	}
+
+	private void siftUp(int i) {
+		Event e = heap[i];
+		float time = times[i];
+		long o = order[i];
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (times[parent] < time
+					|| (times[parent] == time && order[parent] < o)) {
+				break;
+			}
+			move(parent, i);
+			i = parent;
+		}
+		place(e, time, o, i);
+	}
+
+	private void siftDown(int i) {
+		Event e = heap[i];
+		float time = times[i];
+		long o = order[i];
+		int half = size / 2;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && less(child + 1, child)) {
+				child++;
+			}
+			if (time < times[child]
+					|| (time == times[child] && o < order[child])) {
+				break;
+			}
+			move(child, i);
+			i = child;
+		}
+		place(e, time, o, i);
+	}
+
+	private void move(int from, int to) {
+		place(heap[from], times[from], order[from], to);
+	}
+
+	private void place(Event e, float time, long o, int i) {
+		heap[i] = e;
+		times[i] = time;
+		order[i] = o;
+		e.setQueueIndex(i);
+	}
+}
@@ -1,11 +1,10 @@
 package de.danielmescheder.snooker.simulation;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Set;
 
-import de.danielmescheder.snooker.adt.def.List;
-import de.danielmescheder.snooker.adt.impl.AVLTree;
 import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Ball.BallState;
 import de.danielmescheder.snooker.domain.Table;
 import de.danielmescheder.snooker.simulation.event.EnterTileEvent;
 import de.danielmescheder.snooker.simulation.event.Event;
@@ -26,25 +25,97 @@ public class InTimeSimulation extends Simulation {
 
 	@Override
 	public void init(Set<? extends Event> initEvents) {
-		initials = new HashMap<BilliardBall, BilliardBall>();
-		events = new AVLTree<Float, Event>(timeComp);
+		events.clear();
 		createFromStored(initials);
 
 		for (Event e : initEvents) {
-			for (BilliardBall b : e.getBalls(initials)) {
-				List<Event> l = ballEvents.get(b).get(null);
-				l.insertLast(e);
-				e.addListOccurrence(l.last());
-				e.setPQOccurrence(events.insertItem(e.getTime(), e));
-			}
+			schedule(e, initials, null);
 		}
 
 		super.init(initEvents);
 	}
 
+	/**
+	 * Initializes the simulation with the given events, starting from the
+	 * balls of a snapshot, which replace the balls it was created with. The
+	 * snapshot is restored at time 0, so a search can try several shots from
+	 * the position of the snapshot without simulating the shot that led to it
+	 * again.
+	 * 
+	 * @param snapshot
+	 *            a snapshot of the balls of this simulation
+	 * @param initEvents
+	 *            the events to start the simulation with
+	 */
+	public void init(Snapshot snapshot, Set<? extends Event> initEvents) {
+		load(snapshot, 0);
+		for (Event e : initEvents) {
+			schedule(e, initials, null);
+		}
+		this.initEvents = initEvents;
+	}
+
+	/**
+	 * Continues the simulation from the given snapshot. The balls and the
+	 * current time are set to those of the snapshot and the events of the
+	 * balls that are still moving are predicted again. The event handlers are
+	 * kept.
+	 * 
+	 * @param snapshot
+	 *            a snapshot of the balls of this simulation
+	 */
+	public void restore(Snapshot snapshot) {
+		load(snapshot, snapshot.getTime());
+	}
+
+	/**
+	 * Creates an independent copy of this simulation at its current time. The
+	 * copy has the same settings but no event handlers and uses its own
+	 * balls, so it can be advanced without changing this simulation.
+	 * 
+	 * @return the copy
+	 */
+	public InTimeSimulation fork() {
+		InTimeSimulation copy = new InTimeSimulation(storedBalls, table);
+		copy.setLazyInvalidation(lazyInvalidation);
+		copy.setBairstow(isBairstow());
+		if (copy.hTiles != hTiles || copy.vTiles != vTiles) {
+			copy.setGridSize(hTiles, vTiles);
+		}
+		copy.restore(snapshot());
+		return copy;
+	}
+
+	private void load(Snapshot snapshot, float time) {
+		if (!snapshot.contains(storedBalls)) {
+			throw new IllegalArgumentException(
+					"The snapshot does not contain the balls of the simulation");
+		}
+		for (BilliardBall b : storedBalls) {
+			snapshot.restoreBall(b, this, time);
+		}
+		if (!snapshot.hasGeometry(geometry)) {
+			for (BilliardBall b : storedBalls) {
+				b.getTiles().clear();
+			}
+			initTiles(storedBalls);
+		}
+
+		events.clear();
+		createFromStored(initials);
+		super.init(Collections.<Event> emptySet());
+		currTime = time;
+
+		for (BilliardBall b : initials.values()) {
+			if (b.getState() != BallState.RESTING) {
+				queueEvents(b, initials);
+			}
+		}
+	}
+
 	@Override
 	public Event fetchNextEvent() {
-		return events.minElement();
+		return nextScheduledEvent(initials);
 	}
 
 	@Override
@@ -62,23 +133,25 @@ public class InTimeSimulation extends Simulation {
 					((EnterTileEvent) event).getTile());
 			event.removeOccurrences();
 		} else if (event instanceof LeaveTileEvent) {
-			clearEvents(((LeaveTileEvent) event).getBall(),
+			invalidateEvents(((LeaveTileEvent) event).getBall(),
 					((LeaveTileEvent) event).getTile());
+			event.removeOccurrences();
 		} else {
 			for (BilliardBall ball : event.getBalls(initials)) {
 
-				clearEvents(ball);
+				invalidateEvents(ball, initials);
 				// go through all balls that are involved
 				// and do the event scheduling
 				queueEvents(ball, initials);
 			}
+			event.removeOccurrences();
 		}
 
 	}
 
 	@Override
 	public boolean hasNextEvent() {
-		return events.size() > 1;
+		return nextScheduledEvent(initials) != null;
 	}
 
 }
@@ -1,14 +1,10 @@
 package de.danielmescheder.snooker.simulation;
 
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.logging.Level;
 
-import de.danielmescheder.snooker.adt.def.List;
-import de.danielmescheder.snooker.adt.impl.AVLTree;
 import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.Table;
 import de.danielmescheder.snooker.simulation.event.BallCollision;
@@ -21,14 +17,23 @@ import de.danielmescheder.snooker.simulation.event.PocketingEvent;
 /**
  * The PrescheduledSimulation implements a {@link Simulation} which, at
  * initialization, precomputes the events that will occur and stores them in a
- * queue to make playback run smoothly even on slower PCs or in computationally
- * intense situations.
+ * {@link Timeline} to make playback run smoothly even on slower PCs or in
+ * computationally intense situations.
+ * 
+ * Playback only moves the current time forward and passes the events to the
+ * event handlers; the balls are read from the timeline and the simulation
+ * state is not changed anymore.
+ * 
+ * The timeline is published as soon as the simulation starts to precompute
+ * it, so playback may start on another thread while the rest of the shot is
+ * computed. If playback catches up with the computation, the time stops at
+ * the horizon of the timeline until more of the course is known.
  * 
  */
 public class PrescheduledSimulation extends Simulation {
-	private Queue<Event> eventQueue;
-	private Queue<BallCollision> ballInteractionQueue;
-	private Queue<PocketingEvent> pocketCollisionQueue;
+	private volatile Timeline timeline;
+	// the index of the next event to be played back
+	private int next;
 
 	private Map<BilliardBall, BilliardBall> tempBalls;
 
@@ -38,59 +43,122 @@ public class PrescheduledSimulation extends Simulation {
 
 	@Override
 	public void init(Set<? extends Event> initialEvents) {
+		timeline = null;
 		tempBalls = new HashMap<BilliardBall, BilliardBall>();
 		createFromStored(tempBalls);
-		events = new AVLTree<Float, Event>(timeComp);
+		events.clear();
 
+		Timeline.Builder builder = new Timeline.Builder();
+		for (Map.Entry<BilliardBall, BilliardBall> e : tempBalls.entrySet()) {
+			builder.record(e.getKey(), e.getValue());
+		}
 		for (Event e : initialEvents) {
-			for (BilliardBall b : e.getBalls(tempBalls)) {
-
-				List<Event> l = ballEvents.get(b).get(null);
-				l.insertLast(e);
-				e.addListOccurrence(l.last());
-				e.setPQOccurrence(events.insertItem(e.getTime(), e));
-
-			}
+			schedule(e, tempBalls, null);
 		}
 
-		preSchedule();
-		initials = new HashMap<BilliardBall, BilliardBall>();
-		for (BilliardBall b : storedBalls) {
-			initials.put(b, (BilliardBall) b.clone());
-		}
+		next = 0;
 		super.init(initialEvents);
+		builder.publish(0);
+		// from here on, playback may run concurrently
+		timeline = builder.getTimeline();
+
+		try {
+			preSchedule(builder);
+			builder.build();
+		} catch (RuntimeException e) {
+			// readers of the timeline must not wait for it forever
+			builder.fail(e);
+			throw e;
+		} catch (Error e) {
+			builder.fail(e);
+			throw e;
+		}
 	}
 
+	@Override
+	public boolean isReady() {
+		return timeline != null;
+	}
+
+	/**
+	 * Gets the next event to be played back
+	 * 
+	 * @return the event; null if it has not been computed yet
+	 */
 	@Override
 	public Event fetchNextEvent() {
-		return eventQueue.element();
+		return next < timeline.getEventCount() ? timeline.getEvent(next)
+				: null;
 	}
 
 	@Override
 	public void handleEvent(Event event) {
 		logger.log(Level.INFO, "Handling prescheduled event", event);
-		super.handleEvent(event);
-		eventQueue.remove();
-		if (event instanceof PocketingEvent) {
-			pocketCollisionQueue.remove();
+		currTime = event.getTime();
+		dispatch(event);
+		next++;
+	}
+
+	/**
+	 * Tells whether there are events left to be played back, including those
+	 * that have not been computed yet
+	 * 
+	 * @throws IllegalStateException
+	 *             if the course of the shot could not be computed
+	 */
+	@Override
+	public boolean hasNextEvent() {
+		// completeness first, since the count is final once it is complete
+		return !timeline.isComplete() || next < timeline.getEventCount();
+	}
+
+	/**
+	 * Advances the time, but not beyond the horizon of the timeline
+	 */
+	@Override
+	public void advanceTime(float t) {
+		if (t < 0) {
+			throw new RuntimeException();
+		}
+		logger.log(Level.FINE, "Advancing time", t);
+
+		float newTime = Math.min(currTime + t, timeline.getHorizon());
+		Event event;
+		while (!paused && (event = fetchNextEvent()) != null
+				&& newTime > event.getTime()) {
+			handleEvent(event);
 		}
-		if (event instanceof BallCollision) {
-			ballInteractionQueue.remove();
+		if (!paused && newTime > currTime) {
+			currTime = newTime;
 		}
 	}
 
+	/**
+	 * Plays back all remaining events, waiting for the timeline to be
+	 * completed first
+	 * 
+	 * @throws IllegalStateException
+	 *             if the course of the shot could not be computed
+	 */
 	@Override
-	public boolean hasNextEvent() {
-		return !eventQueue.isEmpty();
+	public void finish() {
+		try {
+			timeline.awaitComplete();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		super.finish();
 	}
 
-	private void preSchedule() {
-		eventQueue = new LinkedList<Event>();
-		pocketCollisionQueue = new LinkedList<PocketingEvent>();
-		ballInteractionQueue = new LinkedList<BallCollision>();
+	@Override
+	public void getBall(BilliardBall b) {
+		timeline.getBall(b, currTime);
+	}
 
-		while (events.size() > 1) {
-			Event event = events.minElement();
+	private void preSchedule(Timeline.Builder builder) {
+		Event event;
+		while ((event = nextScheduledEvent(tempBalls)) != null) {
 			if (event instanceof EnterTileEvent) {
 				if (tempBalls.get(((EnterTileEvent) event).getBall())
 						.getTiles()
@@ -100,41 +168,53 @@ public class PrescheduledSimulation extends Simulation {
 				}
 			}
 			updateBallStates(event, tempBalls);
+			for (BilliardBall ball : event.getBallKeys()) {
+				builder.record(ball, tempBalls.get(ball));
+			}
 			if (event instanceof EnterTileEvent) {
 				queueEvents(((EnterTileEvent) event).getBall(), tempBalls,
 						((EnterTileEvent) event).getTile());
 				event.removeOccurrences();
 			} else if (event instanceof LeaveTileEvent) {
-				clearEvents(((LeaveTileEvent) event).getBall(),
+				invalidateEvents(((LeaveTileEvent) event).getBall(),
 						((LeaveTileEvent) event).getTile());
+				event.removeOccurrences();
 			} else {
 				for (BilliardBall ball : event.getBalls(tempBalls)) {
 
-					clearEvents(ball);
+					invalidateEvents(ball, tempBalls);
 					// go through all balls that are involved
 					// and do the event scheduling
 					queueEvents(ball, tempBalls);
 				}
+				event.removeOccurrences();
 			}
 
-			eventQueue.add(event);
-			if (event instanceof PocketingEvent) {
-				pocketCollisionQueue.add((PocketingEvent) event);
-			}
-			if (event instanceof BallCollision) {
-				ballInteractionQueue.add((BallCollision) event);
-			}
+			builder.record(event);
+			// nothing that happens later can change the course up to here
+			builder.publish(event.getTime());
 			logger.log(Level.INFO, "Prescheduling", event);
 
 		}
 	}
 
+	/**
+	 * Gets the precomputed course of the shot, which may be read at any time
+	 * from any thread, even before it is complete
+	 * 
+	 * @return the timeline; null before the simulation has started to
+	 *         precompute it
+	 */
+	public Timeline getTimeline() {
+		return timeline;
+	}
+
 	public BallCollision getNextBallInteraction() {
-		return ballInteractionQueue.peek();
+		return timeline.nextEvent(BallCollision.class, next);
 	}
 
 	public PocketingEvent getNextPocketCollision() {
-		return pocketCollisionQueue.peek();
+		return timeline.nextEvent(PocketingEvent.class, next);
 	}
 
 }
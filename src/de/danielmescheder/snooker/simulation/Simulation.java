@@ -1,7 +1,6 @@
 package de.danielmescheder.snooker.simulation;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -10,27 +9,20 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.jme.math.FastMath;
-import com.jme.math.Vector3f;
 
-import de.danielmescheder.snooker.adt.def.Comparator;
 import de.danielmescheder.snooker.adt.def.List;
-import de.danielmescheder.snooker.adt.impl.AVLTree;
 import de.danielmescheder.snooker.adt.impl.DoubleLinkedList;
 import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.CollidableGameObject;
-import de.danielmescheder.snooker.domain.Cushion;
-import de.danielmescheder.snooker.domain.Pocket;
-import de.danielmescheder.snooker.domain.PocketCorner;
-import de.danielmescheder.snooker.domain.SphericalGameObject;
 import de.danielmescheder.snooker.domain.Table;
 import de.danielmescheder.snooker.domain.Tile;
 import de.danielmescheder.snooker.domain.Ball.BallState;
-import de.danielmescheder.snooker.domain.Cushion.Orientation;
 import de.danielmescheder.snooker.simulation.event.EnterTileEvent;
 import de.danielmescheder.snooker.simulation.event.Event;
 import de.danielmescheder.snooker.simulation.event.LeaveTileEvent;
 import de.danielmescheder.snooker.simulation.event.StateChange;
 import de.danielmescheder.snooker.simulation.event.TilingEvent;
+import de.danielmescheder.snooker.simulation.physics.PhysicsContext;
 
 
 /**
@@ -46,236 +38,415 @@ public abstract class Simulation {
 	protected static final Logger logger = Logger.getLogger(Simulation.class
 			.getName());
 
-	protected final int hTiles = 3, vTiles = 4;
+	/**
+	 * The number of tiles that {@link #autoTileSize(Table, int)} uses for the
+	 * cushions and pockets alone
+	 */
+	public static final int STATIC_TILES = 4;
+	/**
+	 * The number of balls per additional tile in
+	 * {@link #autoTileSize(Table, int)}
+	 */
+	public static final float BALLS_PER_TILE = 1;
+
+	protected int hTiles, vTiles;
 
 	protected float currTime;
 	protected boolean paused;
 	protected boolean ready;
 
-	protected AVLTree<Float, Event> events;
+	protected EventQueue events;
 	protected Map<BilliardBall, Map<Tile, List<Event>>> ballEvents;
 	protected Map<BilliardBall, BilliardBall> initials;
 	protected Set<BilliardBall> storedBalls;
 	protected Table table;
-	protected Collection<EventHandler> handlers;
+	private final ArrayList<Registration> registrations = new ArrayList<Registration>();
+	// the registrations that receive each class of events, in the order in
+	// which they were made
+	private final Map<Class<?>, Registration[]> dispatch = new HashMap<Class<?>, Registration[]>();
 
 	protected Tile[][] storedTiles;
 	protected Tile[][] tiles;
+	protected GeometryIndex geometry;
 
-	protected TimeComparator timeComp;
+	protected PhysicsContext physics;
 
-	private class TimeComparator implements Comparator<Float> {
-		public boolean isComparable(Float a) {
-			return true;
-		}
+	// the events the current run was initialized with
+	protected Set<? extends Event> initEvents;
 
-		public boolean isEqual(Float a, Float b) {
-			return Math.abs(a - b) < TIME_THRESHOLD;
-		}
+	/**
+	 * If set, predicted events are not removed from the queue when they become
+	 * invalid. Instead, every event remembers the generations of the balls it
+	 * involves and the tile in which it was found, and outdated events are
+	 * discarded when they reach the head of the queue.
+	 */
+	protected boolean lazyInvalidation = true;
 
-		public boolean isGreater(Float a, Float b) {
-			return (a - b) > TIME_THRESHOLD;
-		}
+	// whether the grid size is chosen for the balls on every reset
+	private boolean autoGrid = true;
 
-		public boolean isGreaterOrEqual(Float a, Float b) {
-			return (a - b) > -TIME_THRESHOLD;
-		}
+	public Simulation(Set<BilliardBall> balls, Table table) {
+		storedBalls = new HashSet<BilliardBall>();
+		this.physics = new PhysicsContext();
+		events = new HeapEventQueue();
+
+		initials = new HashMap<BilliardBall, BilliardBall>();
+		reset(balls, table);
+	}
 
-		public boolean isLess(Float a, Float b) {
-			return (a - b) < -TIME_THRESHOLD;
+	/**
+	 * Prepares this simulation for the given balls and table, as if it had
+	 * just been constructed with them. The balls, tiles, maps and queues of
+	 * the previous runs are reused, so that a simulation can be recycled
+	 * without allocating its structures again. The event handlers and the
+	 * other settings are kept. A grid size that was set explicitly is kept as
+	 * well; otherwise the grid size is chosen for the new balls.
+	 * 
+	 * @param balls
+	 *            the balls
+	 * @param table
+	 *            the table
+	 */
+	public void reset(Set<BilliardBall> balls, Table table) {
+		if (balls.size() == storedBalls.size()
+				&& storedBalls.containsAll(balls)) {
+			for (BilliardBall stored : storedBalls) {
+				for (BilliardBall b : balls) {
+					if (b.equals(stored)) {
+						stored.set(b);
+						break;
+					}
+				}
+			}
+		} else {
+			storedBalls.clear();
+			initials.clear();
+			for (BilliardBall b : balls) {
+				storedBalls.add((BilliardBall) b.clone());
+			}
 		}
 
-		public boolean isLessOrEqual(Float a, Float b) {
-			return (a - b) < TIME_THRESHOLD;
+		this.table = table;
+		if (autoGrid) {
+			setAutoGridSize();
+		} else {
+			applyGridSize(hTiles, vTiles);
 		}
+	}
 
+	/**
+	 * Replaces the queue that keeps the scheduled events. The new queue is
+	 * used from the next call to init on.
+	 * 
+	 * @param queue
+	 *            an empty event queue
+	 */
+	public void setEventQueue(EventQueue queue) {
+		events = queue;
 	}
 
-	public Simulation(Set<BilliardBall> balls, Table table) {
-		storedBalls = new HashSet<BilliardBall>();
-		for (BilliardBall b : balls) {
-			storedBalls.add((BilliardBall) b.clone());
+	/**
+	 * Divides the table into a grid of the given size. The new grid is used
+	 * from the next call to init on and is kept when the simulation is reset.
+	 * 
+	 * @param hTiles
+	 *            the number of tiles along the width of the table
+	 * @param vTiles
+	 *            the number of tiles along the length of the table
+	 */
+	public void setGridSize(int hTiles, int vTiles) {
+		if (hTiles < 1 || vTiles < 1) {
+			throw new IllegalArgumentException(
+					"The grid needs at least one tile in each direction");
 		}
+		autoGrid = false;
+		applyGridSize(hTiles, vTiles);
+	}
 
-		this.table = table;
-		this.timeComp = new TimeComparator();
-		this.handlers = new ArrayList<EventHandler>();
+	private void applyGridSize(int hTiles, int vTiles) {
+		this.hTiles = hTiles;
+		this.vTiles = vTiles;
+		for (BilliardBall b : storedBalls) {
+			b.getTiles().clear();
+		}
 		initTiles(storedBalls);
-		events = new AVLTree<Float, Event>(timeComp);
+	}
 
-		initials = new HashMap<BilliardBall, BilliardBall>();
+	/**
+	 * Divides the table into a grid of roughly square tiles of the given size
+	 * 
+	 * @param size
+	 *            the edge length of a tile
+	 */
+	public void setTileSize(float size) {
+		setGridSize(Math.max(1, Math.round(getGridWidth() / size)), Math.max(
+				1, Math.round(getGridLength() / size)));
+	}
+
+	/**
+	 * Chooses the grid size by {@link #autoTileSize(Table, int)} for the balls
+	 * of this simulation, and again whenever the simulation is reset
+	 */
+	public void setAutoGridSize() {
+		autoGrid = true;
+		float size = autoTileSize(table, storedBalls.size());
+		applyGridSize(Math.max(1, Math.round(getGridWidth() / size)), Math
+				.max(1, Math.round(getGridLength() / size)));
+	}
+
+	/**
+	 * Computes a tile size for the given number of balls. Small tiles reduce
+	 * the number of objects a ball is checked against, but cause more tile
+	 * transitions. The grid gets {@link #STATIC_TILES} tiles, to separate the
+	 * cushions and pockets, and one more tile for every
+	 * {@link #BALLS_PER_TILE} balls.
+	 * 
+	 * @param table
+	 *            the table
+	 * @param ballCount
+	 *            the number of balls on the table
+	 * @return the edge length of a tile
+	 */
+	public static float autoTileSize(Table table, int ballCount) {
+		float width = 4 * table.getPocketRadius() + table.getWidth();
+		float length = 4 * table.getPocketRadius() + table.getLength();
+		return FastMath.sqrt(width * length
+				/ (STATIC_TILES + ballCount / BALLS_PER_TILE));
+	}
+
+	public int getHTiles() {
+		return hTiles;
+	}
+
+	public int getVTiles() {
+		return vTiles;
+	}
+
+	private float getGridWidth() {
+		return 4 * table.getPocketRadius() + table.getWidth();
+	}
+
+	private float getGridLength() {
+		return 4 * table.getPocketRadius() + table.getLength();
+	}
+
+	/**
+	 * Chooses how outdated events are removed from the queue. With eager
+	 * invalidation, every event is linked into per-ball and per-tile lists and
+	 * unlinked from all of them as soon as it becomes invalid. With lazy
+	 * invalidation, a change of motion only increases the generation of the
+	 * ball, and outdated events are skipped when they would be handled. Both
+	 * modes handle the same events. The new mode is used from the next call to
+	 * init on.
+	 * 
+	 * @param lazy
+	 *            true for lazy invalidation, false for eager invalidation
+	 */
+	public void setLazyInvalidation(boolean lazy) {
+		this.lazyInvalidation = lazy;
+	}
+
+	public boolean isLazyInvalidation() {
+		return lazyInvalidation;
+	}
+
+	/**
+	 * Sets whether collision times are found with the BairstowSolver instead
+	 * of the root finder that only searches the current motion of the balls
+	 * (see {@link PhysicsContext#setBairstow(boolean)}).
+	 * 
+	 * @param bairstow
+	 *            true to use the BairstowSolver
+	 */
+	public void setBairstow(boolean bairstow) {
+		physics.setBairstow(bairstow);
+	}
+
+	public boolean isBairstow() {
+		return physics.isBairstow();
 	}
 
 	public void init(Set<? extends Event> initEvents) {
+		this.initEvents = initEvents;
 		currTime = 0;
 		paused = false;
 		ready = true;
 	}
 
 	protected void createFromStored(Map<BilliardBall, BilliardBall> target) {
-		ballEvents = new HashMap<BilliardBall, Map<Tile, List<Event>>>();
+		if (!lazyInvalidation) {
+			ballEvents = new HashMap<BilliardBall, Map<Tile, List<Event>>>();
+		}
 
 		for (BilliardBall ball : storedBalls) {
 			// Create a null entry in the ball events map for events with an
 			// unknown tile. Those events will not be deleted on tile transition
 			// and only be scheduled when queueEvents is called without a
 			// specific tile as argument.
-			Map<Tile, List<Event>> tileEvents = new HashMap<Tile, List<Event>>();
-			tileEvents.put(null, new DoubleLinkedList<Event>());
-			ballEvents.put(ball, tileEvents);
-			target.put(ball, (BilliardBall) ball.clone());
-
+			if (!lazyInvalidation) {
+				Map<Tile, List<Event>> tileEvents = new HashMap<Tile, List<Event>>();
+				tileEvents.put(null, new DoubleLinkedList<Event>());
+				ballEvents.put(ball, tileEvents);
+			}
+			BilliardBall copy = target.get(ball);
+			if (copy == null) {
+				target.put(ball, (BilliardBall) ball.clone());
+			} else {
+				copy.set(ball);
+				copy.getTiles().clear();
+			}
 		}
 
-		tiles = new Tile[hTiles][vTiles];
+		if (tiles == null) {
+			tiles = geometry.createTiles();
+		}
 		for (int i = 0; i < hTiles; i++) {
 			for (int j = 0; j < vTiles; j++) {
-				tiles[i][j] = (Tile) storedTiles[i][j].clone();
-
-				for (BilliardBall ball : storedBalls) {
-					Map<Tile, List<Event>> tileEvents = ballEvents.get(ball);
-					tileEvents.put(tiles[i][j], new DoubleLinkedList<Event>());
-				}
-
-				if (i != 0) {
-					tiles[i][j].setWestTile(tiles[i - 1][j]);
-					tiles[i - 1][j].setEastTile(tiles[i][j]);
-
-				}
-				if (j != 0) {
-					tiles[i][j].setSouthTile(tiles[i][j - 1]);
-					tiles[i][j - 1].setNorthTile(tiles[i][j]);
-
+				tiles[i][j].getBalls().clear();
+				if (!lazyInvalidation) {
+					for (BilliardBall ball : storedBalls) {
+						Map<Tile, List<Event>> tileEvents = ballEvents.get(ball);
+						tileEvents.put(tiles[i][j], new DoubleLinkedList<Event>());
+					}
 				}
 
-				for (CollidableGameObject b : storedTiles[i][j].getContent()) {
-					if (b instanceof BilliardBall) {
-						tiles[i][j].addGameObject(target.get(b));
-						(target.get(b)).getTiles().add(tiles[i][j]);
-					} else {
-						tiles[i][j].addGameObject(b);
-					}
+				for (BilliardBall b : storedTiles[i][j].getBalls()) {
+					tiles[i][j].addBall(target.get(b));
+					target.get(b).enterTile(tiles[i][j]);
 				}
 			}
 		}
 	}
 
 	protected void initTiles(Set<BilliardBall> targets) {
-		storedTiles = new Tile[hTiles][vTiles];
-		float tileWidth = (4 * table.getPocketRadius() + table.getWidth())
-				/ hTiles;
-		float tileLength = (4 * table.getPocketRadius() + table.getLength())
-				/ vTiles;
+		GeometryIndex index = GeometryIndex.forTable(table, hTiles, vTiles);
+		if (index != geometry) {
+			geometry = index;
+			storedTiles = geometry.createTiles();
+			tiles = null;
+		}
 
 		for (int i = 0; i < hTiles; i++) {
 			for (int j = 0; j < vTiles; j++) {
-
-				storedTiles[i][j] = new Tile("(" + i + "," + j + ")", i
-						* tileWidth - 2 * table.getPocketRadius(), (i + 1)
-						* tileWidth - 2 * table.getPocketRadius(), j
-						* tileLength - 2 * table.getPocketRadius(), (j + 1)
-						* tileLength - 2 * table.getPocketRadius());
-				logger.log(Level.FINE, "Creating tile ", storedTiles[i][j]);
-				if (i != 0) {
-					storedTiles[i][j].setWestTile(storedTiles[i - 1][j]);
-					storedTiles[i - 1][j].setEastTile(storedTiles[i][j]);
-
-				}
-				if (j != 0) {
-					storedTiles[i][j].setSouthTile(storedTiles[i][j - 1]);
-					storedTiles[i][j - 1].setNorthTile(storedTiles[i][j]);
-
-				}
-				for (Cushion c : table.getCushions()) {
-					if (cushionInTile(c, storedTiles[i][j])) {
-						storedTiles[i][j].addGameObject(c);
-						logger.log(Level.FINE, "Adding cushion to tile " + c
-								+ " " + storedTiles[i][j]);
-					}
-				}
-				for (Pocket p : table.getPockets()) {
-					if (sphereInTile(p, storedTiles[i][j])) {
-						storedTiles[i][j].addGameObject(p);
-						logger.log(Level.FINE, "Adding pocket to tile " + p
-								+ " " + storedTiles[i][j]);
-					}
-				}
-				for (PocketCorner pc : table.getPocketCorners()) {
-					if (sphereInTile(pc, storedTiles[i][j])) {
-						storedTiles[i][j].addGameObject(pc);
-						logger.log(Level.FINE, "Adding pocket corner to tile "
-								+ pc + " " + storedTiles[i][j]);
-					}
-				}
+				storedTiles[i][j].getBalls().clear();
 				for (BilliardBall b : targets) {
-					if (sphereInTile(b, storedTiles[i][j])) {
-						storedTiles[i][j].addGameObject(b);
-						b.getTiles().add(storedTiles[i][j]);
-						logger.log(Level.FINE, "Adding ball to tile " + b + " "
-								+ storedTiles[i][j]);
+					if (GeometryIndex.sphereInTile(b, storedTiles[i][j])) {
+						storedTiles[i][j].addBall(b);
+						b.enterTile(storedTiles[i][j]);
+						if (logger.isLoggable(Level.FINE)) {
+							logger.log(Level.FINE, "Adding ball to tile " + b
+									+ " " + storedTiles[i][j]);
+						}
 					}
 				}
 			}
 		}
 	}
 
-	private boolean sphereInTile(SphericalGameObject s, Tile t) {
-		Vector3f circleDistance = new Vector3f();
-		circleDistance.x = Math.abs(s.getPosition().x - t.getLowerBoundX()
-				- t.getWidth() / 2);
-		circleDistance.y = Math.abs(s.getPosition().y - t.getLowerBoundY()
-				- t.getLength() / 2);
-
-		if (circleDistance.x > (t.getWidth() / 2 + s.getRadius())) {
-			return false;
+	/**
+	 * An event handler together with the events it is interested in
+	 */
+	private static class Registration {
+		final EventHandler handler;
+		final BilliardBall ball;
+		final Class<?>[] types;
+
+		Registration(EventHandler handler, BilliardBall ball, Class<?>[] types) {
+			this.handler = handler;
+			this.ball = ball;
+			this.types = types;
 		}
-		if (circleDistance.y > (t.getLength() / 2 + s.getRadius())) {
+
+		boolean accepts(Class<?> type) {
+			if (types.length == 0) {
+				return true;
+			}
+			for (Class<?> t : types) {
+				if (t.isAssignableFrom(type)) {
+					return true;
+				}
+			}
 			return false;
 		}
+	}
+
+	/**
+	 * Adds a handler that receives every event, including the tiling events
+	 * 
+	 * @param eh
+	 *            the handler
+	 */
+	public void addEventHandler(EventHandler eh) {
+		register(new Registration(eh, null, new Class<?>[0]));
+	}
 
-		if (circleDistance.x <= (t.getWidth() / 2)) {
-			return true;
+	/**
+	 * Adds a handler that only receives the events of the given types and
+	 * their subtypes
+	 * 
+	 * @param eh
+	 *            the handler
+	 * @param types
+	 *            the types of events the handler is interested in
+	 */
+	public void addEventHandler(EventHandler eh, Class<?>... types) {
+		addEventHandler(eh, null, types);
+	}
+
+	/**
+	 * Adds a handler that only receives the events of the given types that
+	 * involve the given ball
+	 * 
+	 * @param eh
+	 *            the handler
+	 * @param ball
+	 *            the ball the handler is interested in; null for all balls
+	 * @param types
+	 *            the types of events the handler is interested in
+	 */
+	public void addEventHandler(EventHandler eh, BilliardBall ball,
+			Class<?>... types) {
+		if (types.length == 0) {
+			throw new IllegalArgumentException("No event types given");
 		}
-		if (circleDistance.y <= (t.getLength() / 2)) {
-			return true;
+		for (Class<?> t : types) {
+			if (!Event.class.isAssignableFrom(t)) {
+				throw new IllegalArgumentException(t + " is not an event");
+			}
 		}
+		register(new Registration(eh, ball, types.clone()));
+	}
 
-		float cornerDistance = FastMath.sqrt(FastMath.sqr(circleDistance.x
-				- t.getWidth() / 2)
-				+ FastMath.sqr(circleDistance.y - t.getLength() / 2));
-
-		return (cornerDistance <= s.getRadius());
+	private void register(Registration registration) {
+		registrations.add(registration);
+		dispatch.clear();
 	}
 
-	private boolean cushionInTile(Cushion c, Tile t) {
-		if (c.getOrientation() == Orientation.NORTH
-				|| c.getOrientation() == Orientation.SOUTH) {
-			if (c.getPosition().y < t.getLowerBoundY()
-					|| c.getPosition().y > t.getUpperBoundY()) {
-				logger.log(Level.FINER, "Horizontal Cushion not in tile", c);
-				return false;
-			}
-			if (c.getLength() + 2 * c.getPosition().x - 2 * t.getLowerBoundX() > -SPACE_THRESHOLD) {
-				logger.log(Level.FINER, "Horizontal Cushion in tile", c);
-				return true;
-			}
-		} else {
-			if (c.getPosition().x < t.getLowerBoundX()
-					|| c.getPosition().x > t.getUpperBoundX()) {
-				logger.log(Level.FINER, "Vertical Cushion not in tile", c);
-				return false;
+	/**
+	 * Passes an event to the handlers that are interested in it, in the order
+	 * in which they were added. The handlers of each class of events are
+	 * looked up once and kept until the handlers change.
+	 * 
+	 * @param event
+	 *            the event
+	 */
+	protected void dispatch(Event event) {
+		Registration[] receivers = dispatch.get(event.getClass());
+		if (receivers == null) {
+			ArrayList<Registration> list = new ArrayList<Registration>();
+			for (Registration r : registrations) {
+				if (r.accepts(event.getClass())) {
+					list.add(r);
+				}
 			}
-			if ((c.getLength() + 2 * c.getPosition().y - 2 * t.getLowerBoundY()) > -SPACE_THRESHOLD) {
-				logger.log(Level.FINER, "Vertical Cushion in tile", c);
-				return true;
+			receivers = list.toArray(new Registration[list.size()]);
+			dispatch.put(event.getClass(), receivers);
+		}
+		for (Registration r : receivers) {
+			if (r.ball == null || event.getBallKeys().contains(r.ball)) {
+				r.handler.handle(event);
 			}
 		}
-		logger.log(Level.FINER, "Cushion not in tile", c);
-		return false;
-	}
-
-	public void addEventHandler(EventHandler eh) {
-		handlers.add(eh);
 	}
 
 	protected void clearEvents(BilliardBall ball) {
@@ -304,36 +475,157 @@ public abstract class Simulation {
 		}
 	}
 
-	protected void queueEvents(BilliardBall ball,
-			Map<BilliardBall, BilliardBall> targets, Tile tile) {
-		for (CollidableGameObject go : tile.getContent()) {
-			Event e = go.findCollision(targets.get(ball));
-			if (e != null) {
-				logger.log(Level.FINE, "Queueing...", e);
-				for (BilliardBall b : e.getBalls(targets)) {
-					List<Event> l = ballEvents.get(b).get(tile);
-					l.insertLast(e);
-					e.addListOccurrence(l.last());
+	/**
+	 * Removes all events of the given ball, because its motion has changed.
+	 * 
+	 * @param ball
+	 *            the ball
+	 * @param targets
+	 *            the balls of the simulation
+	 */
+	protected void invalidateEvents(BilliardBall ball,
+			Map<BilliardBall, BilliardBall> targets) {
+		if (lazyInvalidation) {
+			targets.get(ball).increaseGeneration();
+		} else {
+			clearEvents(ball);
+		}
+	}
+
+	/**
+	 * Removes all events of the given ball that were found in the given tile,
+	 * because the ball has left it.
+	 * 
+	 * @param ball
+	 *            the ball
+	 * @param tile
+	 *            the tile
+	 */
+	protected void invalidateEvents(BilliardBall ball, Tile tile) {
+		if (!lazyInvalidation) {
+			clearEvents(ball, tile);
+		}
+		// with lazy invalidation, the ball is no longer in the tile and
+		// the events will be discarded by isOutdated
+	}
+
+	/**
+	 * Schedules an event
+	 * 
+	 * @param e
+	 *            the event
+	 * @param targets
+	 *            the balls of the simulation
+	 * @param tile
+	 *            the tile in which the event was found; null if the event
+	 *            does not depend on a tile
+	 */
+	protected void schedule(Event e, Map<BilliardBall, BilliardBall> targets,
+			Tile tile) {
+		if (lazyInvalidation) {
+			int generation = 0;
+			for (BilliardBall b : e.getBallKeys()) {
+				generation += targets.get(b).getGeneration();
+				if (tile != null) {
+					generation += targets.get(b).getTileStamp(tile);
+				}
+			}
+			e.setOrigin(tile);
+			e.setGeneration(generation);
+		} else {
+			for (BilliardBall b : e.getBalls(targets)) {
+				List<Event> l = ballEvents.get(b).get(tile);
+				l.insertLast(e);
+				e.addListOccurrence(l.last());
+			}
+		}
+		events.insert(e);
+	}
+
+	/**
+	 * Checks whether an event has been invalidated since it was scheduled.
+	 * Only used with lazy invalidation. An event that was found in a tile is
+	 * outdated once one of its balls has left the tile, even if the ball has
+	 * entered it again since, and a tiling event is outdated once the ball
+	 * has entered or left its tile in another way.
+	 * 
+	 * @param e
+	 *            the event
+	 * @param targets
+	 *            the balls of the simulation
+	 * @return true if the event will not happen anymore
+	 */
+	protected boolean isOutdated(Event e,
+			Map<BilliardBall, BilliardBall> targets) {
+		if (e instanceof TilingEvent) {
+			TilingEvent te = (TilingEvent) e;
+			boolean inTile = targets.get(te.getBall()).getTiles().contains(
+					te.getTile());
+			if (inTile == (e instanceof EnterTileEvent)) {
+				return true;
+			}
+		}
+		int generation = 0;
+		for (BilliardBall b : e.getBallKeys()) {
+			BilliardBall target = targets.get(b);
+			if (e.getOrigin() != null) {
+				if (!target.getTiles().contains(e.getOrigin())) {
+					return true;
 				}
-				e.setPQOccurrence(events.insertItem(e.getTime(), e));
+				// the stamps only grow while the ball stays in the tile
+				generation += target.getTileStamp(e.getOrigin());
 			}
+			generation += target.getGeneration();
+		}
+		return generation != e.getGeneration();
+	}
+
+	/**
+	 * Gets the next valid event without removing it from the queue. Outdated
+	 * events at the head of the queue are discarded.
+	 * 
+	 * @param targets
+	 *            the balls of the simulation
+	 * @return the next event; null if there is none
+	 */
+	protected Event nextScheduledEvent(Map<BilliardBall, BilliardBall> targets) {
+		if (lazyInvalidation) {
+			while (!events.isEmpty() && isOutdated(events.minElement(), targets)) {
+				logger.log(Level.FINER, "discarded event", events.minElement());
+				events.removeMin();
+			}
+		}
+		return events.minElement();
+	}
+
+	private void queueCollision(CollidableGameObject go, BilliardBall ball,
+			Map<BilliardBall, BilliardBall> targets, Tile tile) {
+		Event e = go.findCollision(targets.get(ball), physics);
+		if (e != null) {
+			logger.log(Level.FINE, "Queueing...", e);
+			schedule(e, targets, tile);
+		}
+	}
+
+	protected void queueEvents(BilliardBall ball,
+			Map<BilliardBall, BilliardBall> targets, Tile tile) {
+		for (CollidableGameObject go : tile.getStaticContent()) {
+			queueCollision(go, ball, targets, tile);
+		}
+		for (CollidableGameObject go : tile.getBalls()) {
+			queueCollision(go, ball, targets, tile);
 		}
 
 		// find tiling events
 		if (ball.getState() != BallState.RESTING) {
-			List<Event> l = ballEvents.get(ball).get(tile);
-			LeaveTileEvent lte = tile.getLeaveEvent(ball);
+			LeaveTileEvent lte = tile.getLeaveEvent(ball, physics);
 			if (lte != null) {
-				l.insertLast(lte);
-				lte.addListOccurrence(l.last());
-				lte.setPQOccurrence(events.insertItem(lte.getTime(), lte));
+				schedule(lte, targets, tile);
 				logger.log(Level.FINE, "Queueing...", lte);
 			}
-			for (EnterTileEvent ete : tile.getEnterEvents(ball)) {
+			for (EnterTileEvent ete : tile.getEnterEvents(ball, physics)) {
 				logger.log(Level.FINE, "Queueing...", ete);
-				l.insertLast(ete);
-				ete.addListOccurrence(l.last());
-				ete.setPQOccurrence(events.insertItem(ete.getTime(), ete));
+				schedule(ete, targets, tile);
 			}
 		}
 	}
@@ -348,11 +640,7 @@ public abstract class Simulation {
 		if (ball.getState() != BallState.RESTING) {
 			StateChange sc = new StateChange(ball);
 			logger.log(Level.FINE, "Queueing...", sc);
-			List<Event> l = ballEvents.get(ball).get(null);
-
-			l.insertLast(sc);
-			sc.addListOccurrence(l.last());
-			sc.setPQOccurrence(events.insertItem(sc.getTime(), sc));
+			schedule(sc, targets, null);
 		}
 
 	}
@@ -369,10 +657,38 @@ public abstract class Simulation {
 		} else {
 			b.setPosition(initial.getPosition());
 			b.setVelocity(initial.getVelocity());
+			b.setAngularVelocity(initial.getAngularVelocity().clone());
 		}
 		b.setState(initial.getState());
 		b.setTime(currTime);
-		b.setTiles(initial.getTiles());
+		b.getTiles().clear();
+		for (Tile t : initial.getTiles()) {
+			b.enterTile(t);
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the balls at the current time. If the simulation
+	 * has not been initialized yet, the snapshot contains the balls it was
+	 * created with.
+	 * 
+	 * @return the snapshot
+	 * @throws IllegalStateException
+	 *             if one of the events the simulation was initialized with
+	 *             has not happened yet, since those events are not part of
+	 *             the snapshot
+	 */
+	public Snapshot snapshot() {
+		if (ready && initEvents != null) {
+			for (Event e : initEvents) {
+				if (e.getQueue() != null || e.getTime() > currTime) {
+					throw new IllegalStateException(
+							"Cannot take a snapshot before the initial event "
+									+ e + " has happened");
+				}
+			}
+		}
+		return new Snapshot(this);
 	}
 
 	public void advanceTime(float t) {
@@ -389,8 +705,10 @@ public abstract class Simulation {
 		if (!paused) {
 			currTime = newTime;
 		}
-		logger.log(Level.FINE, "Advanced in time by " + t + " to new time",
-				currTime);
+		if (logger.isLoggable(Level.FINE)) {
+			logger.log(Level.FINE, "Advanced in time by " + t
+					+ " to new time", currTime);
+		}
 	}
 
 	public void finish() {
@@ -422,9 +740,7 @@ public abstract class Simulation {
 
 		currTime = event.getTime();
 		updateBallStates(event, initials);
-		for (EventHandler h : handlers) {
-			h.handle(event);
-		}
+		dispatch(event);
 	}
 
 	public abstract Event fetchNextEvent();
@@ -458,7 +774,8 @@ public abstract class Simulation {
 	}
 
 	public void removeHandlers() {
-		handlers.clear();
+		registrations.clear();
+		dispatch.clear();
 	}
 
 	public Map<BilliardBall, BilliardBall> getInitials() {
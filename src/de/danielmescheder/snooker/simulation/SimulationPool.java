@@ -0,0 +1,70 @@
+package de.danielmescheder.snooker.simulation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Table;
+
+/**
+ * The SimulationPool keeps idle {@link InTimeSimulation}s for reuse, so that
+ * code that runs many short simulations does not construct a new one for each
+ * of them. Every thread has its own pool, so no synchronization is needed.
+ *
+ * A simulation is taken from the pool with {@link #acquire(Set, Table)} and
+ * must be given back with {@link #release(InTimeSimulation)} once it is not
+ * used anymore, preferably in a finally block. Simulations that are acquired
+ * while others are still in use are distinct, so pooled simulations may be
+ * used in nested evaluations.
+ *
+ */
+public final class SimulationPool {
+	/**
+	 * The maximum number of idle simulations kept per thread
+	 */
+	public static final int MAX_IDLE = 8;
+
+	private static final ThreadLocal<Deque<InTimeSimulation>> idle = new ThreadLocal<Deque<InTimeSimulation>>() {
+		@Override
+		protected Deque<InTimeSimulation> initialValue() {
+			return new ArrayDeque<InTimeSimulation>();
+		}
+	};
+
+	private SimulationPool() {
+	}
+
+	/**
+	 * Gets a simulation of the given balls on the given table. The simulation
+	 * has no event handlers and still has to be initialized.
+	 *
+	 * @param balls
+	 *            the balls
+	 * @param table
+	 *            the table
+	 * @return the simulation
+	 */
+	public static InTimeSimulation acquire(Set<BilliardBall> balls, Table table) {
+		InTimeSimulation sim = idle.get().poll();
+		if (sim == null) {
+			return new InTimeSimulation(balls, table);
+		}
+		sim.reset(balls, table);
+		return sim;
+	}
+
+	/**
+	 * Returns a simulation to the pool of the calling thread
+	 *
+	 * @param sim
+	 *            the simulation, which must not be used afterwards
+	 */
+	public static void release(InTimeSimulation sim) {
+		sim.removeHandlers();
+		Deque<InTimeSimulation> pool = idle.get();
+		if (pool.size() < MAX_IDLE) {
+			pool.push(sim);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package de.danielmescheder.snooker.simulation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.jme.math.Vector3f;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Tile;
+import de.danielmescheder.snooker.domain.Ball.BallState;
+
+/**
+ * A Snapshot is the compact, immutable state of a {@link Simulation} at one
+ * point in time: the position, velocity, angular velocity and state of every
+ * ball, the tiles each ball is in and the current time. The events that were
+ * predicted by the simulation are not stored, since they follow from the
+ * motions of the balls and are predicted again when the snapshot is restored.
+ *
+ * A snapshot is taken by {@link Simulation#snapshot()} and restored by
+ * {@link InTimeSimulation#restore(Snapshot)}, or used as the starting position
+ * of a new shot by {@link InTimeSimulation#init(Snapshot, Set)}. A search can
+ * thus branch any number of times from the same position without simulating
+ * the shot that led to it again. Since a snapshot is never changed, it may be
+ * restored by several threads at the same time.
+ *
+ */
+public class Snapshot {
+	// the layout of a ball in the values array
+	private static final int X = 0, Y = 1, Z = 2, VX = 3, VY = 4, VZ = 5,
+			WX = 6, WY = 7, WZ = 8;
+	private static final int SIZE = 9;
+
+	private final Map<BilliardBall, Integer> index;
+	private final float[] values;
+	private final BallState[] states;
+	private final int[][] tiles;
+	private final GeometryIndex geometry;
+	private final int vTiles;
+	private final float time;
+
+	/**
+	 * Takes a snapshot of the given simulation at its current time
+	 *
+	 * @param sim
+	 *            the simulation
+	 */
+	Snapshot(Simulation sim) {
+		Set<BilliardBall> balls = sim.storedBalls;
+		index = new HashMap<BilliardBall, Integer>();
+		values = new float[balls.size() * SIZE];
+		states = new BallState[balls.size()];
+		tiles = new int[balls.size()][];
+		geometry = sim.geometry;
+		vTiles = sim.vTiles;
+		time = sim.isReady() ? sim.getCurrentTime() : 0;
+
+		int[] found = new int[sim.hTiles * sim.vTiles];
+		int n = 0;
+		for (BilliardBall stored : balls) {
+			BilliardBall b = stored;
+			if (sim.isReady()) {
+				b = (BilliardBall) stored.clone();
+				sim.getBall(b);
+			}
+			index.put(stored, n);
+			int i = n * SIZE;
+			Vector3f p = b.getPosition();
+			Vector3f v = b.getVelocity();
+			Vector3f av = b.getAngularVelocity();
+			values[i + X] = p.x;
+			values[i + Y] = p.y;
+			values[i + Z] = p.z;
+			values[i + VX] = v.x;
+			values[i + VY] = v.y;
+			values[i + VZ] = v.z;
+			values[i + WX] = av.x;
+			values[i + WY] = av.y;
+			values[i + WZ] = av.z;
+			states[n] = b.getState();
+
+			int count = 0;
+			for (int h = 0; h < sim.hTiles; h++) {
+				for (int j = 0; j < sim.vTiles; j++) {
+					if (GeometryIndex.sphereInTile(b, sim.storedTiles[h][j])) {
+						found[count++] = h * vTiles + j;
+					}
+				}
+			}
+			tiles[n] = new int[count];
+			System.arraycopy(found, 0, tiles[n], 0, count);
+			n++;
+		}
+	}
+
+	/**
+	 * Gets the time at which the snapshot was taken
+	 *
+	 * @return the time
+	 */
+	public float getTime() {
+		return time;
+	}
+
+	/**
+	 * Checks whether the snapshot contains exactly the given balls
+	 *
+	 * @param balls
+	 *            the balls
+	 * @return true if the snapshot contains the same balls
+	 */
+	public boolean contains(Set<BilliardBall> balls) {
+		if (balls.size() != index.size()) {
+			return false;
+		}
+		for (BilliardBall b : balls) {
+			if (!index.containsKey(b)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the tiles of the balls were taken from the given grid
+	 *
+	 * @param index
+	 *            the geometry of a grid
+	 * @return true if the tiles of the snapshot belong to the grid
+	 */
+	boolean hasGeometry(GeometryIndex index) {
+		return geometry == index;
+	}
+
+	/**
+	 * Stores the state of the given ball at the time of the snapshot in the
+	 * ball. The tiles of the ball are not changed.
+	 *
+	 * @param b
+	 *            the ball
+	 */
+	public void getBall(BilliardBall b) {
+		restoreBall(b, time);
+	}
+
+	/**
+	 * Stores the state of the given ball in the ball, unless the ball is
+	 * already in that state, and updates the tiles it is in
+	 *
+	 * @param b
+	 *            a ball of a simulation on the same table
+	 * @param sim
+	 *            the simulation that owns the ball
+	 * @param t
+	 *            the time the ball is set to
+	 * @return true if the ball has been changed
+	 */
+	boolean restoreBall(BilliardBall b, Simulation sim, float t) {
+		if (!restoreBall(b, t)) {
+			return false;
+		}
+		if (hasGeometry(sim.geometry)) {
+			for (Tile tile : b.getTiles()) {
+				tile.removeBall(b);
+			}
+			b.getTiles().clear();
+			for (int k : tiles[index.get(b)]) {
+				Tile tile = sim.storedTiles[k / vTiles][k % vTiles];
+				tile.addBall(b);
+				b.enterTile(tile);
+			}
+		}
+		return true;
+	}
+
+	private boolean restoreBall(BilliardBall b, float t) {
+		int n = index.get(b);
+		int i = n * SIZE;
+		Vector3f p = b.getPosition();
+		Vector3f v = b.getVelocity();
+		Vector3f av = b.getAngularVelocity();
+		if (b.getTime() == t && b.getState() == states[n]
+				&& p.x == values[i + X] && p.y == values[i + Y]
+				&& p.z == values[i + Z] && v.x == values[i + VX]
+				&& v.y == values[i + VY] && v.z == values[i + VZ]
+				&& av.x == values[i + WX] && av.y == values[i + WY]
+				&& av.z == values[i + WZ]) {
+			return false;
+		}
+		b.setPosition(new Vector3f(values[i + X], values[i + Y], values[i + Z]));
+		b.setVelocity(new Vector3f(values[i + VX], values[i + VY], values[i
+				+ VZ]));
+		b.setAngularVelocity(new Vector3f(values[i + WX], values[i + WY],
+				values[i + WZ]));
+		b.setState(states[n]);
+		b.setTime(t);
+		return true;
+	}
+}
@@ -0,0 +1,426 @@
+package de.danielmescheder.snooker.simulation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import com.jme.math.Vector3f;
+
+import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Ball.BallState;
+import de.danielmescheder.snooker.simulation.event.Event;
+import de.danielmescheder.snooker.simulation.physics.Kinematics;
+
+/**
+ * A Timeline is the complete, precomputed course of a shot: for every ball
+ * the sequence of its motion segments, and the events in the order in which
+ * they happen. A segment starts whenever an event changes the motion of a
+ * ball and is stored by the coefficients of its motion in a primitive array,
+ * so the state of any ball at any time is found by a binary search and the
+ * evaluation of a polynomial.
+ *
+ * A Timeline can be read while its {@link Builder} is still simulating the
+ * shot, so playback may start before the course is complete. The builder is
+ * the only writer; it publishes what it has recorded after every event as an
+ * immutable frontier, which readers pick up with a single volatile read. The
+ * course is final up to the horizon of the frontier, and the arrays behind
+ * it are never written below the published counts, so any number of threads
+ * may read a timeline without locking, e.g. the render thread while the rest
+ * of the shot is computed.
+ *
+ */
+public class Timeline {
+	// the layout of a segment in the arrays of a track
+	private static final int TIME = 0, X = 1, Y = 2, VX = 3, VY = 4, AX = 5,
+			AY = 6, WX = 7, WY = 8, WZ = 9, DWX = 10, DWY = 11, DWZ = 12;
+	private static final int SEGMENT = 13;
+
+	/**
+	 * The published motion segments of a single ball, sorted by their start
+	 * time
+	 */
+	private static class Track {
+		final double[] segments;
+		final BallState[] states;
+		final int count;
+		final float z;
+
+		Track(double[] segments, BallState[] states, int count, float z) {
+			this.segments = segments;
+			this.states = states;
+			this.count = count;
+			this.z = z;
+		}
+
+		/**
+		 * Finds the last segment that starts at or before the given time
+		 *
+		 * @return the offset of the segment
+		 */
+		int find(double time) {
+			int lo = 0, hi = count - 1;
+			while (lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if (segments[mid * SEGMENT + TIME] <= time) {
+					lo = mid;
+				} else {
+					hi = mid - 1;
+				}
+			}
+			return lo * SEGMENT;
+		}
+	}
+
+	/**
+	 * The part of the course that has been published
+	 */
+	private static class Frontier {
+		final Map<BilliardBall, Integer> index;
+		final Track[] tracks;
+		final Event[] events;
+		final int eventCount;
+		final float horizon;
+		final boolean complete;
+
+		Frontier(Map<BilliardBall, Integer> index, Track[] tracks,
+				Event[] events, int eventCount, float horizon, boolean complete) {
+			this.index = index;
+			this.tracks = tracks;
+			this.events = events;
+			this.eventCount = eventCount;
+			this.horizon = horizon;
+			this.complete = complete;
+		}
+	}
+
+	private volatile Frontier frontier = new Frontier(
+			Collections.<BilliardBall, Integer> emptyMap(), new Track[0],
+			new Event[0], 0, 0, false);
+	private final CountDownLatch completion = new CountDownLatch(1);
+	// set if the course could not be computed to its end
+	private volatile Throwable failure;
+
+	private Timeline() {
+	}
+
+	/**
+	 * Stores the state of the given ball at the given time in the ball. The
+	 * tiles of the ball are not changed. A time beyond the horizon of an
+	 * incomplete timeline gives the state the ball would have if nothing
+	 * happened to it after the horizon.
+	 *
+	 * @param b
+	 *            the ball
+	 * @param time
+	 *            the time
+	 */
+	public void getBall(BilliardBall b, float time) {
+		Frontier f = frontier;
+		Track track = f.tracks[f.index.get(b)];
+		int i = track.find(time);
+		double[] s = track.segments;
+		BallState state = track.states[i / SEGMENT];
+		double dt = time - s[i + TIME];
+
+		if (state == BallState.RESTING) {
+			b.setPosition(new Vector3f((float) s[i + X], (float) s[i + Y],
+					track.z));
+			b.setVelocity(Vector3f.ZERO.clone());
+			b.setAngularVelocity(Vector3f.ZERO.clone());
+		} else {
+			b.setPosition(new Vector3f((float) (s[i + X] + (s[i + VX] + 0.5
+					* s[i + AX] * dt)
+					* dt), (float) (s[i + Y] + (s[i + VY] + 0.5 * s[i + AY]
+					* dt)
+					* dt), track.z));
+			b.setVelocity(new Vector3f((float) (s[i + VX] + s[i + AX] * dt),
+					(float) (s[i + VY] + s[i + AY] * dt), 0));
+			b.setAngularVelocity(new Vector3f((float) (s[i + WX] + s[i + DWX]
+					* dt), (float) (s[i + WY] + s[i + DWY] * dt),
+					(float) (s[i + WZ] + s[i + DWZ] * dt)));
+		}
+		b.setState(state);
+		b.setTime(time);
+	}
+
+	/**
+	 * Gets the number of events that have been published
+	 *
+	 * @return the number of events
+	 */
+	public int getEventCount() {
+		return frontier.eventCount;
+	}
+
+	/**
+	 * Gets an event by its position in the order of the events
+	 *
+	 * @param index
+	 *            the index of the event, below the number of published
+	 *            events
+	 * @return the event
+	 */
+	public Event getEvent(int index) {
+		Frontier f = frontier;
+		if (index >= f.eventCount) {
+			throw new IndexOutOfBoundsException("Event " + index + " of "
+					+ f.eventCount);
+		}
+		return f.events[index];
+	}
+
+	/**
+	 * Finds the number of published events that happen before the given time
+	 *
+	 * @param time
+	 *            the time
+	 * @return the index of the first event that happens at or after the time
+	 */
+	public int indexOf(float time) {
+		Frontier f = frontier;
+		int lo = 0, hi = f.eventCount;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (f.events[mid].getTime() < time) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Finds the next published event of the given type
+	 *
+	 * @param type
+	 *            the type of the event
+	 * @param from
+	 *            the index from which on to search
+	 * @return the first event of the type at or after the index; null if
+	 *         there is none
+	 */
+	public <E extends Event> E nextEvent(Class<E> type, int from) {
+		Frontier f = frontier;
+		for (int i = from; i < f.eventCount; i++) {
+			if (type.isInstance(f.events[i])) {
+				return type.cast(f.events[i]);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the time of the last published event. Once the timeline is
+	 * complete, all balls rest after it.
+	 *
+	 * @return the time of the last event
+	 */
+	public float getEndTime() {
+		Frontier f = frontier;
+		return f.eventCount > 0 ? f.events[f.eventCount - 1].getTime() : 0;
+	}
+
+	/**
+	 * Gets the time up to which the course of the shot is final
+	 *
+	 * @return the horizon; infinite once the timeline is complete
+	 */
+	public float getHorizon() {
+		Frontier f = frontier;
+		return f.complete ? Float.POSITIVE_INFINITY : f.horizon;
+	}
+
+	/**
+	 * Tells whether the whole course of the shot has been published
+	 *
+	 * @return true if the timeline is complete
+	 * @throws IllegalStateException
+	 *             if the course could not be computed
+	 */
+	public boolean isComplete() {
+		checkFailure();
+		return frontier.complete;
+	}
+
+	/**
+	 * Waits until the whole course of the shot has been published
+	 *
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting
+	 * @throws IllegalStateException
+	 *             if the course could not be computed
+	 */
+	public void awaitComplete() throws InterruptedException {
+		completion.await();
+		checkFailure();
+	}
+
+	private void checkFailure() {
+		Throwable cause = failure;
+		if (cause != null) {
+			throw new IllegalStateException(
+					"The course of the shot could not be computed", cause);
+		}
+	}
+
+	/**
+	 * The Builder records the motions of the balls while a shot is simulated
+	 * and publishes them in its Timeline
+	 */
+	public static class Builder {
+		private final Timeline timeline = new Timeline();
+		private final Map<BilliardBall, Integer> index = new HashMap<BilliardBall, Integer>();
+		private Map<BilliardBall, Integer> publishedIndex = Collections
+				.emptyMap();
+		private double[][] segments = new double[0][];
+		private BallState[][] states = new BallState[0][];
+		private int[] counts = new int[0];
+		private float[] z = new float[0];
+		private boolean[] changed = new boolean[0];
+		private Track[] tracks = new Track[0];
+		private Event[] events = new Event[64];
+		private int eventCount;
+
+		/**
+		 * Records that the given ball starts a new motion. Motions have to be
+		 * recorded in the order of their start times.
+		 *
+		 * @param key
+		 *            the ball by which the motion is looked up
+		 * @param ball
+		 *            the simulated ball that has just changed its motion
+		 */
+		public void record(BilliardBall key, BilliardBall ball) {
+			Integer t = index.get(key);
+			if (t == null) {
+				t = addTrack(key, ball.getPosition().z);
+			}
+			int n = counts[t];
+			// the arrays are replaced instead of grown, since published
+			// tracks may still be read
+			if ((n + 1) * SEGMENT > segments[t].length) {
+				segments[t] = Arrays.copyOf(segments[t], 2 * n * SEGMENT);
+				states[t] = Arrays.copyOf(states[t], 2 * n);
+			}
+			double[] s = segments[t];
+			int i = n * SEGMENT;
+			states[t][n] = ball.getState();
+
+			Kinematics k = ball.getKinematics();
+			double time = k.getTime();
+			s[i + TIME] = time;
+			s[i + X] = k.getX(time);
+			s[i + Y] = k.getY(time);
+			s[i + VX] = k.getVelocityX(time);
+			s[i + VY] = k.getVelocityY(time);
+			s[i + AX] = k.getAccelerationX();
+			s[i + AY] = k.getAccelerationY();
+			s[i + WX] = k.getAngularVelocityX(time);
+			s[i + WY] = k.getAngularVelocityY(time);
+			s[i + WZ] = k.getAngularVelocityZ(time);
+			s[i + DWX] = k.getAngularAccelerationX();
+			s[i + DWY] = k.getAngularAccelerationY();
+			s[i + DWZ] = k.getAngularAccelerationZ();
+			counts[t] = n + 1;
+			changed[t] = true;
+		}
+
+		private int addTrack(BilliardBall key, float height) {
+			int t = counts.length;
+			index.put(key, t);
+			segments = Arrays.copyOf(segments, t + 1);
+			states = Arrays.copyOf(states, t + 1);
+			counts = Arrays.copyOf(counts, t + 1);
+			z = Arrays.copyOf(z, t + 1);
+			changed = Arrays.copyOf(changed, t + 1);
+			segments[t] = new double[4 * SEGMENT];
+			states[t] = new BallState[4];
+			z[t] = height;
+			return t;
+		}
+
+		/**
+		 * Records an event. Events have to be recorded in the order in which
+		 * they happen.
+		 *
+		 * @param e
+		 *            the event
+		 */
+		public void record(Event e) {
+			if (eventCount == events.length) {
+				events = Arrays.copyOf(events, 2 * eventCount);
+			}
+			events[eventCount++] = e;
+		}
+
+		/**
+		 * Makes the motions and events recorded so far visible to the
+		 * readers of the timeline
+		 *
+		 * @param horizon
+		 *            the time up to which the course is final; nothing that
+		 *            is recorded later may change it
+		 */
+		public void publish(float horizon) {
+			publish(horizon, false);
+		}
+
+		private void publish(float horizon, boolean complete) {
+			if (tracks.length != counts.length) {
+				tracks = Arrays.copyOf(tracks, counts.length);
+				publishedIndex = new HashMap<BilliardBall, Integer>(index);
+			} else {
+				tracks = tracks.clone();
+			}
+			for (int t = 0; t < tracks.length; t++) {
+				if (changed[t]) {
+					tracks[t] = new Track(segments[t], states[t], counts[t],
+							z[t]);
+					changed[t] = false;
+				}
+			}
+			// the volatile write hands everything written before over to
+			// the readers
+			timeline.frontier = new Frontier(publishedIndex, tracks, events,
+					eventCount, horizon, complete);
+		}
+
+		/**
+		 * Gets the timeline the recorded motions are published in
+		 *
+		 * @return the timeline
+		 */
+		public Timeline getTimeline() {
+			return timeline;
+		}
+
+		/**
+		 * Publishes all recorded motions and events as the complete course of
+		 * the shot
+		 *
+		 * @return the timeline
+		 */
+		public Timeline build() {
+			publish(eventCount > 0 ? events[eventCount - 1].getTime() : 0,
+					true);
+			timeline.completion.countDown();
+			return timeline;
+		}
+
+		/**
+		 * Ends the timeline without completing it, because the shot could
+		 * not be simulated to its end. Readers that wait for the timeline or
+		 * ask whether it is complete get the failure instead.
+		 *
+		 * @param cause
+		 *            the reason the simulation failed
+		 */
+		public void fail(Throwable cause) {
+			timeline.failure = cause;
+			timeline.completion.countDown();
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package de.danielmescheder.snooker.simulation;
+
+import java.util.Iterator;
+
+import de.danielmescheder.snooker.adt.def.Comparator;
+import de.danielmescheder.snooker.adt.impl.AVLTree;
+import de.danielmescheder.snooker.adt.impl.KeyElementPair;
+import de.danielmescheder.snooker.exception.InvalidPositionException;
+import de.danielmescheder.snooker.simulation.event.Event;
+
+/**
+ * The TreeEventQueue keeps the events in an {@link AVLTree}. Two events are
+ * considered simultaneous if their times differ by less than
+ * {@link Simulation#TIME_THRESHOLD}.
+ * 
+ */
+public class TreeEventQueue implements EventQueue {
+	private AVLTree<Float, Event> events;
+	private Comparator<Float> timeComp;
+
+	private static class TimeComparator implements Comparator<Float> {
+		public boolean isComparable(Float a) {
+			return true;
+		}
+
+		public boolean isEqual(Float a, Float b) {
+			return Math.abs(a - b) < Simulation.TIME_THRESHOLD;
+		}
+
+		public boolean isGreater(Float a, Float b) {
+			return (a - b) > Simulation.TIME_THRESHOLD;
+		}
+
+		public boolean isGreaterOrEqual(Float a, Float b) {
+			return (a - b) > -Simulation.TIME_THRESHOLD;
+		}
+
+		public boolean isLess(Float a, Float b) {
+			return (a - b) < -Simulation.TIME_THRESHOLD;
+		}
+
+		public boolean isLessOrEqual(Float a, Float b) {
+			return (a - b) < Simulation.TIME_THRESHOLD;
+		}
+
+	}
+
+	/**
+	 * Constructs an empty queue
+	 */
+	public TreeEventQueue() {
+		timeComp = new TimeComparator();
+		events = new AVLTree<Float, Event>(timeComp);
+	}
+
+	@Override
+	public void insert(Event e) {
+		if (e.getQueue() != null) {
+			throw new InvalidPositionException();
+		}
+		e.setPQOccurrence(events.insertItem(e.getTime(), e));
+		e.setQueue(this);
+	}
+
+	@Override
+	public void remove(Event e) {
+		if (e.getQueue() != this) {
+			throw new InvalidPositionException();
+		}
+		events.remove(e.getPQOccurrence());
+		e.setPQOccurrence(null);
+		e.setQueue(null);
+	}
+
+	@Override
+	public Event minElement() {
+		return isEmpty() ? null : events.minElement();
+	}
+
+	@Override
+	public Event removeMin() {
+		Event e = minElement();
+		if (e != null) {
+			remove(e);
+		}
+		return e;
+	}
+
+	@Override
+	public void clear() {
+		Iterator<KeyElementPair<Float, Event>> it = events.elements();
+		while (it.hasNext()) {
+			KeyElementPair<Float, Event> kep = it.next();
+			// external nodes do not hold an element
+			if (kep != null) {
+				kep.element().setPQOccurrence(null);
+				kep.element().setQueue(null);
+			}
+		}
+		events = new AVLTree<Float, Event>(timeComp);
+	}
+
+	@Override
+	public int size() {
+		// the tree also counts its external nodes
+		return events.size() / 2;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return events.size() <= 1;
+	}
+}
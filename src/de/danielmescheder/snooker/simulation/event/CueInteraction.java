@@ -10,6 +10,7 @@ import com.jme.math.Vector3f;
 import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.Cue;
 import de.danielmescheder.snooker.domain.Ball.BallState;
+import de.danielmescheder.snooker.math.RandomStream;
 import de.danielmescheder.snooker.math.XYRotationTrans3D;
 
 
@@ -121,9 +122,38 @@ public class CueInteraction extends SingleBallEvent {
 		}
 	}
 
-	public NoisyCueInteraction toNoisyCueInteraction() {
+	/**
+	 * Creates a copy of this interaction with noise added to its values
+	 * 
+	 * @param noise
+	 *            the deviations of the values
+	 * @param random
+	 *            the stream the noise is drawn from
+	 * @return the noisy interaction
+	 */
+	public NoisyCueInteraction toNoisyCueInteraction(NoiseModel noise,
+			RandomStream random) {
 		return new NoisyCueInteraction(time, cue, (BilliardBall) ball.clone(),
-				angDest, angElev, transX, transY, velocity);
+				angDest, angElev, transX, transY, velocity, noise, random);
+	}
+
+	/**
+	 * Creates a copy of this interaction with the noise of a draw of a
+	 * sequence added to its values
+	 * 
+	 * @param noise
+	 *            the deviations of the values
+	 * @param sequence
+	 *            the sequence of noise draws
+	 * @param index
+	 *            the index of the draw
+	 * @return the noisy interaction
+	 */
+	public NoisyCueInteraction toNoisyCueInteraction(NoiseModel noise,
+			NoiseSequence sequence, int index) {
+		return new NoisyCueInteraction(time, cue, (BilliardBall) ball.clone(),
+				angDest, angElev, transX, transY, velocity, noise, sequence,
+				index);
 	}
 
 }
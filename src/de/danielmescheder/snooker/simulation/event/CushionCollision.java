@@ -45,13 +45,7 @@ public class CushionCollision extends SingleBallEvent implements Collision {
 		BallMotion motion = ball.getState().getMotion();
 		Vector3f av = motion.getAngularVelocity(ball, getTime());
 		Vector3f p = motion.getPosition(ball, getTime());
-		ball.setVelocity(ball.getState().getMotion().getVelocity(ball,
-				getTime()));
-		ball.setTime(getTime());
-		ball.setAngularVelocity(av);
-		ball.setPosition(p);
-		ball.setState(BallState.SLIDING);
-		Vector3f velocity = ball.getVelocity();
+		Vector3f velocity = motion.getVelocity(ball, getTime());
 
 		if (cushion.getOrientation() == Orientation.NORTH
 				|| cushion.getOrientation() == Orientation.SOUTH) {
@@ -70,6 +64,13 @@ public class CushionCollision extends SingleBallEvent implements Collision {
 			velocity.x = -velocity.x;
 
 		}
+		// the vectors are only set once they are final, so that the motion of
+		// the ball is computed from them
+		ball.setVelocity(velocity);
+		ball.setTime(getTime());
+		ball.setAngularVelocity(av);
+		ball.setPosition(p);
+		ball.setState(BallState.SLIDING);
 		logger.log(Level.FINER, "New ball state", ball);
 	}
 
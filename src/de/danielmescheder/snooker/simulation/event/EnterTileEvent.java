@@ -27,8 +27,8 @@ public class EnterTileEvent extends TilingEvent
 	public void handle(Map<BilliardBall, BilliardBall> target)
 	{
 		BilliardBall b = target.get(getBall());
-		tile.addGameObject(b);
-		b.getTiles().add(tile);
+		tile.addBall(b);
+		b.enterTile(tile);
 
 		BallMotion motion = b.getState().getMotion();
 		Vector3f av = motion.getAngularVelocity(b, getTime());
@@ -8,6 +8,8 @@ import java.util.Set;
 import de.danielmescheder.snooker.adt.def.Position;
 import de.danielmescheder.snooker.adt.impl.KeyElementPair;
 import de.danielmescheder.snooker.domain.BilliardBall;
+import de.danielmescheder.snooker.domain.Tile;
+import de.danielmescheder.snooker.simulation.EventQueue;
 
 /**
  * The abstract class Event provides the basic methods needed to manage the
@@ -32,12 +34,78 @@ public abstract class Event {
 		pqOccurrence = position;
 	}
 
+	public Position<KeyElementPair<Float, Event>> getPQOccurrence() {
+		return pqOccurrence;
+	}
+
+	/**
+	 * Sets the queue in which this event is scheduled. Only to be called by
+	 * the {@link EventQueue} itself.
+	 * 
+	 * @param queue
+	 *            the queue; null if the event is not scheduled
+	 */
+	public void setQueue(EventQueue queue) {
+		this.queue = queue;
+	}
+
+	public EventQueue getQueue() {
+		return queue;
+	}
+
+	/**
+	 * Sets the index of this event in an array-based {@link EventQueue}. Only
+	 * to be called by the queue itself.
+	 * 
+	 * @param index
+	 *            the index
+	 */
+	public void setQueueIndex(int index) {
+		this.queueIndex = index;
+	}
+
+	public int getQueueIndex() {
+		return queueIndex;
+	}
+
+	/**
+	 * Sets the tile in which this event was predicted. Only used for lazy
+	 * invalidation.
+	 * 
+	 * @param tile
+	 *            the tile; null if the event does not depend on a tile
+	 */
+	public void setOrigin(Tile tile) {
+		this.origin = tile;
+	}
+
+	public Tile getOrigin() {
+		return origin;
+	}
+
+	/**
+	 * Sets the sum of the generations of all involved balls at the time this
+	 * event was predicted, plus the stamps of their registrations to the tile
+	 * in which it was found. Only used for lazy invalidation.
+	 * 
+	 * @param generation
+	 *            the generation
+	 */
+	public void setGeneration(int generation) {
+		this.generation = generation;
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
 	public void removeOccurrences() {
 		for (Position<Event> p : listOccurrences) {
 			p.container().remove(p);
 		}
-		pqOccurrence.container().remove(pqOccurrence);
-		setPQOccurrence(null);
+		if (queue != null) {
+			queue.remove(this);
+		}
 		this.listOccurrences.clear();
 	}
 
@@ -77,5 +145,9 @@ public abstract class Event {
 	private Set<BilliardBall> balls;
 	private ArrayList<Position<Event>> listOccurrences;
 	private Position<KeyElementPair<Float, Event>> pqOccurrence;
+	private EventQueue queue;
+	private int queueIndex = -1;
+	private Tile origin;
+	private int generation;
 
 }
@@ -22,7 +22,7 @@ public class LeaveTileEvent extends TilingEvent {
 	@Override
 	public void handle(Map<BilliardBall, BilliardBall> target) {
 		BilliardBall b = target.get(getBall());
-		tile.getContent().remove(b);
+		tile.removeBall(b);
 		b.getTiles().remove(tile);
 
 		BallMotion motion = b.getState().getMotion();
@@ -0,0 +1,80 @@
+package de.danielmescheder.snooker.simulation.event;
+
+/**
+ * The NoiseModel holds the standard deviations of the gaussian noise that a
+ * {@link NoisyCueInteraction} adds to the values of a cue interaction. A model
+ * is immutable, so it can be shared by all evaluators and threads.
+ *
+ * The default model is used by every evaluator that is not given a model of
+ * its own.
+ *
+ */
+public class NoiseModel {
+	private static volatile NoiseModel defaultModel = new NoiseModel(1, 1, 1,
+			1, 1);
+
+	private final float destDev, elevDev, transXDev, transYDev, velDev;
+
+	/**
+	 * Constructs a new NoiseModel
+	 *
+	 * @param destDev
+	 *            the deviation of the angle of the shot direction
+	 * @param elevDev
+	 *            the deviation of the elevation of the cue
+	 * @param transXDev
+	 *            the deviation of the horizontal offset of the cue tip
+	 * @param transYDev
+	 *            the deviation of the vertical offset of the cue tip
+	 * @param velDev
+	 *            the deviation of the velocity of the cue
+	 */
+	public NoiseModel(float destDev, float elevDev, float transXDev,
+			float transYDev, float velDev) {
+		this.destDev = destDev;
+		this.elevDev = elevDev;
+		this.transXDev = transXDev;
+		this.transYDev = transYDev;
+		this.velDev = velDev;
+	}
+
+	/**
+	 * Gets the model that is used unless another one is given
+	 *
+	 * @return the default model
+	 */
+	public static NoiseModel getDefault() {
+		return defaultModel;
+	}
+
+	/**
+	 * Sets the model that is used unless another one is given. Evaluators
+	 * that already exist keep their model.
+	 *
+	 * @param model
+	 *            the new default model
+	 */
+	public static void setDefault(NoiseModel model) {
+		defaultModel = model;
+	}
+
+	public float getDestDev() {
+		return destDev;
+	}
+
+	public float getElevDev() {
+		return elevDev;
+	}
+
+	public float getTransXDev() {
+		return transXDev;
+	}
+
+	public float getTransYDev() {
+		return transYDev;
+	}
+
+	public float getVelDev() {
+		return velDev;
+	}
+}
@@ -0,0 +1,139 @@
+package de.danielmescheder.snooker.simulation.event;
+
+import de.danielmescheder.snooker.math.HaltonSequence;
+import de.danielmescheder.snooker.math.RandomStream;
+
+/**
+ * The NoiseSequence is a fixed list of noise draws for the samples of a
+ * {@link NoisyCueInteraction}. Every draw holds a standard normal deviate for
+ * each of the noisy values of a cue interaction, which the
+ * {@link NoiseModel} scales to the deviation of that value.
+ *
+ * Sampling all candidate shots of a turn with the same sequence applies the
+ * same noise to each of them (common random numbers), so the differences
+ * between their scores come from the shots and not from the luck of the draw.
+ * A quasi random sequence additionally spreads the draws evenly over the
+ * noise distribution, which makes the estimate of a single shot more stable
+ * than the same number of independent draws.
+ *
+ * Since the samples of a sequence are not independent, a
+ * SequentialTest used with it should only stop once the decision is certain.
+ *
+ */
+public class NoiseSequence {
+	/**
+	 * The number of noisy values of a cue interaction
+	 */
+	public static final int DIMENSIONS = 5;
+
+	// coefficients of the approximation of the inverse normal distribution
+	private static final double[] A = { -3.969683028665376e+01,
+			2.209460984245205e+02, -2.759285104469687e+02,
+			1.383577518672690e+02, -3.066479806614716e+01,
+			2.506628277459239e+00 };
+	private static final double[] B = { -5.447609879822406e+01,
+			1.615858368580409e+02, -1.556989798598866e+02,
+			6.680131188771972e+01, -1.328068155288572e+01 };
+	private static final double[] C = { -7.784894002430293e-03,
+			-3.223964580411365e-01, -2.400758277161838e+00,
+			-2.549732539343734e+00, 4.374664141464968e+00,
+			2.938163982698783e+00 };
+	private static final double[] D = { 7.784695709041462e-03,
+			3.224671290700398e-01, 2.445134137142996e+00,
+			3.754408661907416e+00 };
+	private static final double LOW = 0.02425;
+
+	private final double[][] deviates;
+
+	private NoiseSequence(double[][] deviates) {
+		this.deviates = deviates;
+	}
+
+	/**
+	 * Creates a sequence of independent draws
+	 *
+	 * @param size
+	 *            the number of draws
+	 * @param random
+	 *            the stream the draws are taken from
+	 * @return the new sequence
+	 */
+	public static NoiseSequence random(int size, RandomStream random) {
+		double[][] deviates = new double[size][DIMENSIONS];
+		for (int i = 0; i < size; i++) {
+			for (int d = 0; d < DIMENSIONS; d++) {
+				deviates[i][d] = random.nextGaussian();
+			}
+		}
+		return new NoiseSequence(deviates);
+	}
+
+	/**
+	 * Creates a sequence of draws from a randomly shifted
+	 * {@link HaltonSequence}
+	 *
+	 * @param size
+	 *            the number of draws
+	 * @param random
+	 *            the stream the shift is taken from
+	 * @return the new sequence
+	 */
+	public static NoiseSequence quasiRandom(int size, RandomStream random) {
+		HaltonSequence halton = new HaltonSequence(DIMENSIONS, random);
+		double[][] deviates = new double[size][DIMENSIONS];
+		for (int i = 0; i < size; i++) {
+			for (int d = 0; d < DIMENSIONS; d++) {
+				deviates[i][d] = inverseNormal(halton.get(i, d));
+			}
+		}
+		return new NoiseSequence(deviates);
+	}
+
+	/**
+	 * Gets the number of draws
+	 *
+	 * @return the size of the sequence
+	 */
+	public int size() {
+		return deviates.length;
+	}
+
+	/**
+	 * Gets a standard normal deviate of a draw
+	 *
+	 * @param index
+	 *            the index of the draw
+	 * @param dimension
+	 *            the noisy value, in the order destination angle, elevation,
+	 *            horizontal offset, vertical offset and velocity
+	 * @return the deviate
+	 */
+	public double get(int index, int dimension) {
+		return deviates[index][dimension];
+	}
+
+	/**
+	 * The inverse of the standard normal distribution function, after the
+	 * rational approximation of Acklam. The relative error is below 1.2e-9.
+	 */
+	private static double inverseNormal(double p) {
+		// a shifted point can be exactly 0
+		p = Math.max(p, Double.MIN_NORMAL);
+		if (p < LOW) {
+			double q = Math.sqrt(-2 * Math.log(p));
+			return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4])
+					* q + C[5])
+					/ ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+		} else if (p > 1 - LOW) {
+			double q = Math.sqrt(-2 * Math.log(1 - p));
+			return -(((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4])
+					* q + C[5])
+					/ ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+		}
+		double q = p - 0.5;
+		double r = q * q;
+		return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r
+				+ A[5]) * q
+				/ (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1);
+	}
+}
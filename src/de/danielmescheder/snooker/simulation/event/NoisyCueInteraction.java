@@ -1,53 +1,66 @@
 package de.danielmescheder.snooker.simulation.event;
 
-import java.util.Random;
-
 import de.danielmescheder.snooker.domain.BilliardBall;
 import de.danielmescheder.snooker.domain.Cue;
+import de.danielmescheder.snooker.math.RandomStream;
 
 /**
  * The NoisyCueInteraction is a special case of {@link CueInteraction} that
  * incorporates gaussian noise into the values. Each value has it's own standard
- * deviation assigned to it. The idea behind this class is being able to sample
- * CueInteractions for improved accuracy.
+ * deviation assigned to it by a {@link NoiseModel}. The idea behind this class
+ * is being able to sample CueInteractions for improved accuracy.
  * 
  */
 public class NoisyCueInteraction extends CueInteraction {
-	private static Random r;
-
-	public static float velDev = 1, transXDev = 1, transYDev = 1, elevDev = 1,
-			destDev = 1;
-
-	static {
-		r = new Random();
-	}
 
+	/**
+	 * Constructs a new NoisyCueInteraction. The noise is drawn from the given
+	 * stream, so the same stream state always gives the same interaction.
+	 * 
+	 * @param noise
+	 *            the deviations of the values
+	 * @param random
+	 *            the stream the noise is drawn from
+	 */
 	public NoisyCueInteraction(float time, Cue cue, BilliardBall ball,
 			float angDest, float angElev, float transX, float transY,
-			float velocity) {
-		super(time, cue, ball, setAngDestNoise(angDest),
-				setAngElevNoise(angElev), setTransXNoise(transX),
-				setTransYNoise(transY), setVelNoise(velocity));
-	}
-
-	private static float setVelNoise(float velocity) {
-		return (float) (velocity + velDev * r.nextGaussian());
-	}
-
-	private static float setTransYNoise(float transY) {
-		return (float) (transY + transYDev * r.nextGaussian());
+			float velocity, NoiseModel noise, RandomStream random) {
+		super(time, cue, ball, addNoise(angDest, noise.getDestDev(), random),
+				addNoise(angElev, noise.getElevDev(), random), addNoise(
+						transX, noise.getTransXDev(), random), addNoise(
+						transY, noise.getTransYDev(), random), addNoise(
+						velocity, noise.getVelDev(), random));
 	}
 
-	private static float setTransXNoise(float transX) {
-		return (float) (transX + transXDev * r.nextGaussian());
+	/**
+	 * Constructs a new NoisyCueInteraction. The noise is taken from a draw of
+	 * a sequence, so interactions that use the same draw get the same noise.
+	 * 
+	 * @param noise
+	 *            the deviations of the values
+	 * @param sequence
+	 *            the sequence of noise draws
+	 * @param index
+	 *            the index of the draw
+	 */
+	public NoisyCueInteraction(float time, Cue cue, BilliardBall ball,
+			float angDest, float angElev, float transX, float transY,
+			float velocity, NoiseModel noise, NoiseSequence sequence, int index) {
+		super(time, cue, ball, addNoise(angDest, noise.getDestDev(), sequence
+				.get(index, 0)), addNoise(angElev, noise.getElevDev(), sequence
+				.get(index, 1)), addNoise(transX, noise.getTransXDev(),
+				sequence.get(index, 2)), addNoise(transY, noise.getTransYDev(),
+				sequence.get(index, 3)), addNoise(velocity, noise.getVelDev(),
+				sequence.get(index, 4)));
 	}
 
-	private static float setAngElevNoise(float angElev) {
-		return (float) (angElev + elevDev * r.nextGaussian());
+	private static float addNoise(float value, float deviation,
+			RandomStream random) {
+		return addNoise(value, deviation, random.nextGaussian());
 	}
 
-	private static float setAngDestNoise(float angDest) {
-		return (float) (angDest + destDev * r.nextGaussian());
+	private static float addNoise(float value, float deviation, double deviate) {
+		return (float) (value + deviation * deviate);
 	}
 
 }
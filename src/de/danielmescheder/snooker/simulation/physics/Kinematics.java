@@ -0,0 +1,248 @@
+package de.danielmescheder.snooker.simulation.physics;
+
+/**
+ * The Kinematics class describes the motion of a single ball on the table by
+ * primitive values only: the position (x, y), the velocity (vx, vy) and the
+ * angular velocity (wx, wy, wz) at the time the motion started.
+ *
+ * All motions are planar and have a constant acceleration. The direction of
+ * the friction is computed once when the motion is set, so the position and
+ * the velocities at a later time are simple polynomials in the elapsed time
+ * that are evaluated without any trigonometry and without allocating memory.
+ * The coefficients of the polynomials that describe collisions are built
+ * from the same values.
+ *
+ * The class does not depend on any rendering library. A Kinematics object is
+ * reused by setting a new motion. Several threads may read it, but not while
+ * a new motion is set.
+ *
+ */
+public class Kinematics {
+	/**
+	 * The kinds of motion a ball can be in
+	 */
+	public enum State {
+		RESTING, SLIDING, ROLLING
+	}
+
+	// ============ Constants ============== \\
+	public static final float SFRIC = 0.2f;
+	public static final float RFRIC = 0.016f;
+	public static final float SPFRIC = 0.044f;
+	public static final float G = 9.81f;
+
+	private State state = State.RESTING;
+	private double time, radius;
+	private double x, y, vx, vy, wx, wy, wz;
+
+	// derived from the values above whenever a motion is set
+	private double ax, ay, duration, spinDeceleration;
+	private double angularX, angularY;
+
+	/**
+	 * Sets the motion that starts at the given time
+	 *
+	 * @param state
+	 *            the kind of motion
+	 * @param time
+	 *            the time at which the motion starts
+	 * @param radius
+	 *            the radius of the ball
+	 */
+	public void set(State state, double time, double radius, double x,
+			double y, double vx, double vy, double wx, double wy, double wz) {
+		this.state = state;
+		this.time = time;
+		this.radius = radius;
+		this.x = x;
+		this.y = y;
+		this.vx = vx;
+		this.vy = vy;
+		this.wx = wx;
+		this.wy = wy;
+		this.wz = wz;
+
+		ax = ay = angularX = angularY = 0;
+		spinDeceleration = 5 * SPFRIC * G / (2 * radius);
+		if (state == State.SLIDING) {
+			// the contact point slides against the direction of the friction
+			double ux = vx - radius * wy;
+			double uy = vy + radius * wx;
+			double u = Math.sqrt(ux * ux + uy * uy);
+			if (u > 0) {
+				ux /= u;
+				uy /= u;
+			}
+			ax = -SFRIC * G * ux;
+			ay = -SFRIC * G * uy;
+			// the friction creates a torque perpendicular to it
+			double torque = 5 * SFRIC * G / (2 * radius);
+			angularX = -uy * torque;
+			angularY = ux * torque;
+			duration = 2 * u / (7 * SFRIC * G);
+		} else if (state == State.ROLLING) {
+			double v = Math.sqrt(vx * vx + vy * vy);
+			if (v > 0) {
+				ax = -RFRIC * G * vx / v;
+				ay = -RFRIC * G * vy / v;
+			}
+			double w = Math.sqrt(wx * wx + wy * wy + wz * wz);
+			if (w > 0) {
+				angularX = -RFRIC * G / radius * wx / w;
+				angularY = -RFRIC * G / radius * wy / w;
+			}
+			duration = v / (RFRIC * G);
+		} else {
+			spinDeceleration = 0;
+			duration = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public double getTime() {
+		return time;
+	}
+
+	public double getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Gets the time after which the motion changes its kind
+	 *
+	 * @return the duration, which is infinite for a resting ball
+	 */
+	public double getDuration() {
+		return duration;
+	}
+
+	public double getAccelerationX() {
+		return ax;
+	}
+
+	public double getAccelerationY() {
+		return ay;
+	}
+
+	public double getAngularAccelerationX() {
+		return angularX;
+	}
+
+	public double getAngularAccelerationY() {
+		return angularY;
+	}
+
+	public double getAngularAccelerationZ() {
+		return -spinDeceleration;
+	}
+
+	public double getX(double t) {
+		double dt = t - time;
+		return x + (vx + 0.5 * ax * dt) * dt;
+	}
+
+	public double getY(double t) {
+		double dt = t - time;
+		return y + (vy + 0.5 * ay * dt) * dt;
+	}
+
+	public double getVelocityX(double t) {
+		return vx + ax * (t - time);
+	}
+
+	public double getVelocityY(double t) {
+		return vy + ay * (t - time);
+	}
+
+	public double getAngularVelocityX(double t) {
+		return wx + angularX * (t - time);
+	}
+
+	public double getAngularVelocityY(double t) {
+		return wy + angularY * (t - time);
+	}
+
+	public double getAngularVelocityZ(double t) {
+		return wz - spinDeceleration * (t - time);
+	}
+
+	/**
+	 * Stores the coefficients of the polynomial whose roots are the times,
+	 * relative to the start of the motion, at which the ball centre crosses
+	 * the given line. The polynomial is positive while the ball is on the side
+	 * of the line the direction points away from.
+	 *
+	 * @param line
+	 *            the coordinate of the line
+	 * @param horizontal
+	 *            whether the line is parallel to the x axis
+	 * @param direction
+	 *            1 if the ball has to move in positive direction to cross the
+	 *            line, -1 otherwise
+	 * @param co
+	 *            an array of length 3 for the coefficients
+	 */
+	public void crossing(double line, boolean horizontal, int direction,
+			double[] co) {
+		if (horizontal) {
+			co[0] = -direction * (y - line);
+			co[1] = -direction * vy;
+			co[2] = -direction * 0.5 * ay;
+		} else {
+			co[0] = -direction * (x - line);
+			co[1] = -direction * vx;
+			co[2] = -direction * 0.5 * ax;
+		}
+	}
+
+	/**
+	 * Stores the coefficients of the polynomial whose roots are the times,
+	 * relative to the start of both motions, at which two balls touch. Both
+	 * motions have to start at the same time. The polynomial is the squared
+	 * distance of the centres minus the squared sum of the radii.
+	 *
+	 * @param other
+	 *            the motion of the other ball
+	 * @param co
+	 *            an array of length 5 for the coefficients
+	 */
+	public void contact(Kinematics other, double[] co) {
+		contact(other.x - x, other.y - y, other.vx - vx, other.vy - vy,
+				0.5 * (other.ax - ax), 0.5 * (other.ay - ay), radius
+						+ other.radius, co);
+	}
+
+	/**
+	 * Stores the coefficients of the polynomial whose roots are the times,
+	 * relative to the start of the motion, at which the ball touches a resting
+	 * sphere.
+	 *
+	 * @param cx
+	 *            the x coordinate of the sphere centre
+	 * @param cy
+	 *            the y coordinate of the sphere centre
+	 * @param sphereRadius
+	 *            the radius of the sphere
+	 * @param co
+	 *            an array of length 5 for the coefficients
+	 */
+	public void contact(double cx, double cy, double sphereRadius, double[] co) {
+		contact(cx - x, cy - y, -vx, -vy, -0.5 * ax, -0.5 * ay, radius
+				+ sphereRadius, co);
+	}
+
+	/**
+	 * The distance of the centres is c + b t + a t^2
+	 */
+	private static void contact(double cx, double cy, double bx, double by,
+			double ax, double ay, double distance, double[] co) {
+		co[0] = cx * cx + cy * cy - distance * distance;
+		co[1] = 2 * (bx * cx + by * cy);
+		co[2] = bx * bx + by * by + 2 * (ax * cx + ay * cy);
+		co[3] = 2 * (ax * bx + ay * by);
+		co[4] = ax * ax + ay * ay;
+	}
+}
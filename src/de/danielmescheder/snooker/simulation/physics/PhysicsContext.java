@@ -0,0 +1,86 @@
+package de.danielmescheder.snooker.simulation.physics;
+
+import de.danielmescheder.snooker.math.BairstowSolver;
+import de.danielmescheder.snooker.math.IntervalRootFinder;
+
+/**
+ * The PhysicsContext holds all mutable scratch state that is needed by the
+ * collision-detection methods of {@link Physics}: the polynomial solver and
+ * the coefficient buffers. The {@link Physics} methods themselves are
+ * stateless, so every thread (or every simulation) that owns its own context
+ * can detect collisions independently of all others.
+ * 
+ * A PhysicsContext must not be shared between threads.
+ * 
+ */
+public class PhysicsContext {
+	private final BairstowSolver solver;
+	private final IntervalRootFinder rootFinder;
+	private boolean bairstow;
+	private final double[] quadratic;
+	private final double[] quartic;
+
+	/**
+	 * Constructs a new context with its own solver and coefficient buffers.
+	 */
+	public PhysicsContext() {
+		solver = new BairstowSolver(null);
+		rootFinder = new IntervalRootFinder();
+		quadratic = new double[3];
+		quartic = new double[5];
+	}
+
+	/**
+	 * Gets the solver of this context
+	 * 
+	 * @return the solver
+	 */
+	BairstowSolver getSolver() {
+		return solver;
+	}
+
+	/**
+	 * Gets the root finder of this context
+	 * 
+	 * @return the root finder
+	 */
+	IntervalRootFinder getRootFinder() {
+		return rootFinder;
+	}
+
+	/**
+	 * Sets whether collision times are found with the {@link BairstowSolver}
+	 * instead of the {@link IntervalRootFinder}. Bairstow's method finds all
+	 * roots of a polynomial, also those after the end of the current motion of
+	 * the balls, and is kept as a fallback and as a reference to verify the
+	 * root finder against.
+	 * 
+	 * @param bairstow
+	 *            true to use the BairstowSolver
+	 */
+	public void setBairstow(boolean bairstow) {
+		this.bairstow = bairstow;
+	}
+
+	public boolean isBairstow() {
+		return bairstow;
+	}
+
+	/**
+	 * Gets the reusable coefficient buffer for polynomials of second order
+	 * 
+	 * @return an array of length 3
+	 */
+	double[] getQuadratic() {
+		return quadratic;
+	}
+
+	/**
+	 * Gets the reusable coefficient buffer for polynomials of fourth order
+	 * 
+	 * @return an array of length 5
+	 */
+	double[] getQuartic() {
+		return quartic;
+	}
+}